@@ -0,0 +1,20 @@
+package com.revolut.moneytransfer.json;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate JSON encoder of the annotated response model at compile time, see
+ * {@link com.revolut.moneytransfer.json.codegen.JsonCodecProcessor}.
+ * <p>
+ * Model must have getters named by JavaBeans convention (as generated by Lombok) and fields of String, long, int,
+ * boolean or their boxed types. Static, transient and {@code @JsonIgnore} fields are skipped.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonCodec {
+}
@@ -0,0 +1,231 @@
+package com.revolut.moneytransfer.json.codegen;
+
+import com.revolut.moneytransfer.json.GenerateJsonCodec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Generates {@code <Model>JsonCodec} next to each model annotated with {@link GenerateJsonCodec}
+ * and lists generated codecs in {@code META-INF/services/com.revolut.moneytransfer.json.JsonCodec}.
+ * <p>
+ * Generated codec writes fields in declaration order, skipping null and empty values as application object mapper does.
+ * Field names are pre-encoded once per codec class, so no intermediate strings are built for names or numbers.
+ */
+@SupportedAnnotationTypes("com.revolut.moneytransfer.json.GenerateJsonCodec")
+public class JsonCodecProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_FILE = "META-INF/services/com.revolut.moneytransfer.json.JsonCodec";
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    private enum Kind {
+        STRING("java.lang.String"),
+        LONG("long"),
+        BOXED_LONG("java.lang.Long"),
+        INT("int"),
+        BOXED_INT("java.lang.Integer"),
+        BOOLEAN("boolean"),
+        BOXED_BOOLEAN("java.lang.Boolean");
+
+        private final String typeName;
+
+        Kind(final String typeName) {
+            this.typeName = typeName;
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final Kind kind;
+
+        private Property(final String name, final Kind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        private String constant() {
+            final StringBuilder constant = new StringBuilder();
+            for (char c : name.toCharArray()) {
+                if (Character.isUpperCase(c) && constant.length() > 0) {
+                    constant.append('_');
+                }
+                constant.append(Character.toUpperCase(c));
+            }
+            return constant.toString();
+        }
+
+        private String getter() {
+            return (kind == Kind.BOOLEAN ? "is" : "get") + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+    }
+
+    // generated codecs of all rounds, service file is written once processing is over
+    private final List<String> generated = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateJsonCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateJsonCodec is only applicable to classes");
+                continue;
+            }
+            generate((TypeElement) element);
+        }
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeServiceFile();
+        }
+        // other processors (lombok, micronaut) still see the annotated models
+        return false;
+    }
+
+    private void generate(final TypeElement type) {
+        final List<Property> properties = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            final Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || isIgnored(field)) {
+                continue;
+            }
+            final Kind kind = kindOf(field.asType());
+            if (kind == null) {
+                error(field, "Field type " + field.asType() + " is not supported by generated JSON codec");
+                return;
+            }
+            properties.add(new Property(field.getSimpleName().toString(), kind));
+        }
+
+        final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String modelName = type.getSimpleName().toString();
+        final String codecName = modelName + "JsonCodec";
+        final String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source(packageName, modelName, codecName, properties));
+            }
+            generated.add(qualifiedName);
+        } catch (IOException e) {
+            error(type, "Failed to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String source(final String packageName, final String modelName, final String codecName,
+                          final List<Property> properties) {
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.revolut.moneytransfer.json.JsonCodec;\n")
+                .append("import com.revolut.moneytransfer.json.JsonWriter;\n\n");
+        final String generatedAnnotation = generatedAnnotation();
+        if (generatedAnnotation != null) {
+            source.append('@').append(generatedAnnotation).append("(\"").append(getClass().getName()).append("\")\n");
+        }
+        source.append("public final class ").append(codecName)
+                .append(" implements JsonCodec<").append(modelName).append("> {\n\n");
+        for (Property property : properties) {
+            source.append("    private static final byte[] ").append(property.constant())
+                    .append(" = JsonWriter.name(\"").append(property.name).append("\");\n");
+        }
+
+        source.append("\n    @Override\n")
+                .append("    public Class<").append(modelName).append("> type() {\n")
+                .append("        return ").append(modelName).append(".class;\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public void write(final ").append(modelName).append(" value, final JsonWriter writer) {\n")
+                .append("        writer.beginObject();\n");
+        for (Property property : properties) {
+            source.append("        writer.field(").append(property.constant())
+                    .append(", value.").append(property.getter()).append("());\n");
+        }
+        source.append("        writer.endObject();\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    // javax.annotation.Generated comes with javax.annotation-api, JDK 9+ has its own one
+    private String generatedAnnotation() {
+        for (String name : new String[]{"javax.annotation.Generated", "javax.annotation.processing.Generated"}) {
+            if (processingEnv.getElementUtils().getTypeElement(name) != null) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    // type mirror's toString includes type annotations such as @Min, so the type is named by its kind or element
+    private Kind kindOf(final TypeMirror type) {
+        final String name;
+        if (type.getKind().isPrimitive()) {
+            name = type.getKind().name().toLowerCase(Locale.ROOT);
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        } else {
+            return null;
+        }
+        for (Kind kind : Kind.values()) {
+            if (name.equals(kind.typeName)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private boolean isIgnored(final VariableElement field) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType().toString().equals(JSON_IGNORE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeServiceFile() {
+        try {
+            final FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : generated) {
+                    writer.write(codec);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
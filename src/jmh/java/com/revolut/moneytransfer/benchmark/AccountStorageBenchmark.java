@@ -0,0 +1,122 @@
+package com.revolut.moneytransfer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the original ACCOUNT layout (CHAR(36) id, CHAR(255) name, CHAR(10) currency)
+ * with the compact one (UUID id, VARCHAR name, SMALLINT currency) on a file database:
+ * primary key lookup latency is measured by JMH, disk space of both tables is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountStorageBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement findPadded;
+    private PreparedStatement findCompact;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("account-storage");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("db") + ";CACHE_SIZE=65536", "sa", "");
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE ACCOUNT_PADDED (id CHAR(36) PRIMARY KEY, name CHAR(255) NOT NULL, " +
+                    "balance BIGINT NOT NULL, currency CHAR(10) NOT NULL, version BIGINT NOT NULL)");
+            statement.execute("CREATE TABLE ACCOUNT_COMPACT (id UUID PRIMARY KEY, name VARCHAR(255) NOT NULL, " +
+                    "balance BIGINT NOT NULL, currency SMALLINT NOT NULL, version BIGINT NOT NULL)");
+        }
+
+        ids = new UUID[rows];
+        connection.setAutoCommit(false);
+        try (final PreparedStatement padded = connection.prepareStatement(
+                     "INSERT INTO ACCOUNT_PADDED VALUES (?, ?, ?, 'USD', 0)");
+             final PreparedStatement compact = connection.prepareStatement(
+                     "INSERT INTO ACCOUNT_COMPACT VALUES (?, ?, ?, 840, 0)")) {
+            for (int i = 0; i < rows; i++) {
+                ids[i] = UUID.randomUUID();
+                padded.setString(1, ids[i].toString());
+                padded.setString(2, "Account " + i);
+                padded.setLong(3, i);
+                padded.addBatch();
+                compact.setObject(1, ids[i]);
+                compact.setString(2, "Account " + i);
+                compact.setLong(3, i);
+                compact.addBatch();
+                if (i % 10_000 == 9_999) {
+                    padded.executeBatch();
+                    compact.executeBatch();
+                    connection.commit();
+                }
+            }
+            padded.executeBatch();
+            compact.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("CHECKPOINT SYNC");
+            for (String table : new String[]{"ACCOUNT_PADDED", "ACCOUNT_COMPACT"}) {
+                try (final ResultSet resultSet = statement.executeQuery("CALL DISK_SPACE_USED('" + table + "')")) {
+                    resultSet.next();
+                    System.out.printf("%n%s: %d rows, %.1f MB on disk%n", table, rows, resultSet.getLong(1) / 1048576.0);
+                }
+            }
+        }
+
+        findPadded = connection.prepareStatement("SELECT * FROM ACCOUNT_PADDED WHERE id = ?");
+        findCompact = connection.prepareStatement("SELECT * FROM ACCOUNT_COMPACT WHERE id = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long findByIdPadded() throws SQLException {
+        findPadded.setString(1, randomId().toString());
+        return read(findPadded);
+    }
+
+    @Benchmark
+    public long findByIdCompact() throws SQLException {
+        findCompact.setObject(1, randomId());
+        return read(findCompact);
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(rows)];
+    }
+
+    private static long read(final PreparedStatement statement) throws SQLException {
+        try (final ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong("balance");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.revolut.moneytransfer.benchmark;
+
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import com.revolut.moneytransfer.workload.ZipfianGenerator;
+import io.micronaut.context.ApplicationContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares optimistic, pessimistic and actor concurrency strategies of {@link AccountService} on both storage backends
+ * under low (many accounts, uniform access) and high (few accounts or Zipfian access) contention
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ConcurrencyStrategyBenchmark {
+
+    @Param({"OPTIMISTIC", "PESSIMISTIC", "ACTOR"})
+    public String strategy;
+
+    @Param({"mybatis", "mvstore"})
+    public String backend;
+
+    @Param({"false", "true"})
+    public boolean batching;
+
+    @Param({"4096", "4"})
+    public int accounts;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public String distribution;
+
+    private ApplicationContext context;
+    private AccountService accountService;
+    private String[] accountIds;
+    private ZipfianGenerator zipfian;
+    private Deposit deposit;
+    private Transfer transfer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("account.concurrency.strategy", strategy);
+        properties.put("repository.backend", backend);
+        properties.put("account.batching.enabled", batching);
+        properties.put("velocity.enabled", false);
+        context = ApplicationContext.run(properties);
+        accountService = context.getBean(AccountService.class);
+
+        deposit = new Deposit();
+        deposit.setAmount(1);
+        deposit.setCurrency("USD");
+
+        transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final Deposit initial = new Deposit();
+        initial.setAmount(1_000_000_000L);
+        initial.setCurrency("USD");
+
+        zipfian = new ZipfianGenerator(accounts, 0.99);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = accountService.createAccount(Account.builder()
+                    .name("benchmark-" + i)
+                    .build()).getId();
+            accountService.createDepositOperation(accountIds[i], initial);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deposit(final Blackhole blackhole) {
+        try {
+            accountService.createDepositOperation(randomAccount(), deposit);
+        } catch (AccountConcurrentModificationException | AccountLockTimeoutException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void transfer(final Blackhole blackhole) {
+        final String source = randomAccount();
+        String target = randomAccount();
+        while (accounts > 1 && target.equals(source)) {
+            target = randomAccount();
+        }
+        try {
+            accountService.createTransferOperation(source, target, transfer);
+        } catch (AccountConcurrentModificationException | AccountLockTimeoutException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    private String randomAccount() {
+        if ("ZIPFIAN".equals(distribution)) {
+            return accountIds[zipfian.next()];
+        }
+        return accountIds[ThreadLocalRandom.current().nextInt(accounts)];
+    }
+}
@@ -0,0 +1,76 @@
+package com.revolut.moneytransfer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.model.Account;
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.codec.MediaTypeCodec;
+import io.micronaut.http.codec.MediaTypeCodecRegistry;
+import io.micronaut.jackson.codec.JsonMediaTypeCodec;
+import io.micronaut.runtime.ApplicationConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Jackson codec with the application codec using generated encoder on response encoding of
+ * {@link Account}, called as the server calls it: encode into a buffer of the channel allocator, which is
+ * released once written. Request bodies are bound by the server through Jackson in both cases, so they are not
+ * measured. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonCodecBenchmark {
+
+    private ApplicationContext context;
+    private MediaTypeCodec jacksonCodec;
+    private MediaTypeCodec generatedCodec;
+    private NettyByteBufferFactory bufferFactory;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // codecs configured as in the application, no server is started
+        context = ApplicationContext.run();
+        generatedCodec = context.getBean(MediaTypeCodecRegistry.class)
+                .findCodec(MediaType.APPLICATION_JSON_TYPE)
+                .orElseThrow(() -> new IllegalStateException("No JSON codec"));
+        jacksonCodec = new JsonMediaTypeCodec(context.getBean(ObjectMapper.class),
+                context.getBean(ApplicationConfiguration.class), null);
+        bufferFactory = new NettyByteBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+        account = Account.builder()
+                .id("3f2c5d4e-8a1b-4c6d-9e0f-1a2b3c4d5e6f")
+                .name("benchmark account")
+                .balance(1_234_567_890L)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int encodeAccount_jackson() {
+        return encode(jacksonCodec);
+    }
+
+    @Benchmark
+    public int encodeAccount_generated() {
+        return encode(generatedCodec);
+    }
+
+    private int encode(final MediaTypeCodec codec) {
+        final ByteBuffer<?> buffer = codec.encode(account, bufferFactory);
+        final ByteBuf nativeBuffer = (ByteBuf) buffer.asNativeBuffer();
+        final int length = nativeBuffer.readableBytes();
+        nativeBuffer.release();
+        return length;
+    }
+}
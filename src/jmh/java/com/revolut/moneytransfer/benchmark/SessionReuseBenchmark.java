@@ -0,0 +1,87 @@
+package com.revolut.moneytransfer.benchmark;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.ApplicationContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-operation overhead of {@link AccountService} with SIMPLE, REUSE and BATCH executors,
+ * with and without statement cache of H2 connections
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionReuseBenchmark {
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"SIMPLE", "REUSE", "BATCH"})
+    public String executorType;
+
+    @Param({"0", "64"})
+    public int queryCacheSize;
+
+    private ApplicationContext context;
+    private AccountService accountService;
+    private String[] accountIds;
+    private Transfer transfer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("mybatis.executor-type", executorType);
+        properties.put("datasources.default.url", "jdbc:h2:mem:session-reuse;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000;" +
+                "QUERY_CACHE_SIZE=" + queryCacheSize);
+        properties.put("invariants.enabled", false);
+        properties.put("outbox.enabled", false);
+        context = ApplicationContext.run(properties);
+        accountService = context.getBean(AccountService.class);
+
+        transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final Deposit initial = new Deposit();
+        initial.setAmount(1_000_000_000L);
+        initial.setCurrency("USD");
+
+        accountIds = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = accountService.createAccount(Account.builder()
+                    .name("benchmark-" + i)
+                    .build()).getId();
+            accountService.createDepositOperation(accountIds[i], initial);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Account getAccount() {
+        return accountService.getAccountById(randomAccount()).orElse(null);
+    }
+
+    @Benchmark
+    public void transfer() {
+        final String source = randomAccount();
+        String target = randomAccount();
+        while (target.equals(source)) {
+            target = randomAccount();
+        }
+        accountService.createTransferOperation(source, target, transfer);
+    }
+
+    private String randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+    }
+}
@@ -0,0 +1,232 @@
+package com.revolut.moneytransfer.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.load.LoadSettings.Operation;
+import com.revolut.moneytransfer.workload.ZipfianGenerator;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for account API.
+ * Starts embedded server, creates accounts and sends requests with constant rate regardless of
+ * response time. Latency is measured from the intended send time, so stalls of the server are not
+ * hidden by the generator waiting for them (coordinated omission). At the end checks that the sum of
+ * balances equals initial balances plus successful deposits minus successful withdrawals.
+ * <p>
+ * Run with {@code ./gradlew loadTest -Dload.rate=1000 -Dload.duration=60}
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadSettings settings;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+    private final AtomicLong deposited = new AtomicLong();
+    private final AtomicLong withdrawn = new AtomicLong();
+
+    private final Operation[] operationWheel;
+    private String[] accountIds;
+    private ZipfianGenerator zipfian;
+
+    public LoadGenerator(final LoadSettings settings, final String baseUrl) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_LATENCY_NANOS, 3));
+        }
+        final List<Operation> wheel = new ArrayList<>();
+        settings.getMix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        if (wheel.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix is empty");
+        }
+        this.operationWheel = wheel.toArray(new Operation[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        final LoadSettings settings = LoadSettings.fromSystemProperties();
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.server.port", -1);
+        properties.put("rate-limit.enabled", false);
+        properties.put("velocity.enabled", false);
+
+        boolean conserved;
+        try (EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, properties)) {
+            final LoadGenerator generator = new LoadGenerator(settings, server.getURL() + "/account");
+            generator.createAccounts();
+            generator.run();
+            generator.printReport();
+            conserved = generator.verifyConservation();
+        }
+        System.exit(conserved ? 0 : 1);
+    }
+
+    void createAccounts() throws IOException, InterruptedException {
+        accountIds = new String[settings.getAccounts()];
+        for (int i = 0; i < accountIds.length; i++) {
+            final HttpResponse<String> response = client.send(
+                    post(baseUrl, "{\"name\":\"load-" + i + "\",\"currency\":\"USD\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+            accountIds[i] = objectMapper.readTree(response.body()).get("id").asText();
+            client.send(post(baseUrl + "/" + accountIds[i] + "/deposit", amountBody(settings.getInitialBalance())),
+                    HttpResponse.BodyHandlers.discarding());
+        }
+        zipfian = new ZipfianGenerator(accountIds.length, 0.99);
+        System.out.printf("Created %d accounts%n", accountIds.length);
+    }
+
+    void run() {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        final long total = (long) settings.getRate() * settings.getDurationSeconds();
+        final List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        final long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            final long intendedStart = start + i * intervalNanos;
+            long delay;
+            while ((delay = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            inFlight.add(send(intendedStart));
+            if (inFlight.size() >= 10_000) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0])).join();
+        final double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Sent %d requests in %.1fs (%.0f req/s)%n", total, elapsed, total / elapsed);
+    }
+
+    private CompletableFuture<?> send(final long intendedStart) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Operation operation = operationWheel[random.nextInt(operationWheel.length)];
+        final String accountId = randomAccount();
+        final long amount = 1 + random.nextInt(100);
+
+        final HttpRequest request;
+        switch (operation) {
+            case READ:
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + accountId)).GET().build();
+                break;
+            case DEPOSIT:
+                request = post(baseUrl + "/" + accountId + "/deposit", amountBody(amount));
+                break;
+            case WITHDRAW:
+                request = post(baseUrl + "/" + accountId + "/withdraw", amountBody(amount));
+                break;
+            default:
+                String targetId = randomAccount();
+                while (accountIds.length > 1 && targetId.equals(accountId)) {
+                    targetId = randomAccount();
+                }
+                request = post(baseUrl + "/" + accountId + "/transfer/" + targetId, amountBody(amount));
+        }
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latencies.get(operation).recordValue(
+                            Math.min(System.nanoTime() - intendedStart, HIGHEST_LATENCY_NANOS));
+                    final String outcome = error != null ? "error" : String.valueOf(response.statusCode());
+                    outcomes.computeIfAbsent(operation + " " + outcome, key -> new AtomicLong()).incrementAndGet();
+                    if (error == null && response.statusCode() == 200) {
+                        if (operation == Operation.DEPOSIT) {
+                            deposited.addAndGet(amount);
+                        } else if (operation == Operation.WITHDRAW) {
+                            withdrawn.addAndGet(amount);
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    void printReport() {
+        System.out.println("Latency from intended start, ms:");
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "p50", "p90", "p99", "p99.9", "max");
+        latencies.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() == 0) {
+                return;
+            }
+            System.out.printf("%-10s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    operation, histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        });
+        System.out.println("Responses:");
+        outcomes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> System.out.printf("  %-20s %d%n", entry.getKey(), entry.getValue().get()));
+    }
+
+    boolean verifyConservation() throws IOException, InterruptedException {
+        long actual = 0;
+        for (String accountId : accountIds) {
+            final HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/" + accountId)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            final JsonNode account = objectMapper.readTree(response.body());
+            actual += account.get("balance").asLong();
+        }
+        final long expected = settings.getInitialBalance() * accountIds.length + deposited.get() - withdrawn.get();
+        final boolean conserved = expected == actual;
+        System.out.printf("Total balance: expected %d, actual %d - %s%n",
+                expected, actual, conserved ? "conserved" : "VIOLATED");
+        return conserved;
+    }
+
+    private String randomAccount() {
+        if (settings.isZipfian()) {
+            return accountIds[zipfian.next()];
+        }
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+
+    private static HttpRequest post(final String url, final String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String amountBody(final long amount) {
+        return "{\"amount\":" + amount + ",\"currency\":\"USD\"}";
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1e6;
+    }
+}
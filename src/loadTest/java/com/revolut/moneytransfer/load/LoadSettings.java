@@ -0,0 +1,46 @@
+package com.revolut.moneytransfer.load;
+
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from load.* system properties
+ */
+@Value
+public class LoadSettings {
+    public enum Operation { READ, DEPOSIT, WITHDRAW, TRANSFER }
+
+    int accounts;
+    long initialBalance;
+    int rate;
+    int durationSeconds;
+    boolean zipfian;
+    Map<Operation, Integer> mix;
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("load.accounts", 1000),
+                Long.getLong("load.initialBalance", 1_000_000L),
+                Integer.getInteger("load.rate", 500),
+                Integer.getInteger("load.duration", 30),
+                "zipfian".equalsIgnoreCase(System.getProperty("load.distribution", "uniform")),
+                parseMix(System.getProperty("load.mix", "read=40,deposit=20,withdraw=20,transfer=20")));
+    }
+
+    /**
+     * @param mix comma separated weights of operations, e.g. read=40,transfer=60
+     */
+    static Map<Operation, Integer> parseMix(final String mix) {
+        final Map<Operation, Integer> result = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + entry);
+            }
+            result.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return result;
+    }
+}
@@ -1,9 +1,11 @@
 package com.revolut.moneytransfer;
 
+import com.revolut.moneytransfer.startup.StartupTimings;
 import io.micronaut.runtime.Micronaut;
 
 public class Application {
     public static void main(String[] args) {
+        StartupTimings.markMainStarted();
         Micronaut.run(Application.class);
     }
 }
\ No newline at end of file
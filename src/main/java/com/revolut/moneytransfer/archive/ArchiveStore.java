@@ -0,0 +1,130 @@
+package com.revolut.moneytransfer.archive;
+
+import com.revolut.moneytransfer.config.ArchiveConfiguration;
+import com.revolut.moneytransfer.model.BalanceChange;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Archived operations in segment files of archive.directory, each segment holds a contiguous range of
+ * operation ids. Segments are opened on start, queries skip segments by their account filter and time bounds.
+ */
+@Singleton
+public class ArchiveStore {
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    // ordered by first operation id
+    private final List<SegmentFile> segments = new CopyOnWriteArrayList<>();
+
+    public ArchiveStore(final ArchiveConfiguration configuration) throws IOException {
+        directory = Paths.get(configuration.getDirectory());
+        if (Files.isDirectory(directory)) {
+            final List<SegmentFile> opened = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    opened.add(SegmentFile.open(file));
+                }
+            }
+            opened.sort(Comparator.comparingLong(SegmentFile::getFirstId));
+            segments.addAll(opened);
+        }
+    }
+
+    /**
+     * Write operations into a new segment
+     * @param rows operations with ids greater than {@link #getLastArchivedId()}, not empty
+     */
+    public synchronized void append(final List<BalanceChange> rows) throws IOException {
+        Files.createDirectories(directory);
+        final long firstId = rows.stream().mapToLong(BalanceChange::getId).min().getAsLong();
+        final long lastId = rows.stream().mapToLong(BalanceChange::getId).max().getAsLong();
+        if (firstId <= getLastArchivedId()) {
+            throw new IllegalArgumentException("Operation " + firstId + " is already archived");
+        }
+        final Path file = directory.resolve(String.format("operations-%019d-%019d%s", firstId, lastId, SEGMENT_SUFFIX));
+        segments.add(SegmentFile.write(file, new ArrayList<>(rows)));
+    }
+
+    /**
+     * @return the greatest archived operation id, 0 if archive is empty
+     */
+    public long getLastArchivedId() {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getLastId();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getArchivedOperations() {
+        return segments.stream().mapToLong(SegmentFile::getRowCount).sum();
+    }
+
+    /**
+     * @return the latest archived operation of account created at or before the time
+     */
+    public Optional<BalanceChange> findLatest(final String accountId, final Instant at) {
+        final UUID account = parseId(accountId);
+        if (account == null) {
+            return Optional.empty();
+        }
+        // newest segments first, once found only segments with operations as late are left to check,
+        // which are none unless creation times of neighbouring segments overlap
+        BalanceChange latest = null;
+        final ListIterator<SegmentFile> iterator = segments.listIterator(segments.size());
+        while (iterator.hasPrevious()) {
+            final SegmentFile segment = iterator.previous();
+            if (segment.mayContain(account, latest == null ? Instant.MIN : latest.getCreatedAt(), at)) {
+                final BalanceChange candidate = segment.findLatest(account, at);
+                if (candidate != null && (latest == null || isLater(candidate, latest))) {
+                    latest = candidate;
+                }
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * Pass archived operations of account created within [from, to) to consumer, segment by segment
+     */
+    public void forEach(final String accountId, final Instant from, final Instant to,
+                        final Consumer<BalanceChange> consumer) {
+        final UUID account = parseId(accountId);
+        if (account == null) {
+            return;
+        }
+        for (SegmentFile segment : segments) {
+            if (segment.mayContain(account, from, to)) {
+                segment.forEach(account, from, to, consumer);
+            }
+        }
+    }
+
+    private static boolean isLater(final BalanceChange change, final BalanceChange other) {
+        final int byTime = change.getCreatedAt().compareTo(other.getCreatedAt());
+        return byTime > 0 || byTime == 0 && change.getId() > other.getId();
+    }
+
+    private static UUID parseId(final String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.revolut.moneytransfer.archive;
+
+import com.revolut.moneytransfer.config.ArchiveConfiguration;
+import com.revolut.moneytransfer.config.OutboxConfiguration;
+import com.revolut.moneytransfer.config.ReplicationConfiguration;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.database.OperationMapper;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.replication.ReplicationLeader;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves operations older than archive.older-than from ACCOUNT_OPERATION into segment files.
+ * <p>
+ * Operations are archived in id order and only after outbox relay has delivered them and, on replication leader,
+ * every follower it has ever streamed to has acknowledged them. A segment is
+ * written and forced to disk before its rows are deleted, so a crash in between leaves the rows in both
+ * places; they are deleted on the next run and readers skip duplicates by id. Requires mybatis repository backend.
+ */
+@Singleton
+@Requires(property = "repository.backend", value = "mybatis", defaultValue = "mybatis")
+@RequiredArgsConstructor
+public class OperationArchiver {
+    private static final Logger LOG = LoggerFactory.getLogger(OperationArchiver.class);
+    // same consumer name as outbox relay
+    private static final String RELAY_NAME = "outbox";
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ArchiveStore archiveStore;
+    private final ArchiveConfiguration configuration;
+    private final OutboxConfiguration outboxConfiguration;
+    private final ReplicationConfiguration replicationConfiguration;
+    private final OperationLog operationLog;
+
+    @Scheduled(fixedDelay = "${archive.interval:1h}")
+    public void scheduledRun() {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        try {
+            run();
+        } catch (IOException e) {
+            LOG.warn("Failed to archive operations, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archive all operations that are old enough and delivered
+     * @return number of archived operations
+     */
+    public synchronized long run() throws IOException {
+        long archived = 0;
+        long lastArchivedId = archiveStore.getLastArchivedId();
+        // rows left by a run interrupted after its segment was written
+        deleteRange(0, lastArchivedId);
+
+        final long upToId = archivableUpToId();
+        while (lastArchivedId < upToId) {
+            final List<BalanceChange> rows;
+            try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+                rows = sqlSession.getMapper(OperationMapper.class)
+                        .findRange(lastArchivedId, upToId, configuration.getSegmentSize());
+            }
+            if (rows.isEmpty()) {
+                break;
+            }
+            final long segmentLastId = rows.get(rows.size() - 1).getId();
+            archiveStore.append(rows);
+            deleteRange(lastArchivedId, segmentLastId);
+            archived += rows.size();
+            lastArchivedId = segmentLastId;
+        }
+        if (archived > 0) {
+            LOG.info("Archived {} operations up to id {}", archived, lastArchivedId);
+        }
+        return archived;
+    }
+
+    /**
+     * @return greatest id that is older than threshold, delivered by outbox relay and acknowledged by followers
+     */
+    private long archivableUpToId() {
+        final Long oldEnough;
+        final Long replicated;
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final OperationMapper mapper = sqlSession.getMapper(OperationMapper.class);
+            oldEnough = mapper.findLastIdBefore(Instant.now().minus(configuration.getOlderThan()));
+            replicated = mapper.findMinCursor(ReplicationLeader.CURSOR_PREFIX);
+        }
+        if (oldEnough == null) {
+            return 0;
+        }
+        long upToId = outboxConfiguration.isEnabled()
+                ? Math.min(oldEnough, operationLog.loadCursor(RELAY_NAME)) : oldEnough;
+        if (replicationConfiguration.getRole() == ReplicationConfiguration.Role.LEADER) {
+            // leader streams from its log only, an archived operation would never reach a follower behind it,
+            // disconnected followers keep their cursors
+            upToId = replicated == null ? 0 : Math.min(upToId, replicated);
+        }
+        return upToId;
+    }
+
+    private void deleteRange(final long afterId, final long upToId) {
+        if (upToId <= afterId) {
+            return;
+        }
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(false)) {
+            sqlSession.getMapper(OperationMapper.class).deleteRange(afterId, upToId);
+            sqlSession.commit();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.revolut.moneytransfer.archive;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable file of archived operations.
+ * <p>
+ * Rows are sorted by account id (in {@link UUID#compareTo} order), creation time and operation id, and stored
+ * column by column, each column compressed separately. Header holds operation id range, min/max account id,
+ * min/max creation time and a bloom filter of account ids, so that segments are skipped without decoding.
+ * File is memory-mapped, account and time columns are decoded on first query, the other columns once a row
+ * is read, and kept while memory allows.
+ */
+final class SegmentFile {
+    private static final int MAGIC = 0x4d545347;
+    private static final int FORMAT_VERSION = 2;
+    // the first format version with account filter
+    private static final int FILTER_FORMAT_VERSION = 2;
+    // about 1% false positives
+    private static final int FILTER_BITS_PER_ACCOUNT = 10;
+    private static final int FILTER_PROBES = 7;
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    // account id bits, creation time, operation id, type, amount, balance, version
+    private static final int ACCOUNT_MSB = 0;
+    private static final int ACCOUNT_LSB = 1;
+    private static final int CREATED_SECONDS = 2;
+    private static final int CREATED_NANOS = 3;
+    private static final int ID = 4;
+    private static final int TYPE = 5;
+    private static final int AMOUNT = 6;
+    private static final int BALANCE = 7;
+    private static final int VERSION = 8;
+    private static final int COLUMNS = 9;
+
+    // magic, format version, row count, first and last id, min and max account, min and max created seconds,
+    // account filter length in longs, which follows the directory
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + 2 * Long.BYTES + 4 * Long.BYTES + 2 * Long.BYTES
+            + Integer.BYTES;
+    // offset, compressed and raw length of each column
+    private static final int DIRECTORY_SIZE = COLUMNS * (Long.BYTES + 2 * Integer.BYTES);
+
+    static final Comparator<BalanceChange> ROW_ORDER = Comparator
+            .comparing((BalanceChange change) -> UUID.fromString(change.getAccountId()))
+            .thenComparing(BalanceChange::getCreatedAt)
+            .thenComparingLong(BalanceChange::getId);
+
+    @Getter
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    @Getter
+    private final int rowCount;
+    @Getter
+    private final long firstId;
+    @Getter
+    private final long lastId;
+    private final UUID minAccount;
+    private final UUID maxAccount;
+    private final long minCreatedSecond;
+    private final long maxCreatedSecond;
+    // empty for segments written without filter
+    private final long[] accountFilter;
+    private final long[] columnOffsets = new long[COLUMNS];
+    private final int[] compressedLengths = new int[COLUMNS];
+    private final int[] rawLengths = new int[COLUMNS];
+
+    private volatile SoftReference<Columns> columns = new SoftReference<>(null);
+
+    private SegmentFile(final Path path, final MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        final ByteBuffer header = buffer.duplicate();
+        final int magic = header.getInt();
+        final int version = header.getInt();
+        if (magic != MAGIC || version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        rowCount = header.getInt();
+        firstId = header.getLong();
+        lastId = header.getLong();
+        minAccount = new UUID(header.getLong(), header.getLong());
+        maxAccount = new UUID(header.getLong(), header.getLong());
+        minCreatedSecond = header.getLong();
+        maxCreatedSecond = header.getLong();
+        accountFilter = new long[version >= FILTER_FORMAT_VERSION ? header.getInt() : 0];
+        for (int i = 0; i < COLUMNS; i++) {
+            columnOffsets[i] = header.getLong();
+            compressedLengths[i] = header.getInt();
+            rawLengths[i] = header.getInt();
+        }
+        header.asLongBuffer().get(accountFilter);
+    }
+
+    /**
+     * Map segment file into memory and read its header
+     */
+    static SegmentFile open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // mapping stays valid after channel is closed
+            return new SegmentFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write rows into a new segment file atomically: written to temporary file, forced to disk, then renamed
+     * @param rows operations ordered by id, not empty
+     */
+    static SegmentFile write(final Path path, final List<BalanceChange> rows) throws IOException {
+        rows.sort(ROW_ORDER);
+        final int count = rows.size();
+        final ByteBuffer[] raw = new ByteBuffer[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            raw[column] = ByteBuffer.allocate(count * (column == TYPE ? Byte.BYTES
+                    : column == CREATED_NANOS ? Integer.BYTES : Long.BYTES));
+        }
+        long firstId = Long.MAX_VALUE;
+        long lastId = Long.MIN_VALUE;
+        long minSecond = Long.MAX_VALUE;
+        long maxSecond = Long.MIN_VALUE;
+        final List<UUID> accounts = new ArrayList<>();
+        for (BalanceChange row : rows) {
+            final UUID account = UUID.fromString(row.getAccountId());
+            if (accounts.isEmpty() || !accounts.get(accounts.size() - 1).equals(account)) {
+                accounts.add(account);
+            }
+            raw[ACCOUNT_MSB].putLong(account.getMostSignificantBits());
+            raw[ACCOUNT_LSB].putLong(account.getLeastSignificantBits());
+            raw[CREATED_SECONDS].putLong(row.getCreatedAt().getEpochSecond());
+            raw[CREATED_NANOS].putInt(row.getCreatedAt().getNano());
+            raw[ID].putLong(row.getId());
+            raw[TYPE].put((byte) row.getType().ordinal());
+            raw[AMOUNT].putLong(row.getAmount());
+            raw[BALANCE].putLong(row.getBalance());
+            raw[VERSION].putLong(row.getVersion());
+            firstId = Math.min(firstId, row.getId());
+            lastId = Math.max(lastId, row.getId());
+            minSecond = Math.min(minSecond, row.getCreatedAt().getEpochSecond());
+            maxSecond = Math.max(maxSecond, row.getCreatedAt().getEpochSecond());
+        }
+
+        final long[] accountFilter = new long[(accounts.size() * FILTER_BITS_PER_ACCOUNT + Long.SIZE - 1) / Long.SIZE];
+        for (UUID account : accounts) {
+            probeFilter(accountFilter, account, true);
+        }
+
+        final byte[][] compressed = new byte[COLUMNS][];
+        for (int column = 0; column < COLUMNS; column++) {
+            compressed[column] = deflate(raw[column].array());
+        }
+
+        final int filterSize = accountFilter.length * Long.BYTES;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + DIRECTORY_SIZE + filterSize);
+        final UUID minAccount = UUID.fromString(rows.get(0).getAccountId());
+        final UUID maxAccount = UUID.fromString(rows.get(count - 1).getAccountId());
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count)
+                .putLong(firstId).putLong(lastId)
+                .putLong(minAccount.getMostSignificantBits()).putLong(minAccount.getLeastSignificantBits())
+                .putLong(maxAccount.getMostSignificantBits()).putLong(maxAccount.getLeastSignificantBits())
+                .putLong(minSecond).putLong(maxSecond)
+                .putInt(accountFilter.length);
+        long offset = HEADER_SIZE + DIRECTORY_SIZE + filterSize;
+        for (int column = 0; column < COLUMNS; column++) {
+            header.putLong(offset).putInt(compressed[column].length).putInt(raw[column].capacity());
+            offset += compressed[column].length;
+        }
+        for (long word : accountFilter) {
+            header.putLong(word);
+        }
+        header.flip();
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            for (byte[] column : compressed) {
+                writeFully(channel, ByteBuffer.wrap(column));
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * @return false if segment has no rows of account within the time range
+     */
+    boolean mayContain(final UUID account, final Instant from, final Instant to) {
+        return account.compareTo(minAccount) >= 0 && account.compareTo(maxAccount) <= 0
+                && to.getEpochSecond() >= minCreatedSecond && from.getEpochSecond() <= maxCreatedSecond
+                && (accountFilter.length == 0 || probeFilter(accountFilter, account, false));
+    }
+
+    /**
+     * @return the latest operation of account created at or before the time, null if there is none
+     */
+    BalanceChange findLatest(final UUID account, final Instant at) {
+        final Columns data = columns();
+        final int start = data.accountStart(account);
+        // rows of account are ordered by time, the last one not after the time
+        int low = start;
+        int high = data.accountEnd(account);
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (data.createdAt(middle).isAfter(at)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low > start ? data.row(account, low - 1) : null;
+    }
+
+    /**
+     * Pass operations of account created within [from, to) to consumer in time order
+     */
+    void forEach(final UUID account, final Instant from, final Instant to, final Consumer<BalanceChange> consumer) {
+        final Columns data = columns();
+        final int end = data.accountEnd(account);
+        for (int row = data.accountStart(account); row < end; row++) {
+            final Instant createdAt = data.createdAt(row);
+            if (!createdAt.isBefore(to)) {
+                return;
+            }
+            if (!createdAt.isBefore(from)) {
+                consumer.accept(data.row(account, row));
+            }
+        }
+    }
+
+    /**
+     * Set bits of account in bloom filter, or check them
+     * @return true if all bits of account were set before
+     */
+    private static boolean probeFilter(final long[] filter, final UUID account, final boolean add) {
+        final long bits = (long) filter.length * Long.SIZE;
+        long hash = mix(account.getMostSignificantBits() ^ mix(account.getLeastSignificantBits()));
+        // double hashing, odd step
+        final long step = mix(hash) | 1;
+        boolean found = true;
+        for (int probe = 0; probe < FILTER_PROBES; probe++, hash += step) {
+            final long bit = Long.remainderUnsigned(hash, bits);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            found &= (filter[word] & mask) != 0;
+            if (add) {
+                filter[word] |= mask;
+            } else if (!found) {
+                return false;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, version bits of random UUIDs are spread over all bits
+     */
+    private static long mix(final long value) {
+        long hash = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private Columns columns() {
+        Columns data = columns.get();
+        if (data == null) {
+            data = new Columns();
+            columns = new SoftReference<>(data);
+        }
+        return data;
+    }
+
+    private ByteBuffer inflate(final int column) {
+        final byte[] input = new byte[compressedLengths[column]];
+        final ByteBuffer source = buffer.duplicate();
+        source.position((int) columnOffsets[column]);
+        source.get(input);
+        final byte[] output = new byte[rawLengths[column]];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            int length = 0;
+            while (length < output.length && !inflater.finished()) {
+                length += inflater.inflate(output, length, output.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted segment file: " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(output);
+    }
+
+    private static byte[] deflate(final byte[] input) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            final byte[] chunk = new byte[64 * 1024];
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 64);
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private long[] longs(final int column) {
+        final long[] values = new long[rawLengths[column] / Long.BYTES];
+        inflate(column).asLongBuffer().get(values);
+        return values;
+    }
+
+    private int[] ints(final int column) {
+        final int[] values = new int[rawLengths[column] / Integer.BYTES];
+        inflate(column).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Decoded columns of the segment: account and time columns, which narrow queries down to rows
+     */
+    private class Columns {
+        private final long[] accountMsb = longs(ACCOUNT_MSB);
+        private final long[] accountLsb = longs(ACCOUNT_LSB);
+        private final long[] createdSeconds = longs(CREATED_SECONDS);
+        private final int[] createdNanos = ints(CREATED_NANOS);
+
+        private volatile Values values;
+
+        /**
+         * @return index of the first row of account or of the first greater account
+         */
+        int accountStart(final UUID account) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (compareAccount(middle, account) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return index after the last row of account
+         */
+        int accountEnd(final UUID account) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (compareAccount(middle, account) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        Instant createdAt(final int row) {
+            return Instant.ofEpochSecond(createdSeconds[row], createdNanos[row]);
+        }
+
+        BalanceChange row(final UUID account, final int row) {
+            Values data = values;
+            if (data == null) {
+                data = new Values();
+                values = data;
+            }
+            return BalanceChange.builder()
+                    .id(data.ids[row])
+                    .accountId(account.toString())
+                    .type(OPERATION_TYPES[data.types[row]])
+                    .amount(data.amounts[row])
+                    .balance(data.balances[row])
+                    .version(data.versions[row])
+                    .createdAt(createdAt(row))
+                    .build();
+        }
+
+        private int compareAccount(final int row, final UUID account) {
+            // signed comparison of most then least significant bits, as UUID.compareTo
+            final int result = Long.compare(accountMsb[row], account.getMostSignificantBits());
+            return result != 0 ? result : Long.compare(accountLsb[row], account.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Decoded columns of the segment read only for the rows found
+     */
+    private class Values {
+        private final long[] ids = longs(ID);
+        private final byte[] types = inflate(TYPE).array();
+        private final long[] amounts = longs(AMOUNT);
+        private final long[] balances = longs(BALANCE);
+        private final long[] versions = longs(VERSION);
+    }
+}
@@ -0,0 +1,155 @@
+package com.revolut.moneytransfer.concurrencylimit;
+
+import com.revolut.moneytransfer.config.ConcurrencyLimitConfiguration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limit of in-flight requests adjusted to their latency.
+ * <p>
+ * Latency is averaged over short windows and compared with baseline, a slow moving average of window latencies.
+ * While latency stays within tolerance of baseline the limit grows by its square root per window, when latency
+ * rises the limit shrinks in proportion (gradient), at most by half. Window with overload responses shrinks
+ * the limit by backoff ratio at once. Windows where less than half of the limit was used don't raise it.
+ * Acquiring is one CAS, window bookkeeping on release is synchronized.
+ */
+public class AdaptiveLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final int baselineWindows;
+    private final double latencyTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+    private volatile int limit;
+    private volatile long latencyNanos;
+    private volatile long baselineNanos;
+
+    // current window, guarded by this
+    private double estimatedLimit;
+    private double baseline;
+    private long windowStartNanos;
+    private int windowSamples;
+    private long windowLatencySum;
+    private int windowMaxInFlight;
+    private boolean windowOverloaded;
+
+    public AdaptiveLimit(final ConcurrencyLimitConfiguration configuration) {
+        this(configuration, System.nanoTime());
+    }
+
+    AdaptiveLimit(final ConcurrencyLimitConfiguration configuration, final long nowNanos) {
+        if (configuration.getMinLimit() <= 0 || configuration.getMinLimit() > configuration.getMaxLimit()) {
+            throw new IllegalArgumentException("Limit bounds must be positive and min must not exceed max");
+        }
+        minLimit = configuration.getMinLimit();
+        maxLimit = configuration.getMaxLimit();
+        windowNanos = configuration.getWindow().toNanos();
+        minWindowSamples = configuration.getMinWindowSamples();
+        baselineWindows = Math.max(1, configuration.getBaselineWindows());
+        latencyTolerance = configuration.getLatencyTolerance();
+        smoothing = configuration.getSmoothing();
+        backoffRatio = configuration.getBackoffRatio();
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, configuration.getInitialLimit()));
+        limit = (int) estimatedLimit;
+        windowStartNanos = nowNanos;
+    }
+
+    /**
+     * Take a slot for request
+     * @return true if request is allowed, it must be followed by {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return the slot of completed request
+     * @param latencyNanos time since slot was taken
+     * @param overloaded true if request failed due to overload (lock timeout, conflict)
+     */
+    public void release(final long latencyNanos, final boolean overloaded) {
+        release(latencyNanos, overloaded, System.nanoTime());
+    }
+
+    void release(final long latencyNanos, final boolean overloaded, final long nowNanos) {
+        final int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowSamples++;
+            windowLatencySum += latencyNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            windowOverloaded |= overloaded;
+            if (nowNanos - windowStartNanos >= windowNanos && (windowSamples >= minWindowSamples || windowOverloaded)) {
+                closeWindow(nowNanos);
+            }
+        }
+    }
+
+    private void closeWindow(final long nowNanos) {
+        final double latency = (double) windowLatencySum / windowSamples;
+        if (baseline == 0) {
+            baseline = latency;
+        } else {
+            baseline += (latency - baseline) / baselineWindows;
+            // latency dropped well below baseline, e.g. after a slow period, let baseline catch up faster
+            if (baseline > 2 * latency) {
+                baseline *= 0.95;
+            }
+        }
+
+        if (windowOverloaded) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+        } else if (windowMaxInFlight >= estimatedLimit / 2) {
+            final double gradient = Math.max(0.5, Math.min(1.0, latencyTolerance * baseline / latency));
+            final double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                    estimatedLimit * (1 - smoothing) + target * smoothing));
+        }
+        limit = (int) estimatedLimit;
+        this.latencyNanos = (long) latency;
+        baselineNanos = (long) baseline;
+
+        windowStartNanos = nowNanos;
+        windowSamples = 0;
+        windowLatencySum = 0;
+        windowMaxInFlight = 0;
+        windowOverloaded = false;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return average latency of the last window
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public long getBaselineNanos() {
+        return baselineNanos;
+    }
+}
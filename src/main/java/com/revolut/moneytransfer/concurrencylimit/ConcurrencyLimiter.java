@@ -0,0 +1,32 @@
+package com.revolut.moneytransfer.concurrencylimit;
+
+import com.revolut.moneytransfer.config.ConcurrencyLimitConfiguration;
+import lombok.Getter;
+
+import javax.inject.Singleton;
+
+/**
+ * Bulkheads of account API: reads and writes have separate adaptive limits, so reads keep being served
+ * while writes wait for row locks and connections
+ */
+@Singleton
+@Getter
+public class ConcurrencyLimiter {
+    private final AdaptiveLimit reads;
+    private final AdaptiveLimit writes;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimiter(final ConcurrencyLimitConfiguration configuration) {
+        reads = new AdaptiveLimit(configuration);
+        writes = new AdaptiveLimit(configuration);
+        retryAfterSeconds = Math.max(1, (configuration.getRetryAfter().toMillis() + 999) / 1000);
+    }
+
+    /**
+     * @param write true for requests changing data
+     * @return limit of the bulkhead of request
+     */
+    public AdaptiveLimit bulkhead(final boolean write) {
+        return write ? writes : reads;
+    }
+}
@@ -0,0 +1,57 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Concurrency control settings for balance operations
+ */
+@Data
+@ConfigurationProperties("account.concurrency")
+public class AccountConcurrencyConfiguration {
+
+    public enum Strategy {
+        /**
+         * Read account without locks and update it with compare-and-set on version column
+         */
+        OPTIMISTIC,
+        /**
+         * Lock account rows with SELECT ... FOR UPDATE before update
+         */
+        PESSIMISTIC,
+        /**
+         * Run operations of each account sequentially in its mailbox, transfer is debit of source
+         * followed by credit of target, debit is refunded if credit fails
+         */
+        ACTOR
+    }
+
+    private Strategy strategy = Strategy.OPTIMISTIC;
+
+    /**
+     * Max number of attempts for operation failed due to concurrent modification
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Backoff before the second attempt, doubled on each next attempt
+     */
+    private Duration initialBackoff = Duration.ofMillis(1);
+
+    /**
+     * Upper bound of backoff between attempts
+     */
+    private Duration maxBackoff = Duration.ofMillis(50);
+
+    /**
+     * Threads running account mailboxes of actor strategy, 0 for the number of processors
+     */
+    private int mailboxParallelism = 0;
+
+    /**
+     * Mailbox of account without operations for this time is dropped
+     */
+    private Duration mailboxIdleTimeout = Duration.ofMinutes(1);
+}
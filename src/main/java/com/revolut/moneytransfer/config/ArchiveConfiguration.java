@@ -0,0 +1,39 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Settings of operation log archival into segment files
+ */
+@Data
+@ConfigurationProperties("archive")
+public class ArchiveConfiguration {
+
+    /**
+     * Move old operations out of database on schedule of archive.interval, archived segments are read regardless
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of segment files
+     */
+    private String directory = "archive";
+
+    /**
+     * Delay between archival runs
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Operations older than this are archived, once delivered by outbox relay
+     */
+    private Duration olderThan = Duration.ofDays(90);
+
+    /**
+     * Max number of operations in one segment file
+     */
+    private int segmentSize = 100_000;
+}
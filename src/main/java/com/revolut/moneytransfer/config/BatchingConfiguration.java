@@ -0,0 +1,26 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Settings of combining concurrent balance operations into one database transaction
+ */
+@Data
+@ConfigurationProperties("account.batching")
+public class BatchingConfiguration {
+    private boolean enabled = false;
+
+    /**
+     * Max number of operations committed at once
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * Max wait for more operations before the batch is executed, the actual wait grows with the size
+     * of previous batch, so there is no wait when operations do not overlap
+     */
+    private Duration maxLinger = Duration.ofNanos(200_000);
+}
@@ -0,0 +1,53 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Adaptive limits of in-flight account API requests, separate for reads and writes
+ */
+@Data
+@ConfigurationProperties("concurrency-limit")
+public class ConcurrencyLimitConfiguration {
+    private boolean enabled = true;
+
+    /**
+     * Limit of each bulkhead at start and its bounds
+     */
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+
+    /**
+     * Latency samples are averaged over window of this length, but of at least min-window-samples requests
+     */
+    private Duration window = Duration.ofMillis(100);
+    private int minWindowSamples = 10;
+
+    /**
+     * Baseline latency is average of this many last windows
+     */
+    private int baselineWindows = 600;
+
+    /**
+     * Latency up to this multiple of baseline doesn't reduce the limit
+     */
+    private double latencyTolerance = 1.5;
+
+    /**
+     * Weight of new limit estimate, the rest is the previous limit
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Limit is multiplied by this ratio after window with overload responses (409, 5xx)
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Retry-After of rejected requests
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,47 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.convert.format.ReadableBytes;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Bounds of Java Flight Recorder recordings started on /flightrecorder endpoint
+ */
+@Data
+@ConfigurationProperties("flight-recorder")
+public class FlightRecorderConfiguration {
+
+    /**
+     * Start recording with the application, continuous profiling within the bounds below
+     */
+    private boolean startOnStartup = false;
+
+    /**
+     * JDK settings the recording starts with (default or profile), account events are added to them
+     */
+    private String settings = "default";
+
+    /**
+     * Older events and events beyond the size are dropped from recording
+     */
+    private Duration maxAge = Duration.ofMinutes(10);
+    private long maxSize = 32 * 1024 * 1024;
+
+    /**
+     * Recording stops by itself after this time, 0 to run until stopped
+     */
+    private Duration maxDuration = Duration.ofMinutes(30);
+
+    /**
+     * Operations and transaction phases shorter than thresholds are not recorded
+     */
+    private Duration operationThreshold = Duration.ZERO;
+    private Duration phaseThreshold = Duration.ofMillis(1);
+
+    // format annotation is read from the setter parameter, so "32MB" is not converted when it is on the field
+    public void setMaxSize(@ReadableBytes final long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,18 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+/**
+ * Settings of background conservation-of-money check
+ */
+@Data
+@ConfigurationProperties("invariants")
+public class InvariantCheckConfiguration {
+    private boolean enabled = true;
+
+    /**
+     * Number of accounts read at once, versions of the last chunk are kept in memory
+     */
+    private int chunkSize = 500;
+}
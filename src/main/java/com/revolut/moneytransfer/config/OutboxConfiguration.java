@@ -0,0 +1,47 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Settings of operation log relay to downstream consumers
+ */
+@Data
+@ConfigurationProperties("outbox")
+public class OutboxConfiguration {
+    private boolean enabled = true;
+
+    /**
+     * Max number of operations published at once
+     */
+    private int batchSize = 500;
+
+    /**
+     * Gap in operation ids seen by relay for this long is treated as rolled back transaction and skipped,
+     * younger gap could be a transaction not committed yet, so relay waits for it
+     */
+    private Duration gapTimeout = Duration.ofSeconds(10);
+
+    /**
+     * External sink: memory, file or socket
+     */
+    private String sink = "memory";
+
+    /**
+     * Capacity of in-memory sink queue, oldest events are dropped on overflow
+     */
+    private int memoryCapacity = 10_000;
+
+    /**
+     * Target file of file sink, one JSON event per line
+     */
+    private String file = "balance-events.log";
+
+    /**
+     * Target address of socket sink, one JSON event per line
+     */
+    private String socketHost = "127.0.0.1";
+    private int socketPort = 9500;
+}
@@ -0,0 +1,43 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Token bucket limits of account API requests
+ */
+@Data
+@ConfigurationProperties("rate-limit")
+public class RateLimitConfiguration {
+    private boolean enabled = true;
+
+    /**
+     * Header identifying API client, remote address is used when header is absent
+     */
+    private String apiKeyHeader = "X-Api-Key";
+
+    /**
+     * Burst size and sustained rate of all requests of one API client
+     */
+    private int clientCapacity = 200;
+    private int clientRefillPerSecond = 100;
+
+    /**
+     * Burst size and sustained rate of balance operations on one account
+     */
+    private int accountCapacity = 20;
+    private int accountRefillPerSecond = 10;
+
+    /**
+     * Max number of buckets of clients and of accounts, keys beyond it share one bucket
+     */
+    private int maxTrackedClients = 100_000;
+    private int maxTrackedAccounts = 100_000;
+
+    /**
+     * Buckets unused for this time are dropped
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,91 @@
+package com.revolut.moneytransfer.config;
+
+import com.revolut.moneytransfer.model.OperationType;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Streaming of operation log from leader to followers
+ */
+@Data
+@ConfigurationProperties("replication")
+public class ReplicationConfiguration {
+
+    public enum Role {
+        /**
+         * Standalone node
+         */
+        NONE,
+        /**
+         * Accepts followers on host:port and streams operation log to them
+         */
+        LEADER,
+        /**
+         * Applies operation log of leader at leader-host:leader-port to its own database, rejects balance
+         * operations until promoted. Requires mybatis repository backend.
+         */
+        FOLLOWER
+    }
+
+    private Role role = Role.NONE;
+
+    /**
+     * Address leader listens on
+     */
+    private String host = "127.0.0.1";
+    private int port = 9600;
+
+    /**
+     * Address of leader to follow
+     */
+    private String leaderHost = "127.0.0.1";
+    private int leaderPort = 9600;
+
+    /**
+     * Name follower introduces itself with, host name if not set
+     */
+    private String followerName;
+
+    /**
+     * Max number of operations sent in one batch, follower acknowledges each batch
+     */
+    private int batchSize = 500;
+
+    /**
+     * Leader checks for new operations at least this often, commits wake it up earlier
+     */
+    private Duration pollInterval = Duration.ofMillis(10);
+
+    /**
+     * Gap in operation ids seen by leader for this long is considered as rolled back transaction,
+     * keep it well above the longest transaction
+     */
+    private Duration gapTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Empty batch is sent when there is nothing to replicate for this time, connection silent for
+     * three intervals is considered broken
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+    /**
+     * Follower reconnects after this delay
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+
+    /**
+     * Operations of these types wait for acknowledgement of sync-acks followers before returning,
+     * others are replicated asynchronously
+     */
+    private Set<OperationType> syncOperations = EnumSet.noneOf(OperationType.class);
+    private int syncAcks = 1;
+
+    /**
+     * Max wait for acknowledgement, operation is committed on leader regardless
+     */
+    private Duration ackTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,31 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Storage backend settings
+ */
+@Data
+@ConfigurationProperties("repository")
+public class RepositoryConfiguration {
+
+    /**
+     * Backend: mybatis (relational database of datasource) or mvstore (embedded key-value store)
+     */
+    private String backend = "mybatis";
+
+    /**
+     * File of mvstore backend, store is kept in memory if not set
+     */
+    @Nullable
+    private String file;
+
+    /**
+     * Max wait for account lock of mvstore backend in pessimistic mode
+     */
+    private Duration lockTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,30 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.LocalCacheScope;
+
+/**
+ * MyBatis session settings
+ */
+@Data
+@ConfigurationProperties("mybatis")
+public class SessionConfiguration {
+
+    /**
+     * Executor of balance operation transactions: SIMPLE prepares every statement, REUSE prepares
+     * each distinct statement once per session, BATCH additionally defers inserts until commit
+     */
+    private ExecutorType executorType = ExecutorType.REUSE;
+
+    /**
+     * Number of rows fetched per round trip by queries returning many rows
+     */
+    private int defaultFetchSize = 500;
+
+    /**
+     * SESSION caches query results for the whole session, STATEMENT only within a statement
+     */
+    private LocalCacheScope localCacheScope = LocalCacheScope.STATEMENT;
+}
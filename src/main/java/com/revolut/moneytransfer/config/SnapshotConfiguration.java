@@ -0,0 +1,59 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Settings of end-of-day balance snapshot and accrual job
+ */
+@Data
+@ConfigurationProperties("snapshot")
+public class SnapshotConfiguration {
+
+    /**
+     * Run the job for the previous day on schedule of snapshot.cron
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of id ranges account table is split into
+     */
+    private int partitions = 64;
+
+    /**
+     * Number of accounts of a range locked and committed at once
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Number of partitions processed in parallel
+     */
+    private int parallelism = 4;
+
+    /**
+     * Number of passes over failed partitions of a run, including the first one
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Pause before another pass over failed partitions
+     */
+    private Duration retryDelay = Duration.ofSeconds(30);
+
+    /**
+     * Allow runs for a given date through /snapshots endpoint, a run posts accruals and so moves money
+     */
+    private boolean manualRunEnabled = false;
+
+    /**
+     * Annual interest rate on balance in basis points, accrued daily
+     */
+    private long annualInterestBps = 0;
+
+    /**
+     * Daily account fee in minor units, never charged below zero balance
+     */
+    private long dailyFee = 0;
+}
@@ -0,0 +1,51 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Settings of application startup sequence
+ */
+@Data
+@ConfigurationProperties("startup")
+public class StartupConfiguration {
+
+    /**
+     * Run read paths of service and serialization before server accepts connections
+     */
+    private boolean warmUp = true;
+
+    /**
+     * Number of times every warmed up path is executed
+     */
+    private int warmUpIterations = 200;
+
+    /**
+     * Exercise write paths of service, controllers and JSON codecs against a scratch in-memory database
+     * after server is started, health endpoint reports DOWN until it is finished
+     */
+    private boolean jitWarmUp = true;
+
+    /**
+     * Number of deposits, withdrawals and transfers executed by service phase of JIT warm-up,
+     * HTTP phase executes a tenth of it
+     */
+    private int jitWarmUpIterations = 10000;
+
+    /**
+     * Number of accounts in scratch database
+     */
+    private int jitWarmUpAccounts = 32;
+
+    /**
+     * JIT warm-up is cut short after this time, application becomes ready anyway
+     */
+    private Duration jitWarmUpTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Stop application once server is started, used by training run of class data sharing archive
+     */
+    private boolean exitWhenStarted = false;
+}
@@ -0,0 +1,26 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Sliding window limits of outgoing operations (withdrawals and transfers) per account,
+ * rules are configured in velocity.rules
+ */
+@Data
+@ConfigurationProperties("velocity")
+public class VelocityConfiguration {
+    private boolean enabled = true;
+
+    /**
+     * Resolution of sliding windows, window of a rule moves by one bucket at a time
+     */
+    private Duration bucket = Duration.ofMinutes(1);
+
+    /**
+     * Longest window a rule may have, number of buckets kept per account is max-window / bucket
+     */
+    private Duration maxWindow = Duration.ofHours(1);
+}
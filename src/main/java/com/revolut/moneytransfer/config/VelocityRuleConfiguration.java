@@ -0,0 +1,32 @@
+package com.revolut.moneytransfer.config;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Velocity rule velocity.rules.{name}, rules could be changed at runtime on /velocity endpoint
+ */
+@Data
+@EachProperty("velocity.rules")
+public class VelocityRuleConfiguration {
+    private final String name;
+
+    private Duration window = Duration.ofHours(1);
+
+    /**
+     * Max number of outgoing operations within window, 0 for no limit
+     */
+    private long maxCount = 0;
+
+    /**
+     * Max sum of outgoing amounts within window in minor units, 0 for no limit
+     */
+    private long maxOutflow = 0;
+
+    public VelocityRuleConfiguration(@Parameter final String name) {
+        this.name = name;
+    }
+}
@@ -1,20 +1,35 @@
 package com.revolut.moneytransfer.controller;
 
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
 import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.exception.AccountVersionMismatchException;
 import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.exception.InvalidCursorException;
+import com.revolut.moneytransfer.exception.ReadOnlyReplicaException;
+import com.revolut.moneytransfer.exception.SameAccountTransferException;
+import com.revolut.moneytransfer.exception.VelocityLimitExceededException;
 import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountBalance;
+import com.revolut.moneytransfer.model.AccountPage;
+import com.revolut.moneytransfer.model.AccountStatement;
 import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.MultiTransfer;
 import com.revolut.moneytransfer.model.Transfer;
 import com.revolut.moneytransfer.model.Withdrawal;
 import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.Error;
 import io.micronaut.http.annotation.*;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.validation.constraints.NotBlank;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 
 /**
  * Bank account API
@@ -28,13 +43,61 @@ public class AccountController {
     /**
      * Get account by id
      * @param id Account id
-     * @return Account object or 404 error if not found
+     * @return Account object with ETag header holding account version or 404 error if not found
      */
     @Get("/{id}")
-    @Status(HttpStatus.OK)
-    public Account getAccount(@NotBlank final String id) {
-        return accountService.getAccountById(id)
+    public HttpResponse<Account> getAccount(@NotBlank final String id) {
+        final Account account = accountService.getAccountById(id)
                 .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+        return HttpResponse.ok(account)
+                .header(HttpHeaders.ETAG, toETag(account.getVersion()));
+    }
+
+    /**
+     * Get balance of account at a point in time
+     * @param id Account id
+     * @param at ISO-8601 instant, like 2020-01-31T23:59:59Z, current time if absent
+     * @return balance at that time, 404 error if account not found or 400 error if time is malformed
+     */
+    @Get("/{id}/balance")
+    public AccountBalance getBalance(@NotBlank final String id, @Nullable @QueryValue final String at) {
+        return accountService.getBalanceAt(id, at == null ? Instant.now() : Instant.parse(at));
+    }
+
+    /**
+     * Get statement of account
+     * @param id Account id
+     * @param from ISO-8601 instant, start of the range, inclusive
+     * @param to ISO-8601 instant, end of the range, exclusive, current time if absent
+     * @param limit max number of operations
+     * @return operations within the range ordered by time, 404 error if account not found or 400 error if time
+     * is malformed
+     */
+    @Get("/{id}/statement")
+    public AccountStatement getStatement(@NotBlank final String id,
+                                         @QueryValue final String from,
+                                         @Nullable @QueryValue final String to,
+                                         @QueryValue(defaultValue = "100") final int limit) {
+        return accountService.getStatement(id, Instant.parse(from), to == null ? Instant.now() : Instant.parse(to),
+                limit);
+    }
+
+    /**
+     * Search accounts
+     * @param name optional prefix of account name
+     * @param currency optional account currency
+     * @param minBalance optional lower bound of balance
+     * @param after cursor of the page returned in previous page, absent for the first page
+     * @param limit page size
+     * @return page of accounts or 400 code if cursor is invalid
+     */
+    @Get
+    public AccountPage searchAccounts(@Nullable @QueryValue final String name,
+                                      @Nullable @QueryValue final String currency,
+                                      @Nullable @QueryValue final Long minBalance,
+                                      @Nullable @QueryValue final String after,
+                                      @QueryValue(defaultValue = "50") final int limit) {
+        return accountService.searchAccounts(name, currency, minBalance, after, limit);
     }
 
     /**
@@ -52,22 +115,34 @@ public class AccountController {
      * Create deposit operation
      * @param id id of target account
      * @param deposit operation data
+     * @param ifMatch optional ETag of account, operation fails with 412 code if account has been changed since
      */
     @Post("/{id}/deposit")
     @Status(HttpStatus.OK)
-    public void deposit(@QueryValue("id") final String id, @Body final Deposit deposit) {
-        accountService.createDepositOperation(id, deposit);
+    public void deposit(@QueryValue("id") final String id, @Body final Deposit deposit,
+                        @Nullable @Header(HttpHeaders.IF_MATCH) final String ifMatch) {
+        if (ifMatch == null) {
+            accountService.createDepositOperation(id, deposit);
+        } else {
+            accountService.createDepositOperation(id, deposit, fromETag(ifMatch));
+        }
     }
 
     /**
      * Create withdraw operation
      * @param id id of target account
      * @param withdrawal operation data
+     * @param ifMatch optional ETag of account, operation fails with 412 code if account has been changed since
      */
     @Post("/{id}/withdraw")
     @Status(HttpStatus.OK)
-    public void withdraw(@QueryValue("id") final String id, @Body final Withdrawal withdrawal) {
-        accountService.createWithdrawalOperation(id, withdrawal);
+    public void withdraw(@QueryValue("id") final String id, @Body final Withdrawal withdrawal,
+                         @Nullable @Header(HttpHeaders.IF_MATCH) final String ifMatch) {
+        if (ifMatch == null) {
+            accountService.createWithdrawalOperation(id, withdrawal);
+        } else {
+            accountService.createWithdrawalOperation(id, withdrawal, fromETag(ifMatch));
+        }
     }
 
     /**
@@ -82,6 +157,16 @@ public class AccountController {
         accountService.createTransferOperation(sourceAccountId, targetAccountId, transfer);
     }
 
+    /**
+     * Create multi-leg transfer, all legs are applied atomically
+     * @param multiTransfer legs and their currency
+     */
+    @Post("/transfers")
+    @Status(HttpStatus.OK)
+    public void multiTransfer(@Body final MultiTransfer multiTransfer) {
+        accountService.createMultiTransferOperation(multiTransfer);
+    }
+
     @Error(exception = AccountNotFoundException.class)
     public <T, U> HttpResponse<T> onAccountNotFound(HttpRequest<U> request, AccountNotFoundException ex) {
         return HttpResponse.notFound();
@@ -91,4 +176,65 @@ public class AccountController {
     public <T, U> HttpResponse<T> onInvalidAmount(HttpRequest<U> request, AccountNotFoundException ex) {
         return HttpResponse.status(HttpStatus.FORBIDDEN);
     }
+
+    @Error(exception = InvalidCursorException.class)
+    public <T, U> HttpResponse<T> onInvalidCursor(HttpRequest<U> request, InvalidCursorException ex) {
+        return HttpResponse.badRequest();
+    }
+
+    @Error(exception = SameAccountTransferException.class)
+    public <T, U> HttpResponse<T> onSameAccountTransfer(HttpRequest<U> request, SameAccountTransferException ex) {
+        return HttpResponse.badRequest();
+    }
+
+    @Error(exception = DateTimeParseException.class)
+    public <T, U> HttpResponse<T> onInvalidTime(HttpRequest<U> request, DateTimeParseException ex) {
+        return HttpResponse.badRequest();
+    }
+
+    @Error(exception = AccountVersionMismatchException.class)
+    public <T, U> HttpResponse<T> onVersionMismatch(HttpRequest<U> request, AccountVersionMismatchException ex) {
+        return HttpResponse.status(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Error(exception = AccountConcurrentModificationException.class)
+    public <T, U> HttpResponse<T> onConcurrentModification(HttpRequest<U> request,
+                                                          AccountConcurrentModificationException ex) {
+        return HttpResponse.status(HttpStatus.CONFLICT);
+    }
+
+    @Error(exception = AccountLockTimeoutException.class)
+    public <T, U> HttpResponse<T> onLockTimeout(HttpRequest<U> request, AccountLockTimeoutException ex) {
+        return HttpResponse.<T>status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1");
+    }
+
+    @Error(exception = ReadOnlyReplicaException.class)
+    public <T, U> HttpResponse<T> onReadOnlyReplica(HttpRequest<U> request, ReadOnlyReplicaException ex) {
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Error(exception = VelocityLimitExceededException.class)
+    public <T, U> HttpResponse<T> onVelocityLimit(HttpRequest<U> request, VelocityLimitExceededException ex) {
+        return HttpResponse.status(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    private static String toETag(final long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static long fromETag(final String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new AccountVersionMismatchException("Unknown ETag: " + eTag);
+        }
+    }
 }
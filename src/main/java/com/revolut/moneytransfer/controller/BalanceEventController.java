@@ -0,0 +1,38 @@
+package com.revolut.moneytransfer.controller;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.outbox.BalanceEventBroadcaster;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.sse.Event;
+import io.reactivex.Flowable;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotEmpty;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Balance change notifications API
+ */
+@Controller("/events")
+public class BalanceEventController {
+
+    @Inject
+    private BalanceEventBroadcaster broadcaster;
+
+    /**
+     * Subscribe to balance changes of accounts as Server-Sent Events stream
+     * @param accounts ids of accounts of interest
+     * @return endless stream of balance changes, event id is the operation id
+     */
+    @Get(value = "/balance", produces = MediaType.TEXT_EVENT_STREAM)
+    public Flowable<Event<BalanceChange>> balanceEvents(@QueryValue @NotEmpty final List<String> accounts) {
+        return broadcaster.subscribe(new HashSet<>(accounts))
+                .map(change -> Event.of(change)
+                        .id(String.valueOf(change.getId()))
+                        .name(change.getType().name()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.revolut.moneytransfer.database;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Order of account ids in database. UUID columns are compared as signed most significant
+ * then least significant bits, which is the order of {@link UUID#compareTo} and differs from
+ * the order of id strings. Rows are locked in this order by every transaction which locks
+ * more than one account, so transactions do not deadlock with range locks taken in index order.
+ * <p>
+ * Ids which are not UUIDs belong to no account, they go first in string order.
+ */
+public final class AccountIdOrder {
+    public static final Comparator<String> COMPARATOR = Comparator
+            .comparing(AccountIdOrder::parse, Comparator.nullsFirst(Comparator.<UUID>naturalOrder()))
+            .thenComparing(Comparator.naturalOrder());
+
+    private AccountIdOrder() {
+    }
+
+    private static UUID parse(final String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -3,19 +3,100 @@ package com.revolut.moneytransfer.database;
 import com.revolut.moneytransfer.model.Account;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
+/**
+ * Account ids are stored as native UUID and currencies as ISO 4217 numeric codes,
+ * see {@link UuidTypeHandler} and {@link CurrencyCodeTypeHandler}
+ */
 public interface AccountMapper {
-    @Select("select * from account where id=#{id}")
+    @Select("select * from account where id=#{id,typeHandler=uuid}")
+    @Results(id = "account", value = {
+            @Result(column = "id", property = "id", id = true),
+            @Result(column = "currency", property = "currency", typeHandler = CurrencyCodeTypeHandler.class)
+    })
     Account findById(String id);
 
+    @Select("select * from account where id=#{id,typeHandler=uuid} for update")
+    @ResultMap("account")
+    Account findByIdForUpdate(String id);
+
+    /**
+     * Page of accounts ordered by id
+     * @param afterId id of the last account of previous page, null for the first page
+     */
+    @Select({"<script>",
+            "select id, balance, currency, version from account",
+            "<if test='afterId != null'>where id &gt; #{afterId,typeHandler=uuid}</if>",
+            "order by id limit #{limit}",
+            "</script>"})
+    @ResultMap("account")
+    List<Account> findPage(@Param("afterId") String afterId, @Param("limit") int limit);
+
+    /**
+     * Page of accounts matching criteria, ordered by criteria sort key and id
+     */
+    @Select({"<script>",
+            "select * from account",
+            "<where>",
+            "  <if test='criteria.namePrefix != null'>",
+            "    name &gt;= #{criteria.namePrefix}",
+            "    <if test='criteria.nameUpperBound != null'>and name &lt; #{criteria.nameUpperBound}</if>",
+            "    and name like #{criteria.namePattern} escape '\\'",
+            "  </if>",
+            "  <if test='criteria.currency != null'>and currency = #{criteria.currency,typeHandler=currency}</if>",
+            "  <if test='criteria.minBalance != null'>and balance &gt;= #{criteria.minBalance}</if>",
+            "  <if test='criteria.afterId != null'>",
+            "    <choose>",
+            "      <when test='criteria.sortedByName'>",
+            "        and name &gt;= #{criteria.afterName}",
+            "        and (name &gt; #{criteria.afterName} or id &gt; #{criteria.afterId,typeHandler=uuid})",
+            "      </when>",
+            "      <when test='criteria.sortedByBalance'>",
+            "        and balance &gt;= #{criteria.afterBalance}",
+            "        and (balance &gt; #{criteria.afterBalance} or id &gt; #{criteria.afterId,typeHandler=uuid})",
+            "      </when>",
+            "      <otherwise>and id &gt; #{criteria.afterId,typeHandler=uuid}</otherwise>",
+            "    </choose>",
+            "  </if>",
+            "</where>",
+            "<choose>",
+            "  <when test='criteria.sortedByName'>order by name, id</when>",
+            "  <when test='criteria.sortedByBalance'>order by balance, id</when>",
+            "  <otherwise>order by id</otherwise>",
+            "</choose>",
+            "limit #{criteria.limit}",
+            "</script>"})
+    @ResultMap("account")
+    List<Account> searchAccounts(@Param("criteria") AccountSearchCriteria criteria);
+
     @Insert("insert into account (id, name, balance, currency)\n" +
-            "values (#{account.id}, #{account.name}, #{account.balance}, #{account.currency})")
+            "values (#{account.id,typeHandler=uuid}, #{account.name}, #{account.balance},\n" +
+            "        #{account.currency,typeHandler=currency})")
     void createAccount(@Param("account") Account account);
 
-    @Update("update account set balance = #{balance}\n" +
-            "where id = #{accountId}")
-    void updateBalance(@Param("accountId") String accountId,
-                       @Param("balance") long balance);
+    /**
+     * Compare-and-set balance update
+     * @return number of updated rows, 0 if account version has been changed concurrently
+     */
+    @Update("update account set balance = #{balance}, version = version + 1\n" +
+            "where id = #{accountId,typeHandler=uuid} and version = #{version}")
+    int updateBalance(@Param("accountId") String accountId,
+                      @Param("balance") long balance,
+                      @Param("version") long version);
+
+    /**
+     * Overwrite balance and version with values replicated from leader
+     */
+    @Update("update account set balance = #{balance}, version = #{version}\n" +
+            "where id = #{accountId,typeHandler=uuid}")
+    int setBalance(@Param("accountId") String accountId,
+                   @Param("balance") long balance,
+                   @Param("version") long version);
 }
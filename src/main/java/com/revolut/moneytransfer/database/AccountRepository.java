@@ -0,0 +1,40 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.Account;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of accounts, backend is selected with repository.backend property:
+ * mybatis - tables of relational database, mvstore - embedded key-value store
+ */
+public interface AccountRepository {
+
+    /**
+     * Start unit of work, changes are visible to others only after {@link AccountTransaction#commit()}
+     */
+    AccountTransaction begin();
+
+    /**
+     * @return true if compare-and-set update of an account read without lock may be lost by the backend,
+     * accounts are then locked on read (in id order) under every strategy and version is still compared
+     */
+    default boolean requiresLockOnRead() {
+        return false;
+    }
+
+    Optional<Account> findById(String id);
+
+    /**
+     * Page of accounts ordered by id in {@link AccountIdOrder}, with balance, currency and version
+     * @param afterId id of the last account of previous page, null for the first page
+     */
+    List<Account> findPage(@Nullable String afterId, int limit);
+
+    /**
+     * Page of accounts matching criteria, ordered by criteria sort key and id
+     */
+    List<Account> searchAccounts(AccountSearchCriteria criteria);
+}
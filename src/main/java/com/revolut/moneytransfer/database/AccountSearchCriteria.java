@@ -0,0 +1,67 @@
+package com.revolut.moneytransfer.database;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Filters and keyset position of account search.
+ * Sort order follows the most selective filter, so that every page is read by index range:
+ * name prefix - by name, currency - by balance, otherwise - by id.
+ */
+@Value
+@Builder
+public class AccountSearchCriteria {
+    public enum Sort { NAME, BALANCE, ID }
+
+    String namePrefix;
+    String currency;
+    Long minBalance;
+
+    Sort sort;
+    // Sort key and id of the last account of previous page, null for the first page
+    String afterName;
+    Long afterBalance;
+    String afterId;
+
+    int limit;
+
+    public static Sort sortFor(final String namePrefix, final String currency) {
+        if (namePrefix != null) {
+            return Sort.NAME;
+        }
+        if (currency != null) {
+            return Sort.BALANCE;
+        }
+        return Sort.ID;
+    }
+
+    /**
+     * @return LIKE pattern matching names starting with prefix
+     */
+    public String getNamePattern() {
+        return namePrefix
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    /**
+     * @return smallest string greater than all names starting with prefix, makes prefix an index range
+     * even when database does not derive it from LIKE parameter
+     */
+    public String getNameUpperBound() {
+        final int last = namePrefix.length() - 1;
+        if (last < 0 || namePrefix.charAt(last) == Character.MAX_VALUE) {
+            return null;
+        }
+        return namePrefix.substring(0, last) + (char) (namePrefix.charAt(last) + 1);
+    }
+
+    public boolean isSortedByName() {
+        return sort == Sort.NAME;
+    }
+
+    public boolean isSortedByBalance() {
+        return sort == Sort.BALANCE;
+    }
+}
@@ -0,0 +1,43 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+
+/**
+ * Unit of work of balance operation, not committed changes are discarded on close
+ */
+public interface AccountTransaction extends AutoCloseable {
+
+    /**
+     * @param forUpdate lock account until the end of transaction
+     * @return account or null if there is no such account
+     * @throws AccountLockTimeoutException if account could not be locked in time
+     */
+    Account find(String id, boolean forUpdate);
+
+    void create(Account account);
+
+    /**
+     * Compare-and-set balance update, version of account is incremented
+     * @param account account as it was read in this transaction
+     * @return false if account version has been changed concurrently,
+     * backend may defer the check until commit
+     */
+    boolean updateBalance(Account account, long balance);
+
+    /**
+     * Append balance change to operation log, id of change is assigned on commit at the latest
+     */
+    void logOperation(BalanceChange change);
+
+    /**
+     * @throws AccountConcurrentModificationException if deferred version check failed
+     * @throws AccountLockTimeoutException if locks could not be acquired in time
+     */
+    void commit();
+
+    @Override
+    void close();
+}
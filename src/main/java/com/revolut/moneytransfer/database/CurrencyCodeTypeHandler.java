@@ -0,0 +1,74 @@
+package com.revolut.moneytransfer.database;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps alphabetic currency code to ISO 4217 numeric code stored in SMALLINT column, alias "currency".
+ * Unknown currency is bound as -1 matching no rows.
+ */
+public class CurrencyCodeTypeHandler extends BaseTypeHandler<String> {
+    static final short UNKNOWN = -1;
+
+    private static final Map<Short, String> ALPHABETIC_CODES;
+
+    static {
+        final Map<Short, String> codes = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            if (currency.getNumericCode() > 0) {
+                codes.putIfAbsent((short) currency.getNumericCode(), currency.getCurrencyCode());
+            }
+        }
+        ALPHABETIC_CODES = Collections.unmodifiableMap(codes);
+    }
+
+    @Override
+    public void setNonNullParameter(final PreparedStatement ps, final int i, final String parameter,
+                                    final JdbcType jdbcType) throws SQLException {
+        ps.setShort(i, toNumeric(parameter));
+    }
+
+    @Override
+    public String getNullableResult(final ResultSet rs, final String columnName) throws SQLException {
+        final short code = rs.getShort(columnName);
+        return rs.wasNull() ? null : toAlphabetic(code);
+    }
+
+    @Override
+    public String getNullableResult(final ResultSet rs, final int columnIndex) throws SQLException {
+        final short code = rs.getShort(columnIndex);
+        return rs.wasNull() ? null : toAlphabetic(code);
+    }
+
+    @Override
+    public String getNullableResult(final CallableStatement cs, final int columnIndex) throws SQLException {
+        final short code = cs.getShort(columnIndex);
+        return cs.wasNull() ? null : toAlphabetic(code);
+    }
+
+    static short toNumeric(final String alphabetic) {
+        try {
+            final int code = Currency.getInstance(alphabetic).getNumericCode();
+            return code > 0 ? (short) code : UNKNOWN;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    static String toAlphabetic(final short numeric) {
+        final String code = ALPHABETIC_CODES.get(numeric);
+        if (code == null) {
+            throw new IllegalStateException("Unknown numeric currency code: " + numeric);
+        }
+        return code;
+    }
+}
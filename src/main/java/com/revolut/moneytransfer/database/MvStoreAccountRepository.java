@@ -0,0 +1,397 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.config.RepositoryConfiguration;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.context.annotation.Requires;
+import lombok.Value;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Accounts and operation log in embedded log-structured key-value store, no SQL is parsed or planned.
+ * <p>
+ * Accounts are binary records keyed by UUID, operations are keyed by sequence number.
+ * Transaction buffers its writes, commit checks versions of updated accounts and applies all writes
+ * as one store version under a short commit lock, so operation ids are assigned without gaps in commit order.
+ * Pessimistic mode locks in-process lock of each account, so locks follow the id order of callers like row locks,
+ * waits are bounded by repository.lock-timeout.
+ * There are no secondary indexes, search scans all accounts.
+ */
+@Singleton
+@Requires(property = "repository.backend", value = "mvstore")
+public class MvStoreAccountRepository implements AccountRepository, OperationLog {
+    private final MVStore store;
+    private final MVMap<UUID, byte[]> accounts;
+    private final MVMap<Long, byte[]> operations;
+    private final MVMap<String, Long> cursors;
+    // timeline key of operation -> operation id, see MvStoreRecords.timelineKey
+    private final MVMap<String, Long> timeline;
+    private final long lockTimeoutMillis;
+
+    private final Lock commitLock = new ReentrantLock();
+    // locks of accounts locked or waited for, removed when unused
+    private final ConcurrentMap<UUID, AccountLock> accountLocks = new ConcurrentHashMap<>();
+    // Last assigned operation id, guarded by commit lock
+    private long operationSequence;
+
+    public MvStoreAccountRepository(final RepositoryConfiguration configuration) {
+        final MVStore.Builder builder = new MVStore.Builder().autoCommitDisabled();
+        if (configuration.getFile() != null) {
+            builder.fileName(configuration.getFile());
+        }
+        store = builder.open();
+        accounts = store.openMap("account");
+        operations = store.openMap("account_operation");
+        cursors = store.openMap("operation_cursor");
+        timeline = store.openMap("account_operation_timeline");
+        lockTimeoutMillis = configuration.getLockTimeout().toMillis();
+        final Long lastOperation = operations.lastKey();
+        operationSequence = lastOperation == null ? 0 : lastOperation;
+        if (timeline.isEmpty() && lastOperation != null) {
+            // store written before the timeline existed
+            for (Map.Entry<Long, byte[]> operation : operations.entrySet()) {
+                final BalanceChange change = MvStoreRecords.decodeOperation(operation.getKey(), operation.getValue());
+                timeline.put(MvStoreRecords.timelineKey(change.getAccountId(), change.getCreatedAt(), change.getId()),
+                        change.getId());
+            }
+            store.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+
+    @Override
+    public AccountTransaction begin() {
+        return new Transaction();
+    }
+
+    @Override
+    public Optional<Account> findById(final String id) {
+        return Optional.ofNullable(read(parseId(id)));
+    }
+
+    @Override
+    public List<Account> findPage(@Nullable final String afterId, final int limit) {
+        final UUID from;
+        if (afterId == null) {
+            from = null;
+        } else {
+            from = accounts.higherKey(UUID.fromString(afterId));
+            if (from == null) {
+                return new ArrayList<>();
+            }
+        }
+
+        final List<Account> page = new ArrayList<>(limit);
+        final Cursor<UUID, byte[]> cursor = accounts.cursor(from);
+        while (page.size() < limit && cursor.hasNext()) {
+            final UUID id = cursor.next();
+            page.add(MvStoreRecords.decodeAccount(id, cursor.getValue()));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Account> searchAccounts(final AccountSearchCriteria criteria) {
+        final Comparator<Account> order = searchOrder(criteria);
+        Predicate<Account> filter = account -> true;
+        if (criteria.getNamePrefix() != null) {
+            filter = filter.and(account -> account.getName().startsWith(criteria.getNamePrefix()));
+        }
+        if (criteria.getCurrency() != null) {
+            filter = filter.and(account -> account.getCurrency().equals(criteria.getCurrency()));
+        }
+        if (criteria.getMinBalance() != null) {
+            filter = filter.and(account -> account.getBalance() >= criteria.getMinBalance());
+        }
+        if (criteria.getAfterId() != null) {
+            final Account after = Account.builder()
+                    .id(criteria.getAfterId())
+                    .name(criteria.getAfterName())
+                    .balance(criteria.getAfterBalance() == null ? 0 : criteria.getAfterBalance())
+                    .build();
+            filter = filter.and(account -> order.compare(account, after) > 0);
+        }
+
+        return StreamSupport.stream(accounts.entrySet().spliterator(), false)
+                .map(entry -> MvStoreRecords.decodeAccount(entry.getKey(), entry.getValue()))
+                .filter(filter)
+                .sorted(order)
+                .limit(criteria.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BalanceChange> findAfter(final long afterId, final int limit) {
+        // limit is an upper bound only, callers pass Integer.MAX_VALUE to read the whole tail
+        final List<BalanceChange> changes = new ArrayList<>();
+        final Cursor<Long, byte[]> cursor = operations.cursor(afterId + 1);
+        while (changes.size() < limit && cursor.hasNext()) {
+            final long id = cursor.next();
+            changes.add(MvStoreRecords.decodeOperation(id, cursor.getValue()));
+        }
+        return changes;
+    }
+
+    @Override
+    public void forEachSince(final Instant since, final Consumer<BalanceChange> consumer) {
+        final Long firstKey = operations.firstKey();
+        if (firstKey == null) {
+            return;
+        }
+        // ids are contiguous and follow commit order, so creation time grows with id up to clock skew
+        // of concurrent transactions, binary search finds the first recent operation without a scan
+        long low = firstKey;
+        long high = operations.lastKey() + 1;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            final BalanceChange change = MvStoreRecords.decodeOperation(middle, operations.get(middle));
+            if (change.getCreatedAt().isBefore(since)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        final Cursor<Long, byte[]> cursor = operations.cursor(low);
+        while (cursor.hasNext()) {
+            final long id = cursor.next();
+            final BalanceChange change = MvStoreRecords.decodeOperation(id, cursor.getValue());
+            if (!change.getCreatedAt().isBefore(since)) {
+                consumer.accept(change);
+            }
+        }
+    }
+
+    @Override
+    public Optional<BalanceChange> findLatest(final String accountId, final Instant at) {
+        final UUID id = parseId(accountId);
+        if (id == null) {
+            return Optional.empty();
+        }
+        final String key = timeline.floorKey(MvStoreRecords.timelineUpperBound(id.toString(), at));
+        if (key == null || !key.startsWith(id.toString())) {
+            return Optional.empty();
+        }
+        final long operationId = timeline.get(key);
+        return Optional.of(MvStoreRecords.decodeOperation(operationId, operations.get(operationId)));
+    }
+
+    @Override
+    public List<BalanceChange> findStatement(final String accountId, final Instant from, final Instant to,
+                                             final int limit) {
+        final List<BalanceChange> changes = new ArrayList<>();
+        final UUID id = parseId(accountId);
+        if (id == null) {
+            return changes;
+        }
+        final String end = MvStoreRecords.timelineLowerBound(id.toString(), to);
+        final Cursor<String, Long> cursor = timeline.cursor(MvStoreRecords.timelineLowerBound(id.toString(), from));
+        while (changes.size() < limit && cursor.hasNext()) {
+            if (cursor.next().compareTo(end) >= 0) {
+                break;
+            }
+            final long operationId = cursor.getValue();
+            changes.add(MvStoreRecords.decodeOperation(operationId, operations.get(operationId)));
+        }
+        return changes;
+    }
+
+    @Override
+    public long loadCursor(final String consumer) {
+        return cursors.getOrDefault(consumer, 0L);
+    }
+
+    @Override
+    public void saveCursor(final String consumer, final long operationId) {
+        commitLock.lock();
+        try {
+            cursors.put(consumer, operationId);
+            store.commit();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private static Comparator<Account> searchOrder(final AccountSearchCriteria criteria) {
+        final Comparator<Account> byId = Comparator.comparing(Account::getId, AccountIdOrder.COMPARATOR);
+        if (criteria.isSortedByName()) {
+            return Comparator.comparing(Account::getName).thenComparing(byId);
+        }
+        if (criteria.isSortedByBalance()) {
+            return Comparator.comparingLong(Account::getBalance).thenComparing(byId);
+        }
+        return byId;
+    }
+
+    private Account read(@Nullable final UUID id) {
+        if (id == null) {
+            return null;
+        }
+        final byte[] record = accounts.get(id);
+        return record == null ? null : MvStoreRecords.decodeAccount(id, record);
+    }
+
+    /**
+     * @return null if value is not UUID, such id can not belong to an existing account
+     */
+    private static UUID parseId(final String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lock with number of transactions holding or waiting for it, updated atomically by map of locks
+     */
+    private static class AccountLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    @Value
+    private static class PendingWrite {
+        UUID id;
+        // null for a new account
+        Long expectedVersion;
+        byte[] record;
+    }
+
+    private class Transaction implements AccountTransaction {
+        // The first write of account keeps version read from store, next writes replace its record
+        // if they are based on it
+        private final Map<UUID, PendingWrite> writes = new LinkedHashMap<>();
+        private final List<BalanceChange> changes = new ArrayList<>(2);
+        private final List<UUID> lockedIds = new ArrayList<>(2);
+
+        @Override
+        public Account find(final String id, final boolean forUpdate) {
+            final UUID uuid = parseId(id);
+            if (uuid != null && forUpdate) {
+                lock(uuid);
+            }
+            return read(uuid);
+        }
+
+        @Override
+        public void create(final Account account) {
+            final UUID id = UUID.fromString(account.getId());
+            writes.put(id, new PendingWrite(id, null,
+                    MvStoreRecords.encodeAccount(account, account.getBalance(), account.getVersion())));
+        }
+
+        @Override
+        public boolean updateBalance(final Account account, final long balance) {
+            // version read from store is checked on commit, a repeated write must be based on the pending record,
+            // as a second update of the same row fails with MyBatis backend
+            final UUID id = UUID.fromString(account.getId());
+            final PendingWrite previous = writes.get(id);
+            if (previous != null && MvStoreRecords.version(previous.getRecord()) != account.getVersion()) {
+                return false;
+            }
+            final Long expectedVersion = previous == null ? Long.valueOf(account.getVersion()) : previous.getExpectedVersion();
+            writes.put(id, new PendingWrite(id, expectedVersion,
+                    MvStoreRecords.encodeAccount(account, balance, account.getVersion() + 1)));
+            return true;
+        }
+
+        @Override
+        public void logOperation(final BalanceChange change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void commit() {
+            commitLock.lock();
+            try {
+                for (PendingWrite write : writes.values()) {
+                    final byte[] current = accounts.get(write.getId());
+                    if (write.getExpectedVersion() == null ? current != null
+                            : current == null || MvStoreRecords.version(current) != write.getExpectedVersion()) {
+                        throw new AccountConcurrentModificationException(
+                                "Account was modified concurrently: " + write.getId());
+                    }
+                }
+                for (PendingWrite write : writes.values()) {
+                    accounts.put(write.getId(), write.getRecord());
+                }
+                for (BalanceChange change : changes) {
+                    change.setId(++operationSequence);
+                    operations.put(change.getId(), MvStoreRecords.encodeOperation(change));
+                    timeline.put(MvStoreRecords.timelineKey(change.getAccountId(), change.getCreatedAt(), change.getId()),
+                            change.getId());
+                }
+                store.commit();
+            } finally {
+                commitLock.unlock();
+                writes.clear();
+                changes.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            for (UUID id : lockedIds) {
+                accountLocks.get(id).lock.unlock();
+                release(id);
+            }
+            lockedIds.clear();
+        }
+
+        private void lock(final UUID id) {
+            if (lockedIds.contains(id)) {
+                return;
+            }
+            final AccountLock lock = accountLocks.compute(id, (key, existing) -> {
+                final AccountLock result = existing == null ? new AccountLock() : existing;
+                result.users++;
+                return result;
+            });
+            try {
+                if (!lock.lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    release(id);
+                    throw new AccountLockTimeoutException("Account lock could not be acquired", null);
+                }
+            } catch (InterruptedException e) {
+                release(id);
+                Thread.currentThread().interrupt();
+                throw new AccountLockTimeoutException("Account lock could not be acquired", e);
+            }
+            lockedIds.add(id);
+        }
+
+        private void release(final UUID id) {
+            accountLocks.computeIfPresent(id, (key, lock) -> --lock.users == 0 ? null : lock);
+        }
+    }
+}
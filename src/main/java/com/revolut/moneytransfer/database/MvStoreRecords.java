@@ -0,0 +1,111 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary records of mvstore backend, account id is the map key and is not repeated in account record
+ */
+final class MvStoreRecords {
+    // version, balance, currency
+    private static final int ACCOUNT_HEADER = Long.BYTES + Long.BYTES + Short.BYTES;
+    // account id, type, amount, balance, version, created at seconds and nanos
+    private static final int OPERATION_SIZE = 2 * Long.BYTES + Byte.BYTES + 3 * Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private MvStoreRecords() {
+    }
+
+    static byte[] encodeAccount(final Account account, final long balance, final long version) {
+        final byte[] name = account.getName().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(ACCOUNT_HEADER + name.length)
+                .putLong(version)
+                .putLong(balance)
+                .putShort(CurrencyCodeTypeHandler.toNumeric(account.getCurrency()))
+                .put(name)
+                .array();
+    }
+
+    static Account decodeAccount(final UUID id, final byte[] record) {
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        final long version = buffer.getLong();
+        final long balance = buffer.getLong();
+        // currency code is skipped, the only supported currency is fixed by the model
+        buffer.getShort();
+        return Account.builder()
+                .id(id.toString())
+                .version(version)
+                .balance(balance)
+                .name(new String(record, ACCOUNT_HEADER, record.length - ACCOUNT_HEADER, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    static long version(final byte[] record) {
+        return ByteBuffer.wrap(record).getLong(0);
+    }
+
+    static byte[] encodeOperation(final BalanceChange change) {
+        final UUID accountId = UUID.fromString(change.getAccountId());
+        return ByteBuffer.allocate(OPERATION_SIZE)
+                .putLong(accountId.getMostSignificantBits())
+                .putLong(accountId.getLeastSignificantBits())
+                .put((byte) change.getType().ordinal())
+                .putLong(change.getAmount())
+                .putLong(change.getBalance())
+                .putLong(change.getVersion())
+                .putLong(change.getCreatedAt().getEpochSecond())
+                .putInt(change.getCreatedAt().getNano())
+                .array();
+    }
+
+    static BalanceChange decodeOperation(final long id, final byte[] record) {
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        return BalanceChange.builder()
+                .id(id)
+                .accountId(new UUID(buffer.getLong(), buffer.getLong()).toString())
+                .type(OPERATION_TYPES[buffer.get()])
+                .amount(buffer.getLong())
+                .balance(buffer.getLong())
+                .version(buffer.getLong())
+                .createdAt(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()))
+                .build();
+    }
+
+    /**
+     * Key of operation in account timeline: account id, creation time and operation id of fixed width,
+     * so that string order is time order within account
+     */
+    static String timelineKey(final String accountId, final Instant createdAt, final long operationId) {
+        return UUID.fromString(accountId) + hex(Math.max(0, createdAt.getEpochSecond()), 16) + hex(createdAt.getNano(), 8)
+                + hex(operationId, 16);
+    }
+
+    /**
+     * @return the greatest timeline key of account operations created at or before the time
+     */
+    static String timelineUpperBound(final String accountId, final Instant at) {
+        return accountId + hex(Math.max(0, at.getEpochSecond()), 16) + hex(at.getNano(), 8) + "g";
+    }
+
+    /**
+     * @return timeline key less than keys of all account operations created at or after the time
+     */
+    static String timelineLowerBound(final String accountId, final Instant at) {
+        return accountId + hex(Math.max(0, at.getEpochSecond()), 16) + hex(at.getNano(), 8);
+    }
+
+    private static String hex(final long value, final int width) {
+        final String digits = Long.toHexString(value);
+        final StringBuilder padded = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.config.SessionConfiguration;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.context.annotation.Requires;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Accounts in ACCOUNT table and operation log in ACCOUNT_OPERATION table of relational database
+ */
+@Singleton
+@Requires(property = "repository.backend", value = "mybatis", defaultValue = "mybatis")
+@RequiredArgsConstructor
+public class MybatisAccountRepository implements AccountRepository, OperationLog {
+    // SQL states of lock wait timeout and deadlock victim
+    private static final String LOCK_TIMEOUT_STATE = "HYT00";
+    private static final String DEADLOCK_STATE = "40001";
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final SessionConfiguration sessionConfiguration;
+
+    @Override
+    public AccountTransaction begin() {
+        return new Transaction(sqlSessionFactory.openSession(sessionConfiguration.getExecutorType(), false));
+    }
+
+    /**
+     * H2 1.4.200 may restore an older row version when an update of a row read without lock races with
+     * a committing transaction and is rolled back, so concurrent deposits could silently overwrite each other
+     */
+    @Override
+    public boolean requiresLockOnRead() {
+        return true;
+    }
+
+    @Override
+    public Optional<Account> findById(final String id) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return Optional.ofNullable(sqlSession.getMapper(AccountMapper.class).findById(id));
+        }
+    }
+
+    @Override
+    public List<Account> findPage(@Nullable final String afterId, final int limit) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(AccountMapper.class).findPage(afterId, limit);
+        }
+    }
+
+    @Override
+    public List<Account> searchAccounts(final AccountSearchCriteria criteria) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(AccountMapper.class).searchAccounts(criteria);
+        }
+    }
+
+    @Override
+    public List<BalanceChange> findAfter(final long afterId, final int limit) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(OperationMapper.class).findAfter(afterId, limit);
+        }
+    }
+
+    @Override
+    public void forEachSince(final Instant since, final Consumer<BalanceChange> consumer) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            sqlSession.getMapper(OperationMapper.class)
+                    .findSince(since, context -> consumer.accept(context.getResultObject()));
+        }
+    }
+
+    @Override
+    public Optional<BalanceChange> findLatest(final String accountId, final Instant at) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return Optional.ofNullable(sqlSession.getMapper(OperationMapper.class).findLatest(accountId, at));
+        }
+    }
+
+    @Override
+    public List<BalanceChange> findStatement(final String accountId, final Instant from, final Instant to,
+                                             final int limit) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(OperationMapper.class).findStatement(accountId, from, to, limit);
+        }
+    }
+
+    @Override
+    public long loadCursor(final String consumer) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final OperationMapper mapper = sqlSession.getMapper(OperationMapper.class);
+            final Long stored = mapper.findCursor(consumer);
+            if (stored != null) {
+                return stored;
+            }
+            mapper.createCursor(consumer, 0);
+            return 0;
+        }
+    }
+
+    @Override
+    public void saveCursor(final String consumer, final long operationId) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            sqlSession.getMapper(OperationMapper.class).updateCursor(consumer, operationId);
+        }
+    }
+
+    /**
+     * Convert lock wait timeout or deadlock reported by database into retryable error
+     */
+    private static <T> T translateLockFailure(final Supplier<T> statement) {
+        try {
+            return statement.get();
+        } catch (PersistenceException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLException) {
+                    final String state = ((SQLException) cause).getSQLState();
+                    if (LOCK_TIMEOUT_STATE.equals(state) || DEADLOCK_STATE.equals(state)) {
+                        throw new AccountLockTimeoutException("Account lock could not be acquired", e);
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Transaction implements AccountTransaction {
+        private final SqlSession sqlSession;
+
+        @Override
+        public Account find(final String id, final boolean forUpdate) {
+            final AccountMapper mapper = sqlSession.getMapper(AccountMapper.class);
+            return translateLockFailure(() -> forUpdate ? mapper.findByIdForUpdate(id) : mapper.findById(id));
+        }
+
+        @Override
+        public void create(final Account account) {
+            sqlSession.getMapper(AccountMapper.class).createAccount(account);
+        }
+
+        @Override
+        public boolean updateBalance(final Account account, final long balance) {
+            final AccountMapper mapper = sqlSession.getMapper(AccountMapper.class);
+            int updated = translateLockFailure(() -> mapper.updateBalance(account.getId(), balance, account.getVersion()));
+            if (updated == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+                // BATCH executor defers the update, result of compare-and-set is known only after flush
+                updated = translateLockFailure(this::flushedUpdateCount);
+            }
+            return updated != 0;
+        }
+
+        @Override
+        public void logOperation(final BalanceChange change) {
+            sqlSession.getMapper(OperationMapper.class).insertOperation(change);
+        }
+
+        @Override
+        public void commit() {
+            translateLockFailure(() -> {
+                sqlSession.commit();
+                return null;
+            });
+        }
+
+        @Override
+        public void close() {
+            sqlSession.close();
+        }
+
+        private int flushedUpdateCount() {
+            final List<BatchResult> results = sqlSession.flushStatements();
+            if (results.isEmpty()) {
+                return 0;
+            }
+            final int[] counts = results.get(results.size() - 1).getUpdateCounts();
+            return counts.length == 0 ? 0 : counts[counts.length - 1];
+        }
+    }
+}
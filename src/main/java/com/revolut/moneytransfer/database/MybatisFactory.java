@@ -1,5 +1,7 @@
 package com.revolut.moneytransfer.database;
 
+import com.revolut.moneytransfer.config.SessionConfiguration;
+import com.revolut.moneytransfer.startup.StartupTimings;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
 import lombok.RequiredArgsConstructor;
@@ -16,15 +18,29 @@ import javax.sql.DataSource;
 @RequiredArgsConstructor
 public class MybatisFactory {
     private final DataSource dataSource;
+    private final SessionConfiguration sessionConfiguration;
+    private final StartupTimings startupTimings;
 
     @Bean
     SqlSessionFactory sqlSessionFactory() {
+        final long startedAt = System.nanoTime();
         TransactionFactory transactionFactory = new JdbcTransactionFactory();
 
         Environment environment = new Environment("dev", transactionFactory, dataSource);
         Configuration configuration = new Configuration(environment);
-        configuration.addMappers("com.revolut.moneytransfer.database");
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setDefaultFetchSize(sessionConfiguration.getDefaultFetchSize());
+        configuration.setLocalCacheScope(sessionConfiguration.getLocalCacheScope());
+        configuration.getTypeAliasRegistry().registerAlias("uuid", UuidTypeHandler.class);
+        configuration.getTypeAliasRegistry().registerAlias("currency", CurrencyCodeTypeHandler.class);
+        // explicit registration instead of package scan, which walks classpath on every start;
+        // AccountMapper goes first, its result map is referenced by SnapshotMapper
+        configuration.addMapper(AccountMapper.class);
+        configuration.addMapper(OperationMapper.class);
+        configuration.addMapper(SnapshotMapper.class);
 
-        return new SqlSessionFactoryBuilder().build(configuration);
+        final SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        startupTimings.nestedPhase("mybatis", startedAt);
+        return sqlSessionFactory;
     }
 }
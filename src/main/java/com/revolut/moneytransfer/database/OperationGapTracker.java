@@ -0,0 +1,66 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Finds operations of a consumer which could be consumed without skipping uncommitted ones.
+ * <p>
+ * Operation ids are assigned on insert, but transactions could commit out of id order, so a gap in ids
+ * may be a transaction not committed yet. Consumer stops before such gap until it has seen the gap for
+ * gap timeout, after that the gap is considered as rolled back transaction and skipped with a warning.
+ * Age of the gap is measured from the first time consumer saw it, not from creation time of operations
+ * after it, so a transaction committing late (lock waits, batch inserts, GC pauses) is not skipped
+ * unless it is still missing gap timeout after the later ones were visible.
+ * <p>
+ * Consumer stops at the first gap, so only that gap is tracked. Not thread-safe, use an instance per consumer.
+ */
+public class OperationGapTracker {
+    private static final Logger LOG = LoggerFactory.getLogger(OperationGapTracker.class);
+
+    private final String consumer;
+    private final Duration gapTimeout;
+
+    // the first missing id of tracked gap, 0 if there is none
+    private long gapId;
+    private Instant gapSeenAt;
+    // last id of skipped gaps, they are not waited for again if consumer reads them again after failure
+    private long skippedUpTo;
+
+    public OperationGapTracker(final String consumer, final Duration gapTimeout) {
+        this.consumer = consumer;
+        this.gapTimeout = gapTimeout;
+    }
+
+    /**
+     * @param operations result of {@link OperationLog#findAfter} for the cursor
+     * @param now current time
+     * @return number of leading operations which could be consumed without skipping uncommitted ones
+     */
+    public int committedPrefix(final List<BalanceChange> operations, final long cursor, final Instant now) {
+        long expected = cursor + 1;
+        for (int i = 0; i < operations.size(); i++) {
+            final BalanceChange operation = operations.get(i);
+            if (operation.getId() != expected && operation.getId() - 1 > skippedUpTo) {
+                if (gapId != expected) {
+                    gapId = expected;
+                    gapSeenAt = now;
+                }
+                if (now.isBefore(gapSeenAt.plus(gapTimeout))) {
+                    return i;
+                }
+                LOG.warn("Consumer {} skips operations {}..{} missing for {}, treated as rolled back",
+                        consumer, expected, operation.getId() - 1, gapTimeout);
+                gapId = 0;
+                skippedUpTo = operation.getId() - 1;
+            }
+            expected = operation.getId() + 1;
+        }
+        return operations.size();
+    }
+}
@@ -0,0 +1,42 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read side of operation log and positions of its consumers
+ */
+public interface OperationLog {
+
+    /**
+     * @return committed changes with id greater than afterId ordered by id
+     */
+    List<BalanceChange> findAfter(long afterId, int limit);
+
+    /**
+     * Pass committed changes created at or after since to consumer, in no particular order
+     */
+    void forEachSince(Instant since, Consumer<BalanceChange> consumer);
+
+    /**
+     * @return the last committed change of account created at or before the time, its balance is the balance
+     * of account at that time; empty if account had no changes by then
+     */
+    Optional<BalanceChange> findLatest(String accountId, Instant at);
+
+    /**
+     * @return committed changes of account created within [from, to) ordered by creation time and id
+     */
+    List<BalanceChange> findStatement(String accountId, Instant from, Instant to, int limit);
+
+    /**
+     * @return last operation id processed by consumer, 0 for a new consumer
+     */
+    long loadCursor(String consumer);
+
+    void saveCursor(String consumer, long operationId);
+}
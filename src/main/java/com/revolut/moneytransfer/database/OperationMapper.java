@@ -0,0 +1,81 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OperationMapper {
+    @Insert("insert into account_operation (account_id, type, amount, balance, version, created_at)\n" +
+            "values (#{change.accountId,typeHandler=uuid}, #{change.type}, #{change.amount}, #{change.balance},\n" +
+            "        #{change.version}, #{change.createdAt})")
+    @Options(useGeneratedKeys = true, keyProperty = "change.id", keyColumn = "id")
+    void insertOperation(@Param("change") BalanceChange change);
+
+    // operation replicated from leader keeps its id
+    @Insert("insert into account_operation (id, account_id, type, amount, balance, version, created_at)\n" +
+            "values (#{change.id}, #{change.accountId,typeHandler=uuid}, #{change.type}, #{change.amount},\n" +
+            "        #{change.balance}, #{change.version}, #{change.createdAt})")
+    void insertReplicatedOperation(@Param("change") BalanceChange change);
+
+    @Select("select coalesce(max(id), 0) from account_operation")
+    long findLastId();
+
+    // ids of replicated operations are inserted explicitly, generator continues after them once follower takes over
+    @Update("alter table account_operation alter column id restart with ${nextId}")
+    void restartIds(@Param("nextId") long nextId);
+
+    @Select("select * from account_operation where id > #{afterId} order by id limit #{limit}")
+    List<BalanceChange> findAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Select("select * from account_operation where created_at >= #{since}")
+    @ResultType(BalanceChange.class)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY)
+    void findSince(@Param("since") Instant since, ResultHandler<BalanceChange> handler);
+
+    // descending index, the latest row is the first one of index range
+    @Select("select * from account_operation\n" +
+            "where account_id = #{accountId,typeHandler=uuid} and created_at <= #{at}\n" +
+            "order by created_at desc, id desc limit 1")
+    BalanceChange findLatest(@Param("accountId") String accountId, @Param("at") Instant at);
+
+    @Select("select * from account_operation\n" +
+            "where account_id = #{accountId,typeHandler=uuid} and created_at >= #{from} and created_at < #{to}\n" +
+            "order by created_at, id limit #{limit}")
+    List<BalanceChange> findStatement(@Param("accountId") String accountId, @Param("from") Instant from,
+                                      @Param("to") Instant to, @Param("limit") int limit);
+
+    @Select("select max(id) from account_operation where created_at < #{before}")
+    Long findLastIdBefore(@Param("before") Instant before);
+
+    @Select("select * from account_operation where id > #{afterId} and id <= #{upToId} order by id limit #{limit}")
+    List<BalanceChange> findRange(@Param("afterId") long afterId, @Param("upToId") long upToId,
+                                  @Param("limit") int limit);
+
+    @Delete("delete from account_operation where id > #{afterId} and id <= #{upToId}")
+    int deleteRange(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    @Select("select last_operation_id from outbox_cursor where relay = #{relay}")
+    Long findCursor(String relay);
+
+    @Insert("insert into outbox_cursor (relay, last_operation_id) values (#{relay}, #{operationId})")
+    void createCursor(@Param("relay") String relay, @Param("operationId") long operationId);
+
+    @Update("update outbox_cursor set last_operation_id = #{operationId} where relay = #{relay}")
+    void updateCursor(@Param("relay") String relay, @Param("operationId") long operationId);
+
+    /**
+     * @return the least position of consumers with name starting with prefix, null if there are none
+     */
+    @Select("select min(last_operation_id) from outbox_cursor where relay like concat(#{prefix}, '%')")
+    Long findMinCursor(String prefix);
+}
@@ -0,0 +1,122 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public interface SnapshotMapper {
+
+    /**
+     * Lock the next chunk of accounts of id range in id order
+     * @param fromId inclusive lower bound, null for the start of id space
+     * @param afterId id of the last account of the previous chunk, null for the first chunk
+     * @param toId exclusive upper bound, null for the end of id space
+     */
+    @Select({"<script>",
+            "select id from account",
+            "<where>",
+            "  <if test='fromId != null'>id &gt;= #{fromId,typeHandler=uuid}</if>",
+            "  <if test='afterId != null'>and id &gt; #{afterId,typeHandler=uuid}</if>",
+            "  <if test='toId != null'>and id &lt; #{toId,typeHandler=uuid}</if>",
+            "</where>",
+            "order by id limit #{limit} for update",
+            "</script>"})
+    @ResultType(String.class)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY)
+    void lockChunk(@Param("fromId") String fromId, @Param("afterId") String afterId, @Param("toId") String toId,
+                   @Param("limit") int limit, ResultHandler<String> handler);
+
+    /**
+     * Read accounts of a chunk locked by {@link #lockChunk}
+     * @param lastId inclusive upper bound, the last locked id
+     */
+    @Select({"<script>",
+            "select * from account",
+            "where id &lt;= #{lastId,typeHandler=uuid}",
+            "  <if test='fromId != null'>and id &gt;= #{fromId,typeHandler=uuid}</if>",
+            "  <if test='afterId != null'>and id &gt; #{afterId,typeHandler=uuid}</if>",
+            "order by id",
+            "</script>"})
+    @ResultMap("com.revolut.moneytransfer.database.AccountMapper.account")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY)
+    void findChunk(@Param("fromId") String fromId, @Param("afterId") String afterId, @Param("lastId") String lastId,
+                   ResultHandler<Account> handler);
+
+    /**
+     * Operations of a chunk created at or after the given time, which are not part of end-of-day balance
+     * @param lastId inclusive upper bound, the last locked id
+     */
+    @Select({"<script>",
+            "select * from account_operation",
+            "where created_at &gt;= #{since} and account_id &lt;= #{lastId,typeHandler=uuid}",
+            "  <if test='fromId != null'>and account_id &gt;= #{fromId,typeHandler=uuid}</if>",
+            "  <if test='afterId != null'>and account_id &gt; #{afterId,typeHandler=uuid}</if>",
+            "</script>"})
+    @ResultType(BalanceChange.class)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY)
+    void findChangesSince(@Param("fromId") String fromId, @Param("afterId") String afterId,
+                          @Param("lastId") String lastId, @Param("since") Instant since,
+                          ResultHandler<BalanceChange> handler);
+
+    @Select("select count(*) from snapshot_progress\n" +
+            "where snapshot_date = #{date} and partition_no = #{partition} and completed_at is not null")
+    boolean isPartitionCompleted(@Param("date") LocalDate date, @Param("partition") int partition);
+
+    /**
+     * @return id of the last account of committed chunks of partition which is not completed, null if none
+     */
+    @Select("select last_account_id from snapshot_progress\n" +
+            "where snapshot_date = #{date} and partition_no = #{partition}")
+    String findLastAccountId(@Param("date") LocalDate date, @Param("partition") int partition);
+
+    /**
+     * Record the first chunk of partition
+     */
+    @Insert("insert into snapshot_progress\n" +
+            "(snapshot_date, partition_no, account_count, last_account_id, completed_at)\n" +
+            "values (#{date}, #{partition}, #{accountCount}, #{lastAccountId,typeHandler=uuid},\n" +
+            "case when #{completed} then current_timestamp end)")
+    void insertProgress(@Param("date") LocalDate date,
+                        @Param("partition") int partition,
+                        @Param("accountCount") int accountCount,
+                        @Param("lastAccountId") String lastAccountId,
+                        @Param("completed") boolean completed);
+
+    /**
+     * Record another chunk of partition, account count is added up
+     */
+    @Update("update snapshot_progress set account_count = account_count + #{accountCount},\n" +
+            "last_account_id = #{lastAccountId,typeHandler=uuid},\n" +
+            "completed_at = case when #{completed} then current_timestamp end\n" +
+            "where snapshot_date = #{date} and partition_no = #{partition} and completed_at is null")
+    void updateProgress(@Param("date") LocalDate date,
+                        @Param("partition") int partition,
+                        @Param("accountCount") int accountCount,
+                        @Param("lastAccountId") String lastAccountId,
+                        @Param("completed") boolean completed);
+
+    @Insert("insert into balance_snapshot (snapshot_date, account_id, balance, interest, fee)\n" +
+            "values (#{date}, #{accountId,typeHandler=uuid}, #{balance}, #{interest}, #{fee})")
+    void insertSnapshot(@Param("date") LocalDate date,
+                        @Param("accountId") String accountId,
+                        @Param("balance") long balance,
+                        @Param("interest") long interest,
+                        @Param("fee") long fee);
+
+    /**
+     * @return end-of-day balance of account before accruals, null if there is no snapshot
+     */
+    @Select("select balance from balance_snapshot where snapshot_date = #{date} and account_id = #{accountId,typeHandler=uuid}")
+    Long findSnapshotBalance(@Param("date") LocalDate date, @Param("accountId") String accountId);
+}
@@ -0,0 +1,56 @@
+package com.revolut.moneytransfer.database;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Maps String account id to native UUID column, alias "uuid".
+ * Strings which are not UUIDs can not be ids of existing accounts, they are bound as NULL matching no rows.
+ */
+public class UuidTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(final PreparedStatement ps, final int i, final String parameter,
+                                    final JdbcType jdbcType) throws SQLException {
+        final UUID uuid = parse(parameter);
+        if (uuid == null) {
+            ps.setNull(i, Types.OTHER);
+        } else {
+            ps.setObject(i, uuid);
+        }
+    }
+
+    @Override
+    public String getNullableResult(final ResultSet rs, final String columnName) throws SQLException {
+        return toString(rs.getObject(columnName));
+    }
+
+    @Override
+    public String getNullableResult(final ResultSet rs, final int columnIndex) throws SQLException {
+        return toString(rs.getObject(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(final CallableStatement cs, final int columnIndex) throws SQLException {
+        return toString(cs.getObject(columnIndex));
+    }
+
+    private static UUID parse(final String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String toString(final Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,7 @@
+package com.revolut.moneytransfer.exception;
+
+public class AccountConcurrentModificationException extends RuntimeException {
+    public AccountConcurrentModificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.revolut.moneytransfer.exception;
+
+public class AccountLockTimeoutException extends RuntimeException {
+    public AccountLockTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
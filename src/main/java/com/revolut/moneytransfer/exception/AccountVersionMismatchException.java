@@ -0,0 +1,7 @@
+package com.revolut.moneytransfer.exception;
+
+public class AccountVersionMismatchException extends RuntimeException {
+    public AccountVersionMismatchException(String message) {
+        super(message);
+    }
+}
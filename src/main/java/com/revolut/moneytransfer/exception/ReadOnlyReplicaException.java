@@ -0,0 +1,7 @@
+package com.revolut.moneytransfer.exception;
+
+public class ReadOnlyReplicaException extends RuntimeException {
+    public ReadOnlyReplicaException(String message) {
+        super(message);
+    }
+}
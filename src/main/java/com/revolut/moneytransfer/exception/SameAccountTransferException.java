@@ -0,0 +1,7 @@
+package com.revolut.moneytransfer.exception;
+
+public class SameAccountTransferException extends RuntimeException {
+    public SameAccountTransferException(String message) {
+        super(message);
+    }
+}
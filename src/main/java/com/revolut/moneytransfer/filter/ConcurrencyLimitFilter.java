@@ -0,0 +1,57 @@
+package com.revolut.moneytransfer.filter;
+
+import com.revolut.moneytransfer.concurrencylimit.AdaptiveLimit;
+import com.revolut.moneytransfer.concurrencylimit.ConcurrencyLimiter;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+
+/**
+ * Rejects account API requests above adaptive concurrency limit of their bulkhead with 503 code,
+ * runs after {@link RateLimitFilter}
+ */
+@Filter("/account/**")
+@Requires(property = "concurrency-limit.enabled", notEquals = "false")
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements HttpServerFilter {
+    private final ConcurrencyLimiter limiter;
+
+    @Override
+    public int getOrder() {
+        return 1;
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(final HttpRequest<?> request, final ServerFilterChain chain) {
+        final HttpMethod method = request.getMethod();
+        final AdaptiveLimit bulkhead = limiter.bulkhead(method != HttpMethod.GET && method != HttpMethod.HEAD);
+        if (!bulkhead.tryAcquire()) {
+            return Publishers.<MutableHttpResponse<?>>just(HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds())));
+        }
+        final long start = System.nanoTime();
+        final boolean[] overloaded = new boolean[1];
+        return Flowable.fromPublisher(chain.proceed(request))
+                .doOnNext(response -> overloaded[0] = isOverload(response.getStatus()))
+                .doOnError(e -> overloaded[0] = true)
+                .doFinally(() -> bulkhead.release(System.nanoTime() - start, overloaded[0]));
+    }
+
+    /**
+     * Lock timeouts (503) and exhausted optimistic retries (409) mean the database is the bottleneck
+     */
+    private static boolean isOverload(final HttpStatus status) {
+        return status == HttpStatus.CONFLICT || status.getCode() >= 500;
+    }
+}
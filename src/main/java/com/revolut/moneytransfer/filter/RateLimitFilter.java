@@ -0,0 +1,69 @@
+package com.revolut.moneytransfer.filter;
+
+import com.revolut.moneytransfer.config.RateLimitConfiguration;
+import com.revolut.moneytransfer.ratelimit.RateLimiter;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+
+/**
+ * Rejects account API requests exceeding client or account quota with 429 code
+ */
+@Filter("/account/**")
+@Requires(property = "rate-limit.enabled", notEquals = "false")
+@RequiredArgsConstructor
+public class RateLimitFilter implements HttpServerFilter {
+    private static final String ACCOUNT_PATH = "/account/";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitConfiguration configuration;
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(final HttpRequest<?> request, final ServerFilterChain chain) {
+        final String clientKey = clientKey(request);
+        if (!rateLimiter.tryAcquireClient(clientKey)) {
+            return reject(clientKey, null);
+        }
+
+        // Only balance operations are counted against account quota, source account pays for transfer
+        final String accountId = request.getMethod() == HttpMethod.POST ? accountId(request.getPath()) : null;
+        if (accountId != null && !rateLimiter.tryAcquireAccount(accountId)) {
+            return reject(clientKey, accountId);
+        }
+        return chain.proceed(request);
+    }
+
+    private Publisher<MutableHttpResponse<?>> reject(final String clientKey, final String accountId) {
+        return Publishers.<MutableHttpResponse<?>>just(HttpResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rateLimiter.retryAfterSeconds(clientKey, accountId))));
+    }
+
+    private String clientKey(final HttpRequest<?> request) {
+        final String apiKey = request.getHeaders().get(configuration.getApiKeyHeader());
+        if (apiKey != null) {
+            return apiKey;
+        }
+        return request.getRemoteAddress().getHostString();
+    }
+
+    /**
+     * @return account id of /account/{id}/... path, null for other paths
+     */
+    private static String accountId(final String path) {
+        if (!path.startsWith(ACCOUNT_PATH)) {
+            return null;
+        }
+        final int end = path.indexOf('/', ACCOUNT_PATH.length());
+        return end > ACCOUNT_PATH.length() ? path.substring(ACCOUNT_PATH.length(), end) : null;
+    }
+}
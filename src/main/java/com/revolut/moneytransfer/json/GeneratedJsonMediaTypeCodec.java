@@ -0,0 +1,76 @@
+package com.revolut.moneytransfer.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ByteBufferFactory;
+import io.micronaut.http.codec.CodecConfiguration;
+import io.micronaut.http.codec.CodecException;
+import io.micronaut.jackson.codec.JsonMediaTypeCodec;
+import io.micronaut.runtime.ApplicationConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * JSON codec using generated {@link JsonCodec}s for models which have one, encoding straight into the Netty buffer
+ * of the response. Decoding and other types go through Jackson as before: server binds request bodies from
+ * the tree its JSON content processor has built, not through this codec.
+ */
+@Singleton
+@Named(JsonMediaTypeCodec.CONFIGURATION_QUALIFIER)
+@Replaces(JsonMediaTypeCodec.class)
+public class GeneratedJsonMediaTypeCodec extends JsonMediaTypeCodec {
+
+    public GeneratedJsonMediaTypeCodec(final ObjectMapper objectMapper,
+                                       final ApplicationConfiguration applicationConfiguration,
+                                       @Named(CONFIGURATION_QUALIFIER) @Nullable final CodecConfiguration codecConfiguration) {
+        super(objectMapper, applicationConfiguration, codecConfiguration);
+    }
+
+    // raw types as declared by MediaTypeCodec of this Micronaut version
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T> ByteBuffer encode(final T object, final ByteBufferFactory allocator) throws CodecException {
+        final JsonCodec<T> codec = codecOf(object);
+        if (codec == null || !(allocator.getNativeAllocator() instanceof ByteBufAllocator)) {
+            return super.encode(object, allocator);
+        }
+        final ByteBuffer buffer = allocator.buffer();
+        final ByteBuf nativeBuffer = (ByteBuf) buffer.asNativeBuffer();
+        try {
+            codec.write(object, new JsonWriter(nativeBuffer));
+        } catch (RuntimeException e) {
+            nativeBuffer.release();
+            throw new CodecException("Error encoding object [" + object + "] to JSON: " + e.getMessage(), e);
+        }
+        return buffer;
+    }
+
+    @Override
+    public <T> byte[] encode(final T object) throws CodecException {
+        final JsonCodec<T> codec = codecOf(object);
+        if (codec == null) {
+            return super.encode(object);
+        }
+        final ByteBuf buffer = Unpooled.buffer();
+        try {
+            codec.write(object, new JsonWriter(buffer));
+            return ByteBufUtil.getBytes(buffer);
+        } catch (RuntimeException e) {
+            throw new CodecException("Error encoding object [" + object + "] to JSON: " + e.getMessage(), e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> JsonCodec<T> codecOf(final T object) {
+        return object == null ? null : (JsonCodec<T>) JsonCodecs.find(object.getClass());
+    }
+}
@@ -0,0 +1,14 @@
+package com.revolut.moneytransfer.json;
+
+/**
+ * JSON codec of a single model, implementations are generated at compile time for models annotated
+ * with {@link GenerateJsonCodec} and found through {@link JsonCodecs}
+ *
+ * @param <T> model type
+ */
+public interface JsonCodec<T> {
+
+    Class<T> type();
+
+    void write(T value, JsonWriter writer);
+}
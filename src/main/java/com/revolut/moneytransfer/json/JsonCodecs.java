@@ -0,0 +1,34 @@
+package com.revolut.moneytransfer.json;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Codecs generated for models of the application, listed by the annotation processor in
+ * {@code META-INF/services/com.revolut.moneytransfer.json.JsonCodec}
+ */
+public final class JsonCodecs {
+
+    private static final Map<Class<?>, JsonCodec<?>> CODECS = load();
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * @return codec of exactly the given type, {@code null} if it has no generated codec
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> find(final Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+
+    private static Map<Class<?>, JsonCodec<?>> load() {
+        final Map<Class<?>, JsonCodec<?>> codecs = new HashMap<>();
+        for (JsonCodec<?> codec : ServiceLoader.load(JsonCodec.class, JsonCodecs.class.getClassLoader())) {
+            codecs.put(codec.type(), codec);
+        }
+        return Collections.unmodifiableMap(codecs);
+    }
+}
@@ -0,0 +1,187 @@
+package com.revolut.moneytransfer.json;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes flat JSON objects straight into a Netty buffer: field names are pre-encoded, numbers are written digit by
+ * digit and strings are UTF-8 encoded char by char, so no intermediate strings or arrays are created.
+ * Null and empty values are skipped, matching serialization inclusion of application object mapper.
+ * <p>
+ * Not thread-safe, use an instance per thread or per message.
+ */
+public final class JsonWriter {
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private final byte[] digits = new byte[20];
+    private ByteBuf buffer;
+    private boolean firstField;
+
+    public JsonWriter(final ByteBuf buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Encodes field name once, for constants of generated codecs
+     */
+    public static byte[] name(final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                throw new IllegalArgumentException("Field name must be printable ASCII without quotes: " + name);
+            }
+        }
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Continues writing into another buffer, so the writer can be reused
+     */
+    public void reset(final ByteBuf buffer) {
+        this.buffer = buffer;
+        this.firstField = false;
+    }
+
+    public ByteBuf buffer() {
+        return buffer;
+    }
+
+    public void beginObject() {
+        buffer.writeByte('{');
+        firstField = true;
+    }
+
+    public void endObject() {
+        buffer.writeByte('}');
+        firstField = false;
+    }
+
+    public void field(final byte[] name, final String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        writeName(name);
+        writeString(value);
+    }
+
+    public void field(final byte[] name, final long value) {
+        writeName(name);
+        writeLong(value);
+    }
+
+    public void field(final byte[] name, final Long value) {
+        if (value != null) {
+            field(name, value.longValue());
+        }
+    }
+
+    public void field(final byte[] name, final Integer value) {
+        if (value != null) {
+            field(name, value.longValue());
+        }
+    }
+
+    public void field(final byte[] name, final boolean value) {
+        writeName(name);
+        buffer.writeBytes(value ? TRUE : FALSE);
+    }
+
+    public void field(final byte[] name, final Boolean value) {
+        if (value != null) {
+            field(name, value.booleanValue());
+        }
+    }
+
+    private void writeName(final byte[] name) {
+        if (!firstField) {
+            buffer.writeByte(',');
+        }
+        firstField = false;
+        buffer.writeByte('"');
+        buffer.writeBytes(name);
+        buffer.writeByte('"');
+        buffer.writeByte(':');
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.writeBytes(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            buffer.writeByte('-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.writeBytes(digits, position, digits.length - position);
+    }
+
+    private void writeString(final String value) {
+        buffer.writeByte('"');
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAscii(c);
+            } else if (c < 0x800) {
+                buffer.writeByte(0xC0 | (c >> 6));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.writeByte(0xF0 | (codePoint >> 18));
+                buffer.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate is not encodable in UTF-8
+                buffer.writeByte('?');
+            } else {
+                buffer.writeByte(0xE0 | (c >> 12));
+                buffer.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        buffer.writeByte('"');
+    }
+
+    private void writeAscii(final char c) {
+        switch (c) {
+            case '"':
+                buffer.writeByte('\\').writeByte('"');
+                return;
+            case '\\':
+                buffer.writeByte('\\').writeByte('\\');
+                return;
+            case '\n':
+                buffer.writeByte('\\').writeByte('n');
+                return;
+            case '\r':
+                buffer.writeByte('\\').writeByte('r');
+                return;
+            case '\t':
+                buffer.writeByte('\\').writeByte('t');
+                return;
+            case '\b':
+                buffer.writeByte('\\').writeByte('b');
+                return;
+            case '\f':
+                buffer.writeByte('\\').writeByte('f');
+                return;
+            default:
+                if (c < 0x20) {
+                    buffer.writeByte('\\').writeByte('u').writeByte('0').writeByte('0')
+                            .writeByte(HEX[c >> 4]).writeByte(HEX[c & 0xF]);
+                } else {
+                    buffer.writeByte(c);
+                }
+        }
+    }
+}
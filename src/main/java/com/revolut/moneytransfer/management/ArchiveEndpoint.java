@@ -0,0 +1,48 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.archive.ArchiveStore;
+import com.revolut.moneytransfer.archive.OperationArchiver;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operation archive, available on /archive
+ */
+@Endpoint(id = "archive", defaultSensitive = false)
+@Requires(beans = OperationArchiver.class)
+@RequiredArgsConstructor
+public class ArchiveEndpoint {
+    private final OperationArchiver archiver;
+    private final ArchiveStore archiveStore;
+
+    /**
+     * @return number of segments and archived operations
+     */
+    @Read
+    public Map<String, Object> stats() {
+        final Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("segments", archiveStore.getSegmentCount());
+        stats.put("operations", archiveStore.getArchivedOperations());
+        stats.put("lastArchivedId", archiveStore.getLastArchivedId());
+        return stats;
+    }
+
+    /**
+     * Archive operations now, regardless of archive.enabled
+     * @return number of archived operations
+     */
+    @Write
+    public Map<String, Object> run() throws IOException {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("archived", archiver.run());
+        result.putAll(stats());
+        return result;
+    }
+}
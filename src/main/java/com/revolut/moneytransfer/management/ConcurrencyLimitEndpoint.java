@@ -0,0 +1,38 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.concurrencylimit.AdaptiveLimit;
+import com.revolut.moneytransfer.concurrencylimit.ConcurrencyLimiter;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current limits of read and write bulkheads, available on /concurrencylimit
+ */
+@Endpoint(id = "concurrencylimit", defaultSensitive = false)
+@RequiredArgsConstructor
+public class ConcurrencyLimitEndpoint {
+    private final ConcurrencyLimiter limiter;
+
+    @Read
+    public Map<String, Object> statistics() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reads", statistics(limiter.getReads()));
+        result.put("writes", statistics(limiter.getWrites()));
+        return result;
+    }
+
+    private static Map<String, Object> statistics(final AdaptiveLimit bulkhead) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("limit", bulkhead.getLimit());
+        result.put("inFlight", bulkhead.getInFlight());
+        result.put("rejections", bulkhead.getRejections());
+        result.put("latencyMicros", TimeUnit.NANOSECONDS.toMicros(bulkhead.getLatencyNanos()));
+        result.put("baselineMicros", TimeUnit.NANOSECONDS.toMicros(bulkhead.getBaselineNanos()));
+        return result;
+    }
+}
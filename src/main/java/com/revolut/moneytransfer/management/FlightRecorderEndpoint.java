@@ -0,0 +1,64 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.profiling.FlightRecorderService;
+import io.micronaut.http.MediaType;
+import io.micronaut.management.endpoint.annotation.Delete;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Selector;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Flight recording of account operations, available on /flightrecorder:
+ * POST {"enabled": true|false} starts or stops it, GET /flightrecorder/recording.jfr downloads it,
+ * DELETE discards it
+ */
+@Endpoint(id = "flightrecorder", defaultSensitive = false)
+@RequiredArgsConstructor
+public class FlightRecorderEndpoint {
+    private static final String FILE_NAME = "recording.jfr";
+
+    private final FlightRecorderService recorder;
+
+    @Read
+    public Map<String, Object> status() {
+        return recorder.status();
+    }
+
+    @Write
+    public Map<String, Object> record(final boolean enabled) {
+        return enabled ? recorder.start() : recorder.stop();
+    }
+
+    /**
+     * @return recorded data in JFR format, 404 if there is no recording
+     */
+    @Read(produces = MediaType.APPLICATION_OCTET_STREAM)
+    public byte[] download(@Selector final String file) throws IOException {
+        if (!FILE_NAME.equals(file)) {
+            return null;
+        }
+        final Optional<Path> dump = recorder.dump();
+        if (!dump.isPresent()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(dump.get());
+        } finally {
+            Files.delete(dump.get());
+        }
+    }
+
+    @Delete
+    public Map<String, Object> discard() {
+        recorder.discard();
+        return recorder.status();
+    }
+}
@@ -0,0 +1,33 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.service.BalanceInvariantChecker;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Conservation-of-money check results, available on /invariants
+ */
+@Endpoint(id = "invariants", defaultSensitive = false)
+@RequiredArgsConstructor
+public class InvariantsEndpoint {
+    private final BalanceInvariantChecker invariantChecker;
+
+    /**
+     * @return report of the last finished pass, null if no pass has been finished yet
+     */
+    @Read
+    public BalanceInvariantChecker.Report lastReport() {
+        return invariantChecker.getLastReport().orElse(null);
+    }
+
+    /**
+     * Finish current pass immediately
+     * @return report of the pass
+     */
+    @Write
+    public BalanceInvariantChecker.Report check() {
+        return invariantChecker.runFullPass();
+    }
+}
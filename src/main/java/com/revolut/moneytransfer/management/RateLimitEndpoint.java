@@ -0,0 +1,28 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.ratelimit.RateLimiter;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limiter statistics, available on /ratelimit
+ */
+@Endpoint(id = "ratelimit", defaultSensitive = false)
+@RequiredArgsConstructor
+public class RateLimitEndpoint {
+    private final RateLimiter rateLimiter;
+
+    @Read
+    public Map<String, Object> statistics() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clientRejections", rateLimiter.getClientRejections());
+        result.put("accountRejections", rateLimiter.getAccountRejections());
+        result.put("trackedClients", rateLimiter.getTrackedClients());
+        result.put("trackedAccounts", rateLimiter.getTrackedAccounts());
+        return result;
+    }
+}
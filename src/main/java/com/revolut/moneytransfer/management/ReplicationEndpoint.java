@@ -0,0 +1,70 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.config.ReplicationConfiguration;
+import com.revolut.moneytransfer.replication.ReplicationBarrier;
+import com.revolut.moneytransfer.replication.ReplicationFollower;
+import com.revolut.moneytransfer.replication.ReplicationLeader;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replication state, available on /replication: followers of leader or position of follower.
+ * POST promotes follower, it stops following and accepts balance operations.
+ */
+@Endpoint(id = "replication", defaultSensitive = false)
+@RequiredArgsConstructor
+public class ReplicationEndpoint {
+    private final ReplicationConfiguration configuration;
+    private final ReplicationBarrier barrier;
+    private final ApplicationContext applicationContext;
+
+    @Read
+    public Map<String, Object> status() {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", configuration.getRole());
+        status.put("readOnly", barrier.isReadOnly());
+        applicationContext.findBean(ReplicationLeader.class).ifPresent(leader -> {
+            final List<Map<String, Object>> followers = new ArrayList<>();
+            for (ReplicationLeader.FollowerSession session : leader.getSessions()) {
+                final Map<String, Object> follower = new LinkedHashMap<>();
+                follower.put("name", session.getName());
+                follower.put("address", session.getAddress());
+                follower.put("connectedAt", session.getConnectedAt());
+                follower.put("acknowledgedId", session.getAcknowledgedId());
+                follower.put("lastAcknowledged", session.getLastAcknowledged());
+                followers.add(follower);
+            }
+            status.put("followers", followers);
+            status.put("ackTimeouts", barrier.getAckTimeouts());
+        });
+        applicationContext.findBean(ReplicationFollower.class).ifPresent(follower -> {
+            status.put("connected", follower.isConnected());
+            status.put("lastAppliedId", follower.getLastAppliedId());
+            status.put("lastContact", follower.getLastContact());
+            status.put("appliedOperations", follower.getAppliedOperations());
+        });
+        return status;
+    }
+
+    /**
+     * Promote follower to standalone node
+     * @return status after promotion, unchanged status if this node is not a follower
+     */
+    @Write
+    public Map<String, Object> promote() throws InterruptedException {
+        final Optional<ReplicationFollower> follower = applicationContext.findBean(ReplicationFollower.class);
+        if (follower.isPresent() && barrier.isReadOnly()) {
+            follower.get().promote();
+        }
+        return status();
+    }
+}
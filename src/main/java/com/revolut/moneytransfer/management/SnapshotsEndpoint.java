@@ -0,0 +1,61 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.config.SnapshotConfiguration;
+import com.revolut.moneytransfer.model.SnapshotReport;
+import com.revolut.moneytransfer.service.BalanceSnapshotJob;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.exceptions.HttpStatusException;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * End-of-day snapshot job, available on /snapshots
+ */
+@Endpoint(id = "snapshots", defaultSensitive = false)
+@Requires(beans = BalanceSnapshotJob.class)
+@RequiredArgsConstructor
+public class SnapshotsEndpoint {
+    private final BalanceSnapshotJob snapshotJob;
+    private final SnapshotConfiguration configuration;
+
+    /**
+     * @return report of the last run, null if the job has not run yet
+     */
+    @Read
+    public SnapshotReport lastReport() {
+        return snapshotJob.getLastReport().orElse(null);
+    }
+
+    /**
+     * Run the job now, completed partitions of the day are skipped. Forbidden unless snapshot.manual-run-enabled is set,
+     * as the run posts accruals.
+     * @param date ISO date of snapshot before today (UTC), yesterday if not set
+     * @return report of the run
+     */
+    @Write
+    public SnapshotReport run(@Nullable final String date) {
+        if (!configuration.isManualRunEnabled()) {
+            throw new HttpStatusException(HttpStatus.FORBIDDEN, "Manual snapshot runs are disabled");
+        }
+        final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        final LocalDate snapshotDate;
+        try {
+            snapshotDate = date == null ? today.minusDays(1) : LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Invalid date: " + date);
+        }
+        // the day must be over, otherwise its snapshot would miss the rest of the day
+        if (!snapshotDate.isBefore(today)) {
+            throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Snapshot date must be before " + today);
+        }
+        return snapshotJob.run(snapshotDate);
+    }
+}
@@ -0,0 +1,29 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.startup.StartupTimings;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Durations of startup phases in milliseconds, available on /startup
+ */
+@Endpoint(id = "startup", defaultSensitive = false)
+@RequiredArgsConstructor
+public class StartupEndpoint {
+    private final StartupTimings timings;
+
+    @Read
+    public Map<String, Long> phases() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Duration> phase : timings.getPhases().entrySet()) {
+            result.put(phase.getKey(), phase.getValue().toMillis());
+        }
+        result.put("total", timings.getTotal().toMillis());
+        return result;
+    }
+}
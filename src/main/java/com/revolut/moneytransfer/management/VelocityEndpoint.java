@@ -0,0 +1,63 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.velocity.VelocityLimiter;
+import com.revolut.moneytransfer.velocity.VelocityRule;
+import io.micronaut.management.endpoint.annotation.Delete;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import io.micronaut.management.endpoint.annotation.Write;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Velocity rules and rejection counters, available on /velocity
+ */
+@Endpoint(id = "velocity", defaultSensitive = false)
+@RequiredArgsConstructor
+public class VelocityEndpoint {
+    private final VelocityLimiter velocityLimiter;
+
+    @Read
+    public Map<String, Object> rules() {
+        final List<Map<String, Object>> rules = new ArrayList<>();
+        for (VelocityRule rule : velocityLimiter.getRules()) {
+            rules.add(describe(rule));
+        }
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rules", rules);
+        result.put("trackedAccounts", velocityLimiter.getTrackedAccounts());
+        return result;
+    }
+
+    /**
+     * Add rule or replace rule with the same name, takes effect on the next operation
+     * @param window duration of window, like 1h, rounded up to velocity.bucket
+     * @param maxCount max number of outgoing operations within window, 0 for no limit
+     * @param maxOutflow max sum of outgoing amounts within window, 0 for no limit
+     */
+    @Write
+    public Map<String, Object> putRule(final String name, final Duration window,
+                                       final long maxCount, final long maxOutflow) {
+        return describe(velocityLimiter.putRule(name, window, maxCount, maxOutflow));
+    }
+
+    @Delete
+    public boolean removeRule(final String name) {
+        return velocityLimiter.removeRule(name);
+    }
+
+    private static Map<String, Object> describe(final VelocityRule rule) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", rule.getName());
+        result.put("windowBuckets", rule.getWindowBuckets());
+        result.put("maxCount", rule.getMaxCount());
+        result.put("maxOutflow", rule.getMaxOutflow());
+        result.put("rejections", rule.getRejections());
+        return result;
+    }
+}
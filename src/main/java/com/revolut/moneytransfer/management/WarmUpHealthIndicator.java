@@ -0,0 +1,27 @@
+package com.revolut.moneytransfer.management;
+
+import com.revolut.moneytransfer.startup.JitWarmUp;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.management.health.indicator.HealthIndicator;
+import io.micronaut.management.health.indicator.HealthResult;
+import io.reactivex.Flowable;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Singleton;
+
+/**
+ * Keeps /health DOWN (503) while JIT warm-up is running, so that readiness probe
+ * routes traffic to the instance only when balance operations are compiled
+ */
+@Singleton
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+    private final JitWarmUp jitWarmUp;
+
+    @Override
+    public Publisher<HealthResult> getResult() {
+        return Flowable.just(HealthResult.builder("warmUp", jitWarmUp.isCompleted() ? HealthStatus.UP : HealthStatus.DOWN)
+                .build());
+    }
+}
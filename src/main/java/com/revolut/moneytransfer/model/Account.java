@@ -1,5 +1,7 @@
 package com.revolut.moneytransfer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.revolut.moneytransfer.json.GenerateJsonCodec;
 import io.micronaut.core.annotation.Introspected;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,6 +17,7 @@ import javax.validation.constraints.Size;
 @AllArgsConstructor
 @NoArgsConstructor
 @Introspected
+@GenerateJsonCodec
 public class Account {
     private String id;
 
@@ -25,6 +28,10 @@ public class Account {
     @Min(0)
     private long balance;
 
+    // Row version for optimistic locking, exposed to clients as ETag header
+    @JsonIgnore
+    private long version;
+
     // The only one currency supported
     private final String currency = "USD";
 }
@@ -0,0 +1,24 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Balance of account at a point in time
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Introspected
+public class AccountBalance {
+    private String accountId;
+    private Instant at;
+    private long balance;
+    private String currency;
+    // Last operation applied by that time, null if account had no operations
+    private Long operationId;
+}
@@ -0,0 +1,22 @@
+package com.revolut.moneytransfer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Introspected
+public class AccountPage {
+    // empty page is still an empty list, not a missing field
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    private List<Account> items;
+
+    // Cursor of the next page, null if this page is the last one
+    private String next;
+}
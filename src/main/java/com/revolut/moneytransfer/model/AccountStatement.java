@@ -0,0 +1,26 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Operations of account within [from, to) ordered by time, read from both operation log and archive
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Introspected
+public class AccountStatement {
+    private String accountId;
+    private Instant from;
+    private Instant to;
+    private List<BalanceChange> items;
+
+    // True if there are more operations in the range than returned
+    private boolean truncated;
+}
@@ -0,0 +1,30 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Balance change of one account, stored in operation log and published to downstream consumers
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Introspected
+public class BalanceChange {
+    // Sequence number of operation, increasing in order of insertion
+    private long id;
+    private String accountId;
+    private OperationType type;
+    // Signed change of balance
+    private long amount;
+    // Balance and version of account after the change
+    private long balance;
+    private long version;
+    private Instant createdAt;
+}
@@ -0,0 +1,21 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.Value;
+
+/**
+ * Result of conservation-of-money check for one currency
+ */
+@Value
+@Introspected
+public class CurrencyTotals {
+    String currency;
+    // Sum of deposits minus withdrawals recorded by application
+    long expected;
+    // Sum of account balances in database
+    long actual;
+
+    public long getDifference() {
+        return actual - expected;
+    }
+}
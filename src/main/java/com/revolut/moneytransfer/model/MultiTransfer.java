@@ -0,0 +1,26 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Transfers between several accounts applied atomically: all legs succeed or none
+ */
+@Data
+@Introspected
+public class MultiTransfer {
+    public static final int MAX_LEGS = 1000;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_LEGS)
+    private List<TransferLeg> legs;
+    @NotBlank
+    private String currency;
+}
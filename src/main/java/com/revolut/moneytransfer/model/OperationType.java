@@ -0,0 +1,14 @@
+package com.revolut.moneytransfer.model;
+
+public enum OperationType {
+    OPEN,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_OUT,
+    TRANSFER_IN,
+    // Return of transfer debit when credit of target account failed
+    TRANSFER_REFUND,
+    // Daily accruals posted by snapshot job
+    INTEREST,
+    FEE
+}
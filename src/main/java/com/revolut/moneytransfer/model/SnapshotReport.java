@@ -0,0 +1,27 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Result of snapshot job run
+ */
+@Value
+@Introspected
+public class SnapshotReport {
+    LocalDate date;
+    int partitions;
+    // Partitions completed by earlier runs
+    int skippedPartitions;
+    int failedPartitions;
+    long accounts;
+    Duration elapsed;
+
+    public long getAccountsPerSecond() {
+        final long millis = Math.max(1, elapsed.toMillis());
+        return accounts * 1000 / millis;
+    }
+}
@@ -0,0 +1,25 @@
+package com.revolut.moneytransfer.model;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+
+/**
+ * One payment of multi-leg transfer
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Introspected
+public class TransferLeg {
+    @NotBlank
+    private String sourceAccountId;
+    @NotBlank
+    private String targetAccountId;
+    @Min(0)
+    private long amount;
+}
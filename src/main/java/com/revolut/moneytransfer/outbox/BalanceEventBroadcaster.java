@@ -0,0 +1,42 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pushes relayed events to subscribed clients instead of making them poll accounts
+ */
+@Singleton
+public class BalanceEventBroadcaster implements EventSink {
+    // Events buffered for a slow subscriber before the oldest ones are dropped
+    private static final long SUBSCRIBER_BUFFER = 1024;
+
+    private final FlowableProcessor<BalanceChange> processor = PublishProcessor.<BalanceChange>create().toSerialized();
+
+    @Override
+    public void publish(final List<BalanceChange> batch) {
+        if (!processor.hasSubscribers()) {
+            return;
+        }
+        for (BalanceChange change : batch) {
+            processor.onNext(change);
+        }
+    }
+
+    /**
+     * @param accountIds accounts of interest
+     * @return stream of balance changes of given accounts
+     */
+    public Flowable<BalanceChange> subscribe(final Set<String> accountIds) {
+        return processor
+                .filter(change -> accountIds.contains(change.getAccountId()))
+                .onBackpressureBuffer(SUBSCRIBER_BUFFER, () -> { }, BackpressureOverflowStrategy.DROP_OLDEST);
+    }
+}
@@ -0,0 +1,19 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of balance change events. Delivery is at least once: the batch is published again
+ * if any sink fails, so consumers should deduplicate events by id.
+ */
+public interface EventSink {
+
+    /**
+     * @param batch events ordered by id
+     * @throws IOException if batch could not be delivered
+     */
+    void publish(List<BalanceChange> batch) throws IOException;
+}
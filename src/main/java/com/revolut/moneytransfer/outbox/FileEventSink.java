@@ -0,0 +1,46 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.config.OutboxConfiguration;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.context.annotation.Requires;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to file, one JSON object per line
+ */
+@Singleton
+@Requires(property = "outbox.sink", value = "file")
+public class FileEventSink implements EventSink {
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter writer;
+
+    public FileEventSink(final OutboxConfiguration configuration, final ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.writer = Files.newBufferedWriter(Paths.get(configuration.getFile()), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(final List<BalanceChange> batch) throws IOException {
+        for (BalanceChange change : batch) {
+            writer.write(objectMapper.writeValueAsString(change));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
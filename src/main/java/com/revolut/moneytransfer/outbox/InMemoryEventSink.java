@@ -0,0 +1,44 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.revolut.moneytransfer.config.OutboxConfiguration;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.context.annotation.Requires;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * In-process stand-in for a message broker: bounded queue polled by consumers
+ */
+@Singleton
+@Requires(property = "outbox.sink", value = "memory", defaultValue = "memory")
+public class InMemoryEventSink implements EventSink {
+    private final BlockingQueue<BalanceChange> queue;
+
+    public InMemoryEventSink(final OutboxConfiguration configuration) {
+        this.queue = new ArrayBlockingQueue<>(configuration.getMemoryCapacity());
+    }
+
+    @Override
+    public void publish(final List<BalanceChange> batch) {
+        for (BalanceChange change : batch) {
+            while (!queue.offer(change)) {
+                queue.poll();
+            }
+        }
+    }
+
+    /**
+     * Take published events
+     * @param maxEvents max number of events to take
+     * @return events in order of publishing
+     */
+    public List<BalanceChange> poll(final int maxEvents) {
+        final List<BalanceChange> result = new ArrayList<>();
+        queue.drainTo(result, maxEvents);
+        return result;
+    }
+}
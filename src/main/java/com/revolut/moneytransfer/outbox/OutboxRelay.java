@@ -0,0 +1,84 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.revolut.moneytransfer.config.OutboxConfiguration;
+import com.revolut.moneytransfer.database.OperationGapTracker;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publishes operation log to event sinks in batches.
+ * <p>
+ * Delivered position is stored in operation log consumer cursor after all sinks accepted the batch.
+ * Relay stops before a gap in operation ids until it has seen the gap for gap timeout, see
+ * {@link OperationGapTracker}.
+ */
+@Singleton
+public class OutboxRelay {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+    static final String RELAY_NAME = "outbox";
+
+    private final OperationLog operationLog;
+    private final OutboxConfiguration configuration;
+    private final List<EventSink> sinks;
+    private final OperationGapTracker gapTracker;
+
+    private Long cursor;
+
+    public OutboxRelay(final OperationLog operationLog,
+                       final OutboxConfiguration configuration,
+                       final List<EventSink> sinks) {
+        this.operationLog = operationLog;
+        this.configuration = configuration;
+        this.sinks = sinks;
+        this.gapTracker = new OperationGapTracker(RELAY_NAME, configuration.getGapTimeout());
+    }
+
+    @Scheduled(fixedDelay = "${outbox.poll-interval:50ms}")
+    public void scheduledRelay() {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        try {
+            while (relayBatch() == configuration.getBatchSize()) {
+                // drain backlog without waiting for the next tick
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to publish balance events, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publish the next batch of committed operations
+     * @return number of published operations
+     * @throws IOException if any sink failed, the batch will be published again
+     */
+    public synchronized int relayBatch() throws IOException {
+        if (cursor == null) {
+            cursor = operationLog.loadCursor(RELAY_NAME);
+        }
+
+        final List<BalanceChange> operations = operationLog.findAfter(cursor, configuration.getBatchSize());
+        final List<BalanceChange> batch = operations.subList(0,
+                gapTracker.committedPrefix(operations, cursor, Instant.now()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        for (EventSink sink : sinks) {
+            sink.publish(batch);
+        }
+
+        final long last = batch.get(batch.size() - 1).getId();
+        operationLog.saveCursor(RELAY_NAME, last);
+        cursor = last;
+        return batch.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.config.OutboxConfiguration;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.context.annotation.Requires;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Sends events over TCP connection, one JSON object per line.
+ * Connection is opened lazily and reopened on the next batch after failure.
+ */
+@Singleton
+@Requires(property = "outbox.sink", value = "socket")
+public class SocketEventSink implements EventSink {
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final OutboxConfiguration configuration;
+    private final ObjectMapper objectMapper;
+    private Socket socket;
+    private OutputStream output;
+
+    public SocketEventSink(final OutboxConfiguration configuration, final ObjectMapper objectMapper) {
+        this.configuration = configuration;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(final List<BalanceChange> batch) throws IOException {
+        try {
+            if (socket == null) {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(configuration.getSocketHost(), configuration.getSocketPort()),
+                        CONNECT_TIMEOUT_MILLIS);
+                output = new BufferedOutputStream(socket.getOutputStream());
+            }
+            for (BalanceChange change : batch) {
+                output.write(objectMapper.writeValueAsBytes(change));
+                output.write('\n');
+            }
+            output.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // connection is dropped anyway
+            }
+            socket = null;
+            output = null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.revolut.moneytransfer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Balance operation of {@link com.revolut.moneytransfer.service.AccountService}, from the call to its outcome,
+ * including waiting in mailbox or batch and retries
+ */
+@Name("com.revolut.moneytransfer.AccountOperation")
+@Label("Account Operation")
+@Category({"Money Transfer"})
+@StackTrace(false)
+class AccountOperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Account Hash")
+    @Description("Hash of account id, source account of transfer")
+    int accountHash;
+
+    @Label("Target Account Hash")
+    int targetAccountHash;
+
+    @Label("Amount")
+    long amount;
+
+    @Label("Outcome")
+    @Description("OK or simple name of exception")
+    String outcome;
+}
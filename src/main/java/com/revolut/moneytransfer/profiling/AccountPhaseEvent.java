@@ -0,0 +1,24 @@
+package com.revolut.moneytransfer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Step of balance operation transaction: session open, account lookup, balance update, log append or commit
+ */
+@Name("com.revolut.moneytransfer.AccountPhase")
+@Label("Account Transaction Phase")
+@Category({"Money Transfer"})
+@StackTrace(false)
+class AccountPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Account Hash")
+    int accountHash;
+
+    @Label("Outcome")
+    String outcome;
+}
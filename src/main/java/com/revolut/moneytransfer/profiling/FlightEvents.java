@@ -0,0 +1,107 @@
+package com.revolut.moneytransfer.profiling;
+
+import com.revolut.moneytransfer.database.AccountRepository;
+import com.revolut.moneytransfer.database.AccountTransaction;
+import jdk.jfr.EventType;
+
+import javax.annotation.Nullable;
+
+/**
+ * Java Flight Recorder events of balance operations.
+ * <p>
+ * Events are enabled by a recording (see {@link FlightRecorderService}), without one each call costs
+ * a check of a flag: operations run as is and transactions are not wrapped. Account ids are recorded
+ * as hashes only.
+ */
+public final class FlightEvents {
+    static final String OUTCOME_OK = "OK";
+    static final String PHASE_SESSION_OPEN = "session-open";
+    static final String PHASE_FIND = "find";
+    static final String PHASE_CREATE = "create";
+    static final String PHASE_UPDATE_BALANCE = "update-balance";
+    static final String PHASE_LOG_OPERATION = "log-operation";
+    static final String PHASE_COMMIT = "commit";
+
+    private static final EventType OPERATION_TYPE = EventType.getEventType(AccountOperationEvent.class);
+    private static final EventType PHASE_TYPE = EventType.getEventType(AccountPhaseEvent.class);
+
+    private FlightEvents() {
+    }
+
+    /**
+     * Run balance operation recording {@link AccountOperationEvent} if enabled
+     * @param operation name of operation
+     * @param accountId account or source account id, null if operation has several
+     * @param targetAccountId target account id of transfer
+     * @param amount signed amount
+     */
+    public static void recordOperation(final String operation, @Nullable final String accountId,
+                                       @Nullable final String targetAccountId, final long amount,
+                                       final Runnable body) {
+        if (!OPERATION_TYPE.isEnabled()) {
+            body.run();
+            return;
+        }
+        final AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        String outcome = OUTCOME_OK;
+        try {
+            body.run();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.accountHash = hash(accountId);
+                event.targetAccountHash = hash(targetAccountId);
+                event.amount = amount;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Start transaction of repository, recording {@link AccountPhaseEvent} of its steps if enabled
+     */
+    public static AccountTransaction begin(final AccountRepository repository) {
+        if (!PHASE_TYPE.isEnabled()) {
+            return repository.begin();
+        }
+        final AccountPhaseEvent event = new AccountPhaseEvent();
+        event.begin();
+        final AccountTransaction transaction;
+        try {
+            transaction = repository.begin();
+        } catch (RuntimeException e) {
+            commitPhase(event, PHASE_SESSION_OPEN, null, e.getClass().getSimpleName());
+            throw e;
+        }
+        commitPhase(event, PHASE_SESSION_OPEN, null, OUTCOME_OK);
+        return new ProfiledTransaction(transaction);
+    }
+
+    static void commitPhase(final AccountPhaseEvent event, final String phase, @Nullable final String accountId,
+                            final String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.accountHash = hash(accountId);
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * Spread bits of id hash, so that recordings could correlate operations of account without holding its id
+     */
+    static int hash(@Nullable final String accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+        final int h = accountId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,126 @@
+package com.revolut.moneytransfer.profiling;
+
+import com.revolut.moneytransfer.config.FlightRecorderConfiguration;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single bounded flight recording with account events, started and stopped at runtime.
+ * Stopped recording is kept for download until the next start or discard.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class FlightRecorderService {
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final String RECORDING_NAME = "money-transfer";
+
+    private final FlightRecorderConfiguration configuration;
+
+    private Recording recording;
+
+    @EventListener
+    void onStartup(final StartupEvent event) {
+        if (configuration.isStartOnStartup()) {
+            start();
+        }
+    }
+
+    /**
+     * Start a new recording, the previous one is discarded
+     * @return status of the recording
+     */
+    public synchronized Map<String, Object> start() {
+        discard();
+        final Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration(configuration.getSettings()));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Failed to load recording settings " + configuration.getSettings(), e);
+        }
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(configuration.getMaxAge());
+        started.setMaxSize(configuration.getMaxSize());
+        if (!configuration.getMaxDuration().isZero()) {
+            started.setDuration(configuration.getMaxDuration());
+        }
+        started.enable(AccountOperationEvent.class).withThreshold(configuration.getOperationThreshold());
+        started.enable(AccountPhaseEvent.class).withThreshold(configuration.getPhaseThreshold());
+        started.start();
+        recording = started;
+        LOG.info("Flight recording started, max age {}, max size {} bytes", configuration.getMaxAge(),
+                configuration.getMaxSize());
+        return status();
+    }
+
+    /**
+     * Stop the recording, it is kept for download
+     * @return status of the recording
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return status();
+    }
+
+    /**
+     * Stop the recording and drop its data
+     */
+    @PreDestroy
+    public synchronized void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState());
+        status.put("startTime", recording.getStartTime());
+        status.put("stopTime", recording.getStopTime());
+        status.put("size", recording.getSize());
+        status.put("maxAge", recording.getMaxAge());
+        status.put("maxSize", recording.getMaxSize());
+        return status;
+    }
+
+    /**
+     * Write data recorded so far into a temporary file, the caller deletes it
+     * @return file in JFR format, empty if there is no recording
+     */
+    public synchronized Optional<Path> dump() {
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            return Optional.empty();
+        }
+        try {
+            final Path file = Files.createTempFile(RECORDING_NAME, ".jfr");
+            recording.dump(file);
+            return Optional.of(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.revolut.moneytransfer.profiling;
+
+import com.revolut.moneytransfer.database.AccountTransaction;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Supplier;
+
+/**
+ * Transaction emitting {@link AccountPhaseEvent} for each call of the backend transaction
+ */
+@RequiredArgsConstructor
+class ProfiledTransaction implements AccountTransaction {
+    private final AccountTransaction delegate;
+
+    @Override
+    public Account find(final String id, final boolean forUpdate) {
+        return phase(FlightEvents.PHASE_FIND, id, () -> delegate.find(id, forUpdate));
+    }
+
+    @Override
+    public void create(final Account account) {
+        phase(FlightEvents.PHASE_CREATE, account.getId(), () -> {
+            delegate.create(account);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean updateBalance(final Account account, final long balance) {
+        return phase(FlightEvents.PHASE_UPDATE_BALANCE, account.getId(),
+                () -> delegate.updateBalance(account, balance));
+    }
+
+    @Override
+    public void logOperation(final BalanceChange change) {
+        phase(FlightEvents.PHASE_LOG_OPERATION, change.getAccountId(), () -> {
+            delegate.logOperation(change);
+            return null;
+        });
+    }
+
+    @Override
+    public void commit() {
+        phase(FlightEvents.PHASE_COMMIT, null, () -> {
+            delegate.commit();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static <T> T phase(final String phase, final String accountId, final Supplier<T> call) {
+        final AccountPhaseEvent event = new AccountPhaseEvent();
+        event.begin();
+        String outcome = FlightEvents.OUTCOME_OK;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            FlightEvents.commitPhase(event, phase, accountId, outcome);
+        }
+    }
+}
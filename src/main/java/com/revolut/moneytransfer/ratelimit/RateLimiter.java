@@ -0,0 +1,123 @@
+package com.revolut.moneytransfer.ratelimit;
+
+import com.revolut.moneytransfer.config.RateLimitConfiguration;
+import io.micronaut.scheduling.annotation.Scheduled;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-client and per-account request quotas. Keys come from requests (API key header, id in path), so the
+ * number of buckets is capped: once a map is full, new keys share its overflow bucket until idle buckets are
+ * evicted, and a flood of made-up keys is limited as one client or account.
+ */
+@Singleton
+public class RateLimiter {
+    private final RateLimitConfiguration configuration;
+
+    private final ConcurrentMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final TokenBucket clientOverflowBucket;
+    private final TokenBucket accountOverflowBucket;
+
+    private final LongAdder clientRejections = new LongAdder();
+    private final LongAdder accountRejections = new LongAdder();
+
+    public RateLimiter(final RateLimitConfiguration configuration) {
+        this.configuration = configuration;
+        this.clientOverflowBucket = newClientBucket();
+        this.accountOverflowBucket = newAccountBucket();
+    }
+
+    /**
+     * Take a token of API client
+     * @param clientKey API key or remote address of client
+     * @return true if request is allowed
+     */
+    public boolean tryAcquireClient(final String clientKey) {
+        final TokenBucket bucket = bucket(clientBuckets, clientKey, configuration.getMaxTrackedClients(),
+                clientOverflowBucket, this::newClientBucket);
+        if (bucket.tryAcquire()) {
+            return true;
+        }
+        clientRejections.increment();
+        return false;
+    }
+
+    /**
+     * Take a token of account balance operations
+     * @param accountId account id
+     * @return true if operation is allowed
+     */
+    public boolean tryAcquireAccount(final String accountId) {
+        final TokenBucket bucket = bucket(accountBuckets, accountId, configuration.getMaxTrackedAccounts(),
+                accountOverflowBucket, this::newAccountBucket);
+        if (bucket.tryAcquire()) {
+            return true;
+        }
+        accountRejections.increment();
+        return false;
+    }
+
+    /**
+     * @return seconds client should wait before retrying rejected request
+     */
+    public long retryAfterSeconds(final String clientKey, final String accountId) {
+        long millis = clientBuckets.getOrDefault(clientKey, clientOverflowBucket).millisUntilRefill();
+        if (accountId != null) {
+            millis = Math.max(millis, accountBuckets.getOrDefault(accountId, accountOverflowBucket).millisUntilRefill());
+        }
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    public long getClientRejections() {
+        return clientRejections.sum();
+    }
+
+    public long getAccountRejections() {
+        return accountRejections.sum();
+    }
+
+    public int getTrackedClients() {
+        return clientBuckets.size();
+    }
+
+    public int getTrackedAccounts() {
+        return accountBuckets.size();
+    }
+
+    private static TokenBucket bucket(final ConcurrentMap<String, TokenBucket> buckets, final String key,
+                                      final int maxSize, final TokenBucket overflow,
+                                      final Supplier<TokenBucket> factory) {
+        final TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        // checked before insert, so concurrent inserts may exceed the cap by the number of request threads
+        if (buckets.size() >= maxSize) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(key, k -> factory.get());
+    }
+
+    private TokenBucket newClientBucket() {
+        return new TokenBucket(configuration.getClientCapacity(), configuration.getClientRefillPerSecond());
+    }
+
+    private TokenBucket newAccountBucket() {
+        return new TokenBucket(configuration.getAccountCapacity(), configuration.getAccountRefillPerSecond());
+    }
+
+    /**
+     * Drop idle buckets, so memory is proportional to the number of active clients and accounts
+     */
+    @Scheduled(fixedDelay = "1m")
+    public void evictIdleBuckets() {
+        final long idleMillis = configuration.getIdleTimeout().toMillis();
+        clientBuckets.values().removeIf(bucket -> bucket.isIdle(idleMillis));
+        accountBuckets.values().removeIf(bucket -> bucket.isIdle(idleMillis));
+    }
+}
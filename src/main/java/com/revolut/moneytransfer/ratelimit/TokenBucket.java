@@ -0,0 +1,115 @@
+package com.revolut.moneytransfer.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Refill timestamp and available tokens are packed into
+ * a single long, so acquiring a token is one CAS without any allocation.
+ */
+public class TokenBucket {
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    public static final int MAX_CAPACITY = (int) TOKEN_MASK;
+
+    // Timestamps are stored in milliseconds since class initialization to fit into 42 bits
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private final long capacity;
+    private final long refillPerSecond;
+    private final long fullRefillMillis;
+    private final AtomicLong state;
+
+    /**
+     * @param capacity max number of tokens, burst size
+     * @param refillPerSecond number of tokens added per second
+     */
+    public TokenBucket(final int capacity, final int refillPerSecond) {
+        this(capacity, refillPerSecond, currentMillis());
+    }
+
+    TokenBucket(final int capacity, final int refillPerSecond, final long nowMillis) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.fullRefillMillis = (capacity * 1000L + refillPerSecond - 1) / refillPerSecond;
+        this.state = new AtomicLong(pack(nowMillis, capacity));
+    }
+
+    /**
+     * Take one token if available
+     * @return true if token has been taken, false if request should be rejected
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(currentMillis());
+    }
+
+    boolean tryAcquire(final long nowMillis) {
+        for (;;) {
+            final long current = state.get();
+            final long last = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+            long time = last;
+
+            final long elapsed = nowMillis - last;
+            if (elapsed >= fullRefillMillis) {
+                tokens = capacity;
+                time = nowMillis;
+            } else if (elapsed > 0) {
+                final long added = elapsed * refillPerSecond / 1000;
+                if (tokens + added >= capacity) {
+                    tokens = capacity;
+                    time = nowMillis;
+                } else if (added > 0) {
+                    tokens += added;
+                    // advance only by the time spent on whole tokens, so fractions are not lost
+                    time = last + added * 1000 / refillPerSecond;
+                }
+            }
+
+            if (tokens == 0) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(time, tokens - 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return milliseconds until next token is available, 0 if there are tokens in the bucket
+     */
+    public long millisUntilRefill() {
+        return millisUntilRefill(currentMillis());
+    }
+
+    long millisUntilRefill(final long nowMillis) {
+        final long current = state.get();
+        if ((current & TOKEN_MASK) > 0) {
+            return 0;
+        }
+        final long next = (current >>> TOKEN_BITS) + (1000 + refillPerSecond - 1) / refillPerSecond;
+        return Math.max(0, next - nowMillis);
+    }
+
+    /**
+     * @return true if the bucket has not been used for the given time and is full again,
+     * so it could be dropped without changing limiter behaviour
+     */
+    public boolean isIdle(final long idleMillis) {
+        return currentMillis() - (state.get() >>> TOKEN_BITS) >= Math.max(idleMillis, fullRefillMillis);
+    }
+
+    private static long pack(final long millis, final long tokens) {
+        return (millis << TOKEN_BITS) | tokens;
+    }
+
+    private static long currentMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ORIGIN_NANOS);
+    }
+}
@@ -0,0 +1,14 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import lombok.Value;
+
+/**
+ * Operation sent to followers, account opening carries account name the log doesn't hold
+ */
+@Value
+class ReplicatedOperation {
+    BalanceChange change;
+    // set for OPEN operations only, currency of accounts is fixed
+    String accountName;
+}
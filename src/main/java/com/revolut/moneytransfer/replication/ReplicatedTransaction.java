@@ -0,0 +1,61 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.database.AccountTransaction;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leader transaction, waits for acknowledgement of its sync operations on close, so that the wait
+ * happens after locks and commit hooks are released
+ */
+@RequiredArgsConstructor
+class ReplicatedTransaction implements AccountTransaction {
+    private final AccountTransaction delegate;
+    private final ReplicationBarrier barrier;
+
+    // ids are assigned on commit at the latest, so changes are kept rather than ids
+    private final List<BalanceChange> syncChanges = new ArrayList<>();
+    private boolean committed;
+
+    @Override
+    public Account find(final String id, final boolean forUpdate) {
+        return delegate.find(id, forUpdate);
+    }
+
+    @Override
+    public void create(final Account account) {
+        delegate.create(account);
+    }
+
+    @Override
+    public boolean updateBalance(final Account account, final long balance) {
+        return delegate.updateBalance(account, balance);
+    }
+
+    @Override
+    public void logOperation(final BalanceChange change) {
+        delegate.logOperation(change);
+        if (barrier.isSync(change.getType())) {
+            syncChanges.add(change);
+        }
+    }
+
+    @Override
+    public void commit() {
+        delegate.commit();
+        committed = true;
+        barrier.committed();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+        if (committed && !syncChanges.isEmpty()) {
+            barrier.awaitAcknowledged(syncChanges.stream().mapToLong(BalanceChange::getId).max().getAsLong());
+        }
+    }
+}
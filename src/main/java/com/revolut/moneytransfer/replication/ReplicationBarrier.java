@@ -0,0 +1,142 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.config.ReplicationConfiguration;
+import com.revolut.moneytransfer.database.AccountTransaction;
+import com.revolut.moneytransfer.exception.ReadOnlyReplicaException;
+import com.revolut.moneytransfer.model.OperationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meeting point of balance operations and replication.
+ * <p>
+ * On leader, transactions logging operations of sync types wait after commit until enough followers
+ * acknowledged them, commits also wake up follower sessions. On follower, balance operations are rejected
+ * until it is promoted.
+ */
+@Singleton
+public class ReplicationBarrier {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationBarrier.class);
+
+    private final ReplicationConfiguration configuration;
+    private final boolean leader;
+    private volatile boolean readOnly;
+
+    // last acknowledged operation id of each connected follower, guarded by itself for waiting
+    private final Map<String, Long> acknowledged = new ConcurrentHashMap<>();
+    private final LongAdder ackTimeouts = new LongAdder();
+    private final Object commits = new Object();
+
+    public ReplicationBarrier(final ReplicationConfiguration configuration) {
+        this.configuration = configuration;
+        leader = configuration.getRole() == ReplicationConfiguration.Role.LEADER;
+        readOnly = configuration.getRole() == ReplicationConfiguration.Role.FOLLOWER;
+    }
+
+    /**
+     * @param transaction transaction of balance operation
+     * @return transaction waiting for replication of sync operations on commit
+     * @throws ReadOnlyReplicaException if this node is a follower, the transaction is closed
+     */
+    public AccountTransaction track(final AccountTransaction transaction) {
+        if (readOnly) {
+            transaction.close();
+            throw new ReadOnlyReplicaException("Node is a replication follower, send operations to leader");
+        }
+        return leader ? new ReplicatedTransaction(transaction, this) : transaction;
+    }
+
+    boolean isSync(final OperationType type) {
+        return configuration.getSyncOperations().contains(type);
+    }
+
+    /**
+     * Wake up follower sessions
+     */
+    void committed() {
+        synchronized (commits) {
+            commits.notifyAll();
+        }
+    }
+
+    /**
+     * Wait for a commit or the timeout, whichever comes first
+     */
+    void awaitCommit(final long timeoutMillis) throws InterruptedException {
+        synchronized (commits) {
+            commits.wait(Math.max(1, timeoutMillis));
+        }
+    }
+
+    void acknowledged(final String follower, final long operationId) {
+        synchronized (acknowledged) {
+            acknowledged.put(follower, operationId);
+            acknowledged.notifyAll();
+        }
+    }
+
+    void disconnected(final String follower) {
+        acknowledged.remove(follower);
+    }
+
+    /**
+     * Wait until sync-acks followers acknowledged the operation, at most ack-timeout
+     * @return true if acknowledged in time
+     */
+    boolean awaitAcknowledged(final long operationId) {
+        final long deadline = System.nanoTime() + configuration.getAckTimeout().toNanos();
+        synchronized (acknowledged) {
+            while (acknowledgedCount(operationId) < configuration.getSyncAcks()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    ackTimeouts.increment();
+                    LOG.warn("Operation {} is not acknowledged by {} followers in {}", operationId,
+                            configuration.getSyncAcks(), configuration.getAckTimeout());
+                    return false;
+                }
+                try {
+                    acknowledged.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private int acknowledgedCount(final long operationId) {
+        int count = 0;
+        for (long followerId : acknowledged.values()) {
+            if (followerId >= operationId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Accept balance operations, called when follower takes over
+     */
+    void promote() {
+        readOnly = false;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Map<String, Long> getAcknowledged() {
+        return acknowledged;
+    }
+
+    public long getAckTimeouts() {
+        return ackTimeouts.sum();
+    }
+}
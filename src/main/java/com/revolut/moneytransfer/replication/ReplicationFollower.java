@@ -0,0 +1,208 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.config.ReplicationConfiguration;
+import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.database.OperationMapper;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies operation log of leader to local database.
+ * <p>
+ * Each batch is applied in one transaction: accounts are created or get balance and version of the operation,
+ * operations are inserted into the log with ids of leader. The log is thus a copy of leader's one and its
+ * last id is the position to resume from after reconnect or restart. Requires mybatis repository backend.
+ */
+@Singleton
+@Requires(property = "replication.role", value = "FOLLOWER")
+@Requires(property = "repository.backend", value = "mybatis", defaultValue = "mybatis")
+public class ReplicationFollower {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final ReplicationConfiguration configuration;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ReplicationBarrier barrier;
+    private final String name;
+
+    private final LongAdder appliedOperations = new LongAdder();
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile long lastAppliedId;
+    private volatile Instant lastContact;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public ReplicationFollower(final ReplicationConfiguration configuration,
+                               final SqlSessionFactory sqlSessionFactory,
+                               final ReplicationBarrier barrier) throws IOException {
+        this.configuration = configuration;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.barrier = barrier;
+        this.name = configuration.getFollowerName() != null
+                ? configuration.getFollowerName() : InetAddress.getLocalHost().getHostName();
+    }
+
+    @EventListener
+    synchronized void onStartup(final StartupEvent event) {
+        running = true;
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop following and accept balance operations
+     * @return id of the last applied operation
+     */
+    public synchronized long promote() throws InterruptedException {
+        stop();
+        if (thread != null) {
+            thread.join(configuration.getHeartbeatInterval().toMillis() * 3);
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final long lastId = sqlSession.getMapper(OperationMapper.class).findLastId();
+            sqlSession.getMapper(OperationMapper.class).restartIds(lastId + 1);
+            lastAppliedId = lastId;
+        }
+        barrier.promote();
+        LOG.info("Promoted, applied operations up to {}", lastAppliedId);
+        return lastAppliedId;
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        final Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                follow();
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    LOG.warn("Replication from {}:{} interrupted: {}", configuration.getLeaderHost(),
+                            configuration.getLeaderPort(), e.toString());
+                }
+            } finally {
+                connected = false;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(configuration.getReconnectDelay().toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow() throws IOException {
+        lastAppliedId = loadLastId();
+        try (Socket connection = new Socket()) {
+            socket = connection;
+            if (!running) {
+                return;
+            }
+            final int timeout = (int) configuration.getHeartbeatInterval().toMillis() * 3;
+            connection.connect(new InetSocketAddress(configuration.getLeaderHost(), configuration.getLeaderPort()),
+                    timeout);
+            connection.setTcpNoDelay(true);
+            connection.setSoTimeout(timeout);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            ReplicationProtocol.writeHello(out, name, lastAppliedId);
+            connected = true;
+            LOG.info("Following {}:{} from operation {}", configuration.getLeaderHost(),
+                    configuration.getLeaderPort(), lastAppliedId);
+            while (running) {
+                final List<ReplicatedOperation> batch = ReplicationProtocol.readBatch(in);
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                }
+                ReplicationProtocol.writeAck(out, lastAppliedId);
+                lastContact = Instant.now();
+            }
+        } finally {
+            socket = null;
+        }
+    }
+
+    private long loadLastId() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(OperationMapper.class).findLastId();
+        }
+    }
+
+    private void apply(final List<ReplicatedOperation> batch) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(false)) {
+            final AccountMapper accountMapper = sqlSession.getMapper(AccountMapper.class);
+            final OperationMapper operationMapper = sqlSession.getMapper(OperationMapper.class);
+            for (ReplicatedOperation operation : batch) {
+                final BalanceChange change = operation.getChange();
+                if (change.getType() == OperationType.OPEN) {
+                    accountMapper.createAccount(Account.builder()
+                            .id(change.getAccountId())
+                            .name(operation.getAccountName())
+                            .balance(change.getBalance())
+                            .build());
+                } else if (accountMapper.setBalance(change.getAccountId(), change.getBalance(),
+                        change.getVersion()) == 0) {
+                    // opening of the account never arrived, the batch is rolled back and retried after reconnect
+                    // rather than losing the balance
+                    throw new IllegalStateException("Operation " + change.getId() + " of missing account "
+                            + change.getAccountId());
+                }
+                operationMapper.insertReplicatedOperation(change);
+            }
+            sqlSession.commit();
+        }
+        lastAppliedId = batch.get(batch.size() - 1).getChange().getId();
+        appliedOperations.add(batch.size());
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getLastAppliedId() {
+        return lastAppliedId;
+    }
+
+    public Instant getLastContact() {
+        return lastContact;
+    }
+
+    public long getAppliedOperations() {
+        return appliedOperations.sum();
+    }
+}
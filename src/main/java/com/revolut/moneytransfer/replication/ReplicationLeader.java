@@ -0,0 +1,224 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.config.ReplicationConfiguration;
+import com.revolut.moneytransfer.database.AccountRepository;
+import com.revolut.moneytransfer.database.OperationGapTracker;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams operation log to followers, each follower connection is served by its own thread.
+ * <p>
+ * Session starts from the last operation follower applied, sends committed operations in batches and waits
+ * for acknowledgement of each batch, so at most one batch per follower is in flight. Gaps in ids are handled
+ * like in outbox relay, see {@link OperationGapTracker}. Acknowledged position of each follower is saved
+ * as operation log cursor {@link #CURSOR_PREFIX}name, so operations are not archived before all known
+ * followers have them.
+ */
+@Singleton
+@Requires(property = "replication.role", value = "LEADER")
+@RequiredArgsConstructor
+public class ReplicationLeader {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationLeader.class);
+    public static final String CURSOR_PREFIX = "replication:";
+
+    private final ReplicationConfiguration configuration;
+    private final OperationLog operationLog;
+    private final AccountRepository accountRepository;
+    private final ReplicationBarrier barrier;
+
+    private final Map<String, FollowerSession> sessions = new ConcurrentHashMap<>();
+    private volatile ServerSocket serverSocket;
+
+    @EventListener
+    void onStartup(final StartupEvent event) {
+        try {
+            serverSocket = new ServerSocket(configuration.getPort(), 50, InetAddress.getByName(configuration.getHost()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to listen for followers on port " + configuration.getPort(), e);
+        }
+        final Thread acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOG.info("Replication leader listens on {}:{}", configuration.getHost(), serverSocket.getLocalPort());
+    }
+
+    /**
+     * @return port followers connect to, useful when configured port is 0
+     */
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public Collection<FollowerSession> getSessions() {
+        return sessions.values();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (FollowerSession session : sessions.values()) {
+            session.socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                final Thread thread = new Thread(() -> serve(socket), "replication-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Failed to accept follower: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        FollowerSession session = null;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) configuration.getHeartbeatInterval().toMillis() * 3);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final ReplicationProtocol.Hello hello = ReplicationProtocol.readHello(in);
+            session = new FollowerSession(hello.getFollowerName(), socket, hello.getLastAppliedId());
+            final FollowerSession previous = sessions.put(session.name, session);
+            if (previous != null) {
+                previous.socket.close();
+            }
+            barrier.acknowledged(session.name, session.acknowledgedId);
+            saveCursor(session);
+            LOG.info("Follower {} connected from {}, applied up to {}", session.name, socket.getRemoteSocketAddress(),
+                    session.acknowledgedId);
+            stream(session, in, out);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (!socket.isClosed()) {
+                LOG.warn("Replication to {} stopped: {}", socket.getRemoteSocketAddress(), e.toString());
+            }
+        } finally {
+            if (session != null && sessions.remove(session.name, session)) {
+                barrier.disconnected(session.name);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    private void stream(final FollowerSession session, final DataInputStream in, final DataOutputStream out)
+            throws IOException, InterruptedException {
+        long cursor = session.acknowledgedId;
+        final OperationGapTracker gapTracker = new OperationGapTracker("replication to " + session.name,
+                configuration.getGapTimeout());
+        long lastSentNanos = System.nanoTime();
+        final long heartbeatNanos = configuration.getHeartbeatInterval().toNanos();
+        while (!session.socket.isClosed()) {
+            final List<BalanceChange> operations = operationLog.findAfter(cursor, configuration.getBatchSize());
+            final List<BalanceChange> batch = operations.subList(0,
+                    gapTracker.committedPrefix(operations, cursor, Instant.now()));
+            if (batch.isEmpty() && System.nanoTime() - lastSentNanos < heartbeatNanos) {
+                barrier.awaitCommit(configuration.getPollInterval().toMillis());
+                continue;
+            }
+            ReplicationProtocol.writeBatch(out, withAccounts(batch));
+            lastSentNanos = System.nanoTime();
+            final long acknowledgedId = ReplicationProtocol.readAck(in);
+            if (!batch.isEmpty()) {
+                cursor = batch.get(batch.size() - 1).getId();
+                if (acknowledgedId != cursor) {
+                    throw new IOException("Follower acknowledged " + acknowledgedId + " instead of " + cursor);
+                }
+            }
+            final boolean advanced = acknowledgedId != session.acknowledgedId;
+            session.acknowledgedId = acknowledgedId;
+            session.lastAcknowledged = Instant.now();
+            barrier.acknowledged(session.name, acknowledgedId);
+            if (advanced) {
+                saveCursor(session);
+            }
+        }
+    }
+
+    private void saveCursor(final FollowerSession session) {
+        final String consumer = CURSOR_PREFIX + session.name;
+        // creates cursor of a new follower
+        operationLog.loadCursor(consumer);
+        operationLog.saveCursor(consumer, session.acknowledgedId);
+    }
+
+    /**
+     * Attach account names to account openings
+     */
+    private List<ReplicatedOperation> withAccounts(final List<BalanceChange> batch) {
+        final List<ReplicatedOperation> operations = new ArrayList<>(batch.size());
+        for (BalanceChange change : batch) {
+            if (change.getType() == OperationType.OPEN) {
+                final Account account = accountRepository.findById(change.getAccountId())
+                        .orElseThrow(() -> new IllegalStateException("Account not found: " + change.getAccountId()));
+                operations.add(new ReplicatedOperation(change, account.getName()));
+            } else {
+                operations.add(new ReplicatedOperation(change, null));
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Connection of one follower
+     */
+    public static class FollowerSession {
+        @Getter
+        private final String name;
+        @Getter
+        private final String address;
+        @Getter
+        private final Instant connectedAt = Instant.now();
+        @Getter
+        private volatile long acknowledgedId;
+        @Getter
+        private volatile Instant lastAcknowledged;
+        private final Socket socket;
+
+        FollowerSession(final String name, final Socket socket, final long acknowledgedId) {
+            this.name = name;
+            this.address = String.valueOf(socket.getRemoteSocketAddress());
+            this.socket = socket;
+            this.acknowledgedId = acknowledgedId;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import lombok.Value;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames exchanged over replication connection:
+ * <ul>
+ * <li>follower hello: magic, protocol version, follower name, id of the last applied operation</li>
+ * <li>leader batch: number of operations (0 for heartbeat) followed by operations in id order</li>
+ * <li>follower ack: id of the last applied operation, sent for every batch</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+    private static final int MAGIC = 0x4d54524c;
+    private static final int VERSION = 1;
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private ReplicationProtocol() {
+    }
+
+    @Value
+    static class Hello {
+        String followerName;
+        long lastAppliedId;
+    }
+
+    static void writeHello(final DataOutputStream out, final String name, final long lastAppliedId)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(name);
+        out.writeLong(lastAppliedId);
+        out.flush();
+    }
+
+    static Hello readHello(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replication follower");
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replication protocol version " + version);
+        }
+        return new Hello(in.readUTF(), in.readLong());
+    }
+
+    static void writeBatch(final DataOutputStream out, final List<ReplicatedOperation> operations)
+            throws IOException {
+        out.writeInt(operations.size());
+        for (ReplicatedOperation operation : operations) {
+            final BalanceChange change = operation.getChange();
+            out.writeLong(change.getId());
+            out.writeUTF(change.getAccountId());
+            out.writeByte(change.getType().ordinal());
+            out.writeLong(change.getAmount());
+            out.writeLong(change.getBalance());
+            out.writeLong(change.getVersion());
+            out.writeLong(change.getCreatedAt().getEpochSecond());
+            out.writeInt(change.getCreatedAt().getNano());
+            if (change.getType() == OperationType.OPEN) {
+                out.writeUTF(operation.getAccountName());
+            }
+        }
+        out.flush();
+    }
+
+    static List<ReplicatedOperation> readBatch(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Malformed batch of " + size + " operations");
+        }
+        final List<ReplicatedOperation> operations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final BalanceChange change = BalanceChange.builder()
+                    .id(in.readLong())
+                    .accountId(in.readUTF())
+                    .type(OPERATION_TYPES[in.readUnsignedByte()])
+                    .amount(in.readLong())
+                    .balance(in.readLong())
+                    .version(in.readLong())
+                    .createdAt(Instant.ofEpochSecond(in.readLong(), in.readInt()))
+                    .build();
+            if (change.getType() == OperationType.OPEN) {
+                operations.add(new ReplicatedOperation(change, in.readUTF()));
+            } else {
+                operations.add(new ReplicatedOperation(change, null));
+            }
+        }
+        return operations;
+    }
+
+    static void writeAck(final DataOutputStream out, final long lastAppliedId) throws IOException {
+        out.writeLong(lastAppliedId);
+        out.flush();
+    }
+
+    static long readAck(final DataInputStream in) throws IOException {
+        return in.readLong();
+    }
+}
@@ -0,0 +1,82 @@
+package com.revolut.moneytransfer.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serial executor of one account: messages run one at a time in arrival order on shared pool,
+ * the mailbox occupies a pool thread only while it has messages.
+ */
+class AccountMailbox implements Runnable {
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int CLOSED = 2;
+    // Messages processed before the thread is yielded to other mailboxes
+    private static final int THROUGHPUT = 16;
+
+    private final Executor executor;
+    private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private volatile long lastActiveNanos = System.nanoTime();
+
+    AccountMailbox(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return false if mailbox has been closed, message should be sent to a new mailbox of the account
+     */
+    boolean offer(final Runnable message) {
+        messages.add(message);
+        while (true) {
+            final int current = state.get();
+            if (current == SCHEDULED) {
+                return true;
+            }
+            if (current == CLOSED) {
+                // closed concurrently, take the message back unless the closing check has already seen it
+                return !messages.remove(message);
+            }
+            if (state.compareAndSet(IDLE, SCHEDULED)) {
+                executor.execute(this);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Close mailbox if it has been idle longer than timeout
+     * @return true if mailbox has been closed and no message can be sent to it anymore
+     */
+    boolean closeIfIdle(final long idleNanos) {
+        if (System.nanoTime() - lastActiveNanos < idleNanos || !state.compareAndSet(IDLE, CLOSED)) {
+            return false;
+        }
+        if (messages.isEmpty()) {
+            return true;
+        }
+        // message arrived while closing, keep serving it
+        state.set(SCHEDULED);
+        executor.execute(this);
+        return false;
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < THROUGHPUT; i++) {
+            final Runnable message = messages.poll();
+            if (message == null) {
+                break;
+            }
+            message.run();
+        }
+        lastActiveNanos = System.nanoTime();
+        state.set(IDLE);
+        // message added after the last poll but before the state change has not scheduled the mailbox
+        if (!messages.isEmpty() && state.compareAndSet(IDLE, SCHEDULED)) {
+            executor.execute(this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.AccountConcurrencyConfiguration;
+import io.micronaut.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Mailboxes of accounts for actor concurrency strategy.
+ * <p>
+ * Operations of one account are executed sequentially by its mailbox, so they never conflict with each other
+ * and need no locks, mailboxes of different accounts run in parallel on a work-stealing pool.
+ * Mailbox is created on the first message and dropped when the account is idle, so memory
+ * is proportional to the number of active accounts.
+ */
+@Singleton
+public class AccountMailboxes {
+    private final AccountConcurrencyConfiguration configuration;
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<String, AccountMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public AccountMailboxes(final AccountConcurrencyConfiguration configuration) {
+        this.configuration = configuration;
+        final int parallelism = configuration.getMailboxParallelism() > 0
+                ? configuration.getMailboxParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // FIFO mode: mailboxes are event-style tasks which are never joined
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * Execute operation in mailbox of account and wait for its result
+     * @throws RuntimeException thrown by operation
+     */
+    public <T> T execute(final String accountId, final Supplier<T> operation) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable message = () -> {
+            try {
+                result.complete(operation.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        while (!mailbox(accountId).offer(message)) {
+            Thread.yield();
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Execute operation in mailbox of account and wait for its completion
+     */
+    public void execute(final String accountId, final Runnable operation) {
+        execute(accountId, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public int getActiveMailboxes() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Drop mailboxes of idle accounts
+     */
+    @Scheduled(fixedDelay = "1m")
+    public void evictIdleMailboxes() {
+        final long idleNanos = configuration.getMailboxIdleTimeout().toNanos();
+        for (String accountId : mailboxes.keySet()) {
+            mailboxes.computeIfPresent(accountId, (key, mailbox) -> mailbox.closeIfIdle(idleNanos) ? null : mailbox);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    private AccountMailbox mailbox(final String accountId) {
+        final AccountMailbox mailbox = mailboxes.get(accountId);
+        if (mailbox != null) {
+            return mailbox;
+        }
+        return mailboxes.computeIfAbsent(accountId, key -> new AccountMailbox(pool));
+    }
+}
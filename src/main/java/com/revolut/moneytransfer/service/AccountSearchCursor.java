@@ -0,0 +1,66 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.database.AccountSearchCriteria;
+import com.revolut.moneytransfer.exception.InvalidCursorException;
+import com.revolut.moneytransfer.model.Account;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor holding sort order, sort key and id of the last account of the page
+ */
+final class AccountSearchCursor {
+    private static final char SEPARATOR = '\n';
+
+    private AccountSearchCursor() {
+    }
+
+    static String encode(final AccountSearchCriteria.Sort sort, final Account last) {
+        final String key;
+        switch (sort) {
+            case NAME:
+                key = last.getName();
+                break;
+            case BALANCE:
+                key = String.valueOf(last.getBalance());
+                break;
+            default:
+                key = "";
+        }
+        final String value = sort.name() + SEPARATOR + last.getId() + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Apply cursor position to search criteria
+     * @throws InvalidCursorException if cursor is malformed or was issued for search with another sort order
+     */
+    static AccountSearchCriteria.AccountSearchCriteriaBuilder decode(final String cursor,
+                                                                      final AccountSearchCriteria.Sort sort,
+                                                                      final AccountSearchCriteria.AccountSearchCriteriaBuilder criteria) {
+        final String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(String.valueOf(SEPARATOR), 3);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new InvalidCursorException("Cursor does not match search filters");
+        }
+        criteria.afterId(parts[1]);
+        switch (sort) {
+            case NAME:
+                return criteria.afterName(parts[2]);
+            case BALANCE:
+                try {
+                    return criteria.afterBalance(Long.parseLong(parts[2]));
+                } catch (NumberFormatException e) {
+                    throw new InvalidCursorException("Malformed cursor");
+                }
+            default:
+                return criteria;
+        }
+    }
+}
@@ -1,29 +1,78 @@
 package com.revolut.moneytransfer.service;
 
-import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.archive.ArchiveStore;
+import com.revolut.moneytransfer.config.AccountConcurrencyConfiguration;
+import com.revolut.moneytransfer.database.AccountIdOrder;
+import com.revolut.moneytransfer.database.AccountRepository;
+import com.revolut.moneytransfer.database.AccountSearchCriteria;
+import com.revolut.moneytransfer.database.AccountTransaction;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
 import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.exception.AccountVersionMismatchException;
 import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.exception.InvalidCursorException;
+import com.revolut.moneytransfer.exception.SameAccountTransferException;
 import com.revolut.moneytransfer.exception.UnequalCurrenciesException;
+import com.revolut.moneytransfer.exception.VelocityLimitExceededException;
 import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountBalance;
+import com.revolut.moneytransfer.model.AccountPage;
+import com.revolut.moneytransfer.model.AccountStatement;
+import com.revolut.moneytransfer.model.BalanceChange;
 import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.MultiTransfer;
+import com.revolut.moneytransfer.model.OperationType;
 import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.TransferLeg;
 import com.revolut.moneytransfer.model.Withdrawal;
+import com.revolut.moneytransfer.profiling.FlightEvents;
+import com.revolut.moneytransfer.replication.ReplicationBarrier;
+import com.revolut.moneytransfer.velocity.VelocityLimiter;
 import lombok.RequiredArgsConstructor;
-import org.apache.ibatis.session.SqlSession;
-import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 
 @Singleton
 @RequiredArgsConstructor
 public class AccountService {
-    private final SqlSessionFactory sqlSessionFactory;
+    private static final Logger LOG = LoggerFactory.getLogger(AccountService.class);
+    public static final int MAX_PAGE_SIZE = 1000;
+    // names of operations in flight recorder events, single account operations are named by their type
+    private static final String TRANSFER = "TRANSFER";
+    private static final String MULTI_TRANSFER = "MULTI_TRANSFER";
+
+    private final AccountRepository accountRepository;
+    private final OperationLog operationLog;
+    private final AccountConcurrencyConfiguration concurrencyConfiguration;
+    private final RetryPolicy retryPolicy;
+    private final BalanceInvariantChecker invariantChecker;
+    private final AccountMailboxes mailboxes;
+    private final OperationBatcher batcher;
+    private final VelocityLimiter velocityLimiter;
+    private final ArchiveStore archiveStore;
+    private final ReplicationBarrier replicationBarrier;
 
     /**
      * Validate account data and create new bank account
@@ -34,8 +83,12 @@ public class AccountService {
      */
     public Account createAccount(@Valid final Account account) {
         account.setId(UUID.randomUUID().toString());
-        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
-            getAccountMapper(sqlSession).createAccount(account);
+        try (final AccountTransaction transaction = begin()) {
+            transaction.create(account);
+            logOperation(transaction, account.getId(), OperationType.OPEN,
+                    account.getBalance(), account.getBalance(), account.getVersion());
+            invariantChecker.commit(transaction::commit, account.getId(), account.getCurrency(), account.getBalance(),
+                    account.getVersion());
         }
         return account;
     }
@@ -47,9 +100,88 @@ public class AccountService {
      * @throws NullPointerException if id is null
      */
     public Optional<Account> getAccountById(@NotNull final String id) {
-        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
-            return Optional.ofNullable(getAccountMapper(sqlSession).findById(id));
+        return accountRepository.findById(id);
+    }
+
+    /**
+     * Get balance of account at a point in time from operation log, every operation holds balance after it
+     * @param id account id
+     * @param at point in time
+     * @return balance after the last operation of account created at or before the time, 0 if there is none
+     * @throws AccountNotFoundException if no such account in database
+     */
+    public AccountBalance getBalanceAt(@NotNull final String id, @NotNull final Instant at) {
+        final Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + id));
+        final Optional<BalanceChange> latest = operationLog.findLatest(id, at);
+        // operation log holds no rows older than archived ones, so archive is read only if log has nothing
+        return (latest.isPresent() ? latest : archiveStore.findLatest(id, at))
+                .map(change -> new AccountBalance(account.getId(), at, change.getBalance(), account.getCurrency(),
+                        change.getId()))
+                .orElseGet(() -> new AccountBalance(account.getId(), at, 0, account.getCurrency(), null));
+    }
+
+    /**
+     * Get operations of account within time range, both from operation log and archive
+     * @param id account id
+     * @param from start of range, inclusive
+     * @param to end of range, exclusive
+     * @param limit max number of operations, the earliest ones are returned
+     * @return statement ordered by operation time
+     * @throws AccountNotFoundException if account not found
+     */
+    public AccountStatement getStatement(@NotNull final String id, @NotNull final Instant from,
+                                         @NotNull final Instant to, final int limit) {
+        final Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + id));
+        final int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // rows deleted by archiver between the reads are found in archive, rows present in both are merged by id
+        final Map<Long, BalanceChange> merged = new HashMap<>();
+        for (BalanceChange change : operationLog.findStatement(account.getId(), from, to, pageSize + 1)) {
+            merged.put(change.getId(), change);
         }
+        archiveStore.forEach(account.getId(), from, to, change -> merged.putIfAbsent(change.getId(), change));
+        final List<BalanceChange> items = new ArrayList<>(merged.values());
+        items.sort(Comparator.comparing(BalanceChange::getCreatedAt).thenComparingLong(BalanceChange::getId));
+        final boolean truncated = items.size() > pageSize;
+        return new AccountStatement(account.getId(), from, to,
+                truncated ? new ArrayList<>(items.subList(0, pageSize)) : items, truncated);
+    }
+
+    /**
+     * Search accounts with keyset pagination
+     * @param namePrefix optional prefix of account name, results are ordered by name
+     * @param currency optional account currency, results are ordered by balance if name is not set
+     * @param minBalance optional lower bound of balance
+     * @param after cursor of the page, null for the first page
+     * @param limit max number of accounts on the page
+     * @return page of accounts with cursor of the next page
+     * @throws InvalidCursorException if cursor is malformed or was issued for another search
+     */
+    public AccountPage searchAccounts(@Nullable final String namePrefix,
+                                      @Nullable final String currency,
+                                      @Nullable final Long minBalance,
+                                      @Nullable final String after,
+                                      final int limit) {
+        final int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        final AccountSearchCriteria.Sort sort = AccountSearchCriteria.sortFor(namePrefix, currency);
+        AccountSearchCriteria.AccountSearchCriteriaBuilder criteria = AccountSearchCriteria.builder()
+                .namePrefix(namePrefix)
+                .currency(currency)
+                .minBalance(minBalance)
+                .sort(sort)
+                // one extra row tells whether the next page exists
+                .limit(pageSize + 1);
+        if (after != null) {
+            criteria = AccountSearchCursor.decode(after, sort, criteria);
+        }
+
+        final List<Account> accounts = accountRepository.searchAccounts(criteria.build());
+        if (accounts.size() <= pageSize) {
+            return new AccountPage(accounts, null);
+        }
+        final List<Account> page = accounts.subList(0, pageSize);
+        return new AccountPage(page, AccountSearchCursor.encode(sort, page.get(pageSize - 1)));
     }
 
     /**
@@ -58,9 +190,25 @@ public class AccountService {
      * @param deposit operation data
      * @throws AccountNotFoundException if no such account in database
      * @throws InsufficientAmountOnBalanceException if operation tries to change balance to less than zero
+     * @throws AccountConcurrentModificationException if account was concurrently modified on every attempt
      */
     public void createDepositOperation(@NotEmpty final String accountId, @Valid final Deposit deposit) {
-        changeBalance(accountId, deposit.getAmount(), deposit.getCurrency());
+        createDepositOperation(accountId, deposit, null);
+    }
+
+    /**
+     * Deposit on account balance if account has expected version
+     * @param accountId target account id
+     * @param deposit operation data
+     * @param expectedVersion expected account version, null to skip the check
+     * @throws AccountNotFoundException if no such account in database
+     * @throws AccountVersionMismatchException if account version differs from expected one
+     * @throws AccountConcurrentModificationException if account was concurrently modified on every attempt
+     */
+    public void createDepositOperation(@NotEmpty final String accountId,
+                                       @Valid final Deposit deposit,
+                                       @Nullable final Long expectedVersion) {
+        changeBalance(accountId, deposit.getAmount(), deposit.getCurrency(), OperationType.DEPOSIT, expectedVersion);
     }
 
     /**
@@ -69,9 +217,34 @@ public class AccountService {
      * @param withdrawal operation data
      * @throws AccountNotFoundException if no such account in database
      * @throws InsufficientAmountOnBalanceException if operation tries to change balance to less than zero
+     * @throws AccountConcurrentModificationException if account was concurrently modified on every attempt
      */
     public void createWithdrawalOperation(@NotEmpty final String accountId, @Valid final Withdrawal withdrawal) {
-        changeBalance(accountId, -withdrawal.getAmount(), withdrawal.getCurrency());
+        createWithdrawalOperation(accountId, withdrawal, null);
+    }
+
+    /**
+     * Withdraw from account balance if account has expected version
+     * @param accountId target account id
+     * @param withdrawal operation data
+     * @param expectedVersion expected account version, null to skip the check
+     * @throws AccountNotFoundException if no such account in database
+     * @throws InsufficientAmountOnBalanceException if operation tries to change balance to less than zero
+     * @throws AccountVersionMismatchException if account version differs from expected one
+     * @throws AccountConcurrentModificationException if account was concurrently modified on every attempt
+     * @throws VelocityLimitExceededException if withdrawal would exceed velocity limit of account
+     */
+    public void createWithdrawalOperation(@NotEmpty final String accountId,
+                                          @Valid final Withdrawal withdrawal,
+                                          @Nullable final Long expectedVersion) {
+        final long reservation = velocityLimiter.reserve(accountId, withdrawal.getAmount());
+        try {
+            changeBalance(accountId, -withdrawal.getAmount(), withdrawal.getCurrency(), OperationType.WITHDRAWAL,
+                    expectedVersion);
+        } catch (RuntimeException e) {
+            velocityLimiter.release(accountId, reservation, withdrawal.getAmount());
+            throw e;
+        }
     }
 
     /**
@@ -82,39 +255,163 @@ public class AccountService {
      * @throws AccountNotFoundException if no such account in database
      * @throws InsufficientAmountOnBalanceException if operation tries to change balance to invalid amount
      * @throws UnequalCurrenciesException if operation has different currency than account
+     * @throws AccountConcurrentModificationException if accounts were concurrently modified on every attempt
+     * @throws AccountLockTimeoutException if accounts could not be locked in time
+     * @throws VelocityLimitExceededException if transfer would exceed velocity limit of source account
+     * @throws SameAccountTransferException if source and target is the same account
      */
     public void createTransferOperation(@NotEmpty final String sourceAccountId,
                                         @NotEmpty final String targetAccountId,
                                         @Valid final Transfer transfer) {
-        try (final SqlSession sqlSession = sqlSessionFactory.openSession(false)) {
-            final AccountMapper mapper = getAccountMapper(sqlSession);
+        checkDifferentAccounts(sourceAccountId, targetAccountId);
+        final long reservation = velocityLimiter.reserve(sourceAccountId, transfer.getAmount());
+        try {
+            transfer(sourceAccountId, targetAccountId, transfer);
+        } catch (RuntimeException e) {
+            velocityLimiter.release(sourceAccountId, reservation, transfer.getAmount());
+            throw e;
+        }
+    }
 
-            final Account sourceAccount = mapper.findById(sourceAccountId);
-            if (sourceAccount == null) {
-                throw new AccountNotFoundException("Source account not found: " + sourceAccountId);
+    /**
+     * Transfer money between several accounts atomically: one source could fund many targets
+     * and many sources could fund one target. All legs are applied in one transaction or none is.
+     * @param multiTransfer legs and their common currency
+     * @throws AccountNotFoundException if any account of legs is not found
+     * @throws InsufficientAmountOnBalanceException if any account would end up with balance less than zero
+     * @throws UnequalCurrenciesException if operation has different currency than any account
+     * @throws AccountConcurrentModificationException if accounts were concurrently modified on every attempt
+     * @throws AccountLockTimeoutException if accounts could not be locked in time
+     * @throws VelocityLimitExceededException if outflow of any source would exceed its velocity limit
+     * @throws SameAccountTransferException if source and target of any leg is the same account
+     */
+    public void createMultiTransferOperation(@Valid final MultiTransfer multiTransfer) {
+        for (TransferLeg leg : multiTransfer.getLegs()) {
+            checkDifferentAccounts(leg.getSourceAccountId(), leg.getTargetAccountId());
+        }
+        // outflow of each source is reserved at once, as if it was one operation
+        final Map<String, Long> outflows = new LinkedHashMap<>();
+        for (TransferLeg leg : multiTransfer.getLegs()) {
+            outflows.merge(leg.getSourceAccountId(), leg.getAmount(), Long::sum);
+        }
+        final Map<String, Long> reservations = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Long> outflow : outflows.entrySet()) {
+                reservations.put(outflow.getKey(), velocityLimiter.reserve(outflow.getKey(), outflow.getValue()));
             }
+            final long total = outflows.values().stream().mapToLong(Long::longValue).sum();
+            FlightEvents.recordOperation(MULTI_TRANSFER, null, null, total,
+                    () -> retryPolicy.execute(() -> applyMultiTransfer(multiTransfer)));
+        } catch (RuntimeException e) {
+            for (Map.Entry<String, Long> reservation : reservations.entrySet()) {
+                velocityLimiter.release(reservation.getKey(), reservation.getValue(), outflows.get(reservation.getKey()));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Accounts are read (locked in pessimistic mode) in id order like in other transactions, so multi-leg
+     * transfers do not deadlock with them. Every account is updated once with its net change and gets one
+     * TRANSFER_OUT or TRANSFER_IN operation of it, so the operation has balance and version of the update.
+     * Accounts with zero net change are left as they are.
+     */
+    private void applyMultiTransfer(final MultiTransfer multiTransfer) {
+        final String currency = multiTransfer.getCurrency();
+        final Map<String, Long> netChanges = new TreeMap<>(AccountIdOrder.COMPARATOR);
+        for (TransferLeg leg : multiTransfer.getLegs()) {
+            netChanges.merge(leg.getSourceAccountId(), -leg.getAmount(), Long::sum);
+            netChanges.merge(leg.getTargetAccountId(), leg.getAmount(), Long::sum);
+        }
 
-            final long newSourceBalance = sourceAccount.getBalance() - transfer.getAmount();
-            if (newSourceBalance < 0) {
-                throw new InsufficientAmountOnBalanceException("Account has not enough money on balance: " + sourceAccountId);
+        try (final AccountTransaction transaction = begin()) {
+            final Map<String, Account> accounts = new HashMap<>();
+            for (String id : netChanges.keySet()) {
+                final Account account = findAccount(transaction, id);
+                if (account == null) {
+                    throw new AccountNotFoundException("Account not found: " + id);
+                }
+                checkChange(account, netChanges.get(id), currency, null);
+                accounts.put(id, account);
             }
 
-            final Account targetAccount = mapper.findById(targetAccountId);
-            if (targetAccount == null) {
-                throw new AccountNotFoundException("Target account not found: " + targetAccountId);
+            final List<BalanceInvariantChecker.Delta> deltas = new ArrayList<>();
+            for (Map.Entry<String, Long> change : netChanges.entrySet()) {
+                final long amount = change.getValue();
+                if (amount == 0) {
+                    continue;
+                }
+                final Account account = accounts.get(change.getKey());
+                final long newBalance = account.getBalance() + amount;
+                updateBalance(transaction, account, newBalance);
+                logOperation(transaction, account.getId(),
+                        amount < 0 ? OperationType.TRANSFER_OUT : OperationType.TRANSFER_IN,
+                        amount, newBalance, account.getVersion() + 1);
+                deltas.add(new BalanceInvariantChecker.Delta(account.getId(), currency, amount,
+                        account.getVersion() + 1));
             }
 
-            if (!sourceAccount.getCurrency().equals(transfer.getCurrency()) ||
-                !targetAccount.getCurrency().equals(transfer.getCurrency())) {
-                throw new UnequalCurrenciesException("Account currency differs with the currency of operation");
+            invariantChecker.commit(transaction::commit, deltas);
+        }
+    }
+
+    private void transfer(final String sourceAccountId, final String targetAccountId, final Transfer transfer) {
+        FlightEvents.recordOperation(TRANSFER, sourceAccountId, targetAccountId, transfer.getAmount(), () -> {
+            if (isActor()) {
+                transferThroughMailboxes(sourceAccountId, targetAccountId, transfer);
+            } else if (batcher.isEnabled()) {
+                batcher.execute(new BatchedOperation(OperationType.TRANSFER_OUT, sourceAccountId, targetAccountId,
+                        transfer.getAmount(), transfer.getCurrency(), null), this::executeBatch);
+            } else {
+                transferInTransaction(sourceAccountId, targetAccountId, transfer.getAmount(), transfer.getCurrency());
             }
+        });
+    }
 
-            final long newTargetBalance = targetAccount.getBalance() + transfer.getAmount();
-            mapper.updateBalance(sourceAccountId, newSourceBalance);
-            mapper.updateBalance(targetAccountId, newTargetBalance);
+    private void transferInTransaction(final String sourceAccountId, final String targetAccountId,
+                                       final long amount, final String currency) {
+        retryPolicy.execute(() -> {
+            try (final AccountTransaction transaction = begin()) {
+                // Rows are always locked in id order, so crossing transfers never deadlock
+                final boolean targetFirst = locksOnRead()
+                        && AccountIdOrder.COMPARATOR.compare(targetAccountId, sourceAccountId) < 0;
+                final Account lockedTarget = targetFirst ? findAccount(transaction, targetAccountId) : null;
+                final Account sourceAccount = findAccount(transaction, sourceAccountId);
+                final Account targetAccount = targetFirst ? lockedTarget : findAccount(transaction, targetAccountId);
 
-            sqlSession.commit();
-        }
+                if (sourceAccount == null) {
+                    throw new AccountNotFoundException("Source account not found: " + sourceAccountId);
+                }
+
+                final long newSourceBalance = sourceAccount.getBalance() - amount;
+                if (newSourceBalance < 0) {
+                    throw new InsufficientAmountOnBalanceException("Account has not enough money on balance: " + sourceAccountId);
+                }
+
+                if (targetAccount == null) {
+                    throw new AccountNotFoundException("Target account not found: " + targetAccountId);
+                }
+
+                if (!sourceAccount.getCurrency().equals(currency) ||
+                    !targetAccount.getCurrency().equals(currency)) {
+                    throw new UnequalCurrenciesException("Account currency differs with the currency of operation");
+                }
+
+                final long newTargetBalance = targetAccount.getBalance() + amount;
+                updateBalance(transaction, sourceAccount, newSourceBalance);
+                updateBalance(transaction, targetAccount, newTargetBalance);
+                logOperation(transaction, sourceAccountId, OperationType.TRANSFER_OUT,
+                        -amount, newSourceBalance, sourceAccount.getVersion() + 1);
+                logOperation(transaction, targetAccountId, OperationType.TRANSFER_IN,
+                        amount, newTargetBalance, targetAccount.getVersion() + 1);
+
+                invariantChecker.commit(transaction::commit, Arrays.asList(
+                        new BalanceInvariantChecker.Delta(sourceAccountId, currency, -amount,
+                                sourceAccount.getVersion() + 1),
+                        new BalanceInvariantChecker.Delta(targetAccountId, currency, amount,
+                                targetAccount.getVersion() + 1)));
+            }
+        });
     }
 
     /**
@@ -125,30 +422,254 @@ public class AccountService {
      * @throws AccountNotFoundException if no such account in database
      * @throws InsufficientAmountOnBalanceException if operation tries to change balance to less than zero
      * @throws UnequalCurrenciesException if operation has different currency than account
+     * @throws AccountConcurrentModificationException if account was concurrently modified on every attempt
+     * @throws AccountLockTimeoutException if account could not be locked in time
      */
     public void changeBalance(final String accountId, long amount, final String currency) {
-        try (final SqlSession sqlSession = sqlSessionFactory.openSession(false)) {
-            final AccountMapper mapper = getAccountMapper(sqlSession);
-            final Account account = mapper.findById(accountId);
+        changeBalance(accountId, amount, currency, amount < 0 ? OperationType.WITHDRAWAL : OperationType.DEPOSIT, null);
+    }
+
+    private void changeBalance(final String accountId, final long amount, final String currency,
+                               final OperationType type, @Nullable final Long expectedVersion) {
+        final Runnable operation = () -> retryPolicy.execute(() ->
+                applyBalanceChange(accountId, amount, currency, type, expectedVersion));
+        FlightEvents.recordOperation(type.name(), accountId, null, amount, () -> {
+            if (isActor()) {
+                mailboxes.execute(accountId, operation);
+            } else if (batcher.isEnabled()) {
+                batcher.execute(new BatchedOperation(type, accountId, null, amount, currency, expectedVersion),
+                        this::executeBatch);
+            } else {
+                operation.run();
+            }
+        });
+    }
+
+    /**
+     * Execute batch of operations in one transaction. Operation failed validation fails alone,
+     * if the transaction fails as a whole (concurrent modification, lock timeout), operations are
+     * executed one by one with usual retries.
+     */
+    private void executeBatch(final List<BatchedOperation> batch) {
+        try {
+            applyBatch(batch);
+        } catch (RuntimeException e) {
+            for (BatchedOperation operation : batch) {
+                try {
+                    if (operation.isTransfer()) {
+                        transferInTransaction(operation.getAccountId(), operation.getTargetAccountId(),
+                                operation.getAmount(), operation.getCurrency());
+                    } else {
+                        retryPolicy.execute(() -> applyBalanceChange(operation.getAccountId(), operation.getAmount(),
+                                operation.getCurrency(), operation.getType(), operation.getExpectedVersion()));
+                    }
+                    operation.succeed();
+                } catch (RuntimeException failure) {
+                    operation.fail(failure);
+                }
+            }
+        }
+    }
+
+    private void applyBatch(final List<BatchedOperation> batch) {
+        final Map<BatchedOperation, RuntimeException> failures = new HashMap<>();
+        try (final AccountTransaction transaction = begin()) {
+            // Accounts are read (locked in pessimistic mode) in id order, then changed in memory item by item
+            final Set<String> ids = new TreeSet<>(AccountIdOrder.COMPARATOR);
+            for (BatchedOperation operation : batch) {
+                ids.add(operation.getAccountId());
+                if (operation.isTransfer()) {
+                    ids.add(operation.getTargetAccountId());
+                }
+            }
+            final Map<String, Account> accounts = new HashMap<>();
+            for (String id : ids) {
+                final Account account = findAccount(transaction, id);
+                if (account != null) {
+                    accounts.put(id, account);
+                }
+            }
+
+            final List<BalanceInvariantChecker.Delta> deltas = new ArrayList<>();
+            for (BatchedOperation operation : batch) {
+                try {
+                    if (operation.isTransfer()) {
+                        final Account source = accounts.get(operation.getAccountId());
+                        if (source == null) {
+                            throw new AccountNotFoundException("Source account not found: " + operation.getAccountId());
+                        }
+                        final Account target = accounts.get(operation.getTargetAccountId());
+                        if (target == null) {
+                            throw new AccountNotFoundException("Target account not found: " + operation.getTargetAccountId());
+                        }
+                        checkChange(source, -operation.getAmount(), operation.getCurrency(), null);
+                        checkChange(target, operation.getAmount(), operation.getCurrency(), null);
+                        applyChange(transaction, accounts, operation.getAccountId(), -operation.getAmount(),
+                                OperationType.TRANSFER_OUT, deltas);
+                        applyChange(transaction, accounts, operation.getTargetAccountId(), operation.getAmount(),
+                                OperationType.TRANSFER_IN, deltas);
+                    } else {
+                        final Account account = accounts.get(operation.getAccountId());
+                        if (account == null) {
+                            throw new AccountNotFoundException("Account not found: " + operation.getAccountId());
+                        }
+                        checkChange(account, operation.getAmount(), operation.getCurrency(), operation.getExpectedVersion());
+                        applyChange(transaction, accounts, operation.getAccountId(), operation.getAmount(),
+                                operation.getType(), deltas);
+                    }
+                } catch (AccountNotFoundException | AccountVersionMismatchException | UnequalCurrenciesException
+                        | InsufficientAmountOnBalanceException e) {
+                    failures.put(operation, e);
+                }
+            }
+
+            invariantChecker.commit(transaction::commit, deltas);
+        }
+        for (BatchedOperation operation : batch) {
+            final RuntimeException failure = failures.get(operation);
+            if (failure == null) {
+                operation.succeed();
+            } else {
+                operation.fail(failure);
+            }
+        }
+    }
+
+    /**
+     * Transfer as debit of source followed by credit of target, each in mailbox of its account.
+     * Between the steps the money is recorded as withdrawn, if credit fails the debit is refunded.
+     */
+    private void transferThroughMailboxes(final String sourceAccountId, final String targetAccountId,
+                                          final Transfer transfer) {
+        // Accounts are never deleted, so checking target upfront avoids refunds for invalid transfers
+        final Account targetAccount = accountRepository.findById(targetAccountId).orElseThrow(() ->
+                new AccountNotFoundException("Target account not found: " + targetAccountId));
+        if (!targetAccount.getCurrency().equals(transfer.getCurrency())) {
+            throw new UnequalCurrenciesException("Account currency differs with the currency of operation");
+        }
+
+        changeBalance(sourceAccountId, -transfer.getAmount(), transfer.getCurrency(), OperationType.TRANSFER_OUT, null);
+        try {
+            changeBalance(targetAccountId, transfer.getAmount(), transfer.getCurrency(), OperationType.TRANSFER_IN, null);
+        } catch (RuntimeException e) {
+            try {
+                changeBalance(sourceAccountId, transfer.getAmount(), transfer.getCurrency(),
+                        OperationType.TRANSFER_REFUND, null);
+            } catch (RuntimeException refundFailure) {
+                LOG.error("Transfer of {} {} from {} to {} is debited but neither credited nor refunded",
+                        transfer.getAmount(), transfer.getCurrency(), sourceAccountId, targetAccountId, refundFailure);
+                e.addSuppressed(refundFailure);
+            }
+            throw e;
+        }
+    }
+
+    private void applyBalanceChange(final String accountId, final long amount, final String currency,
+                                    final OperationType type, @Nullable final Long expectedVersion) {
+        try (final AccountTransaction transaction = begin()) {
+            final Account account = findAccount(transaction, accountId);
             if (account == null) {
                 throw new AccountNotFoundException("Account not found: " + accountId);
             }
 
-            if (!account.getCurrency().equals(currency)) {
-                throw new UnequalCurrenciesException("Account currency differs with the currency of operation");
-            }
+            checkChange(account, amount, currency, expectedVersion);
 
             final long newBalance = account.getBalance() + amount;
-            if (newBalance < 0) {
-                throw new InsufficientAmountOnBalanceException("Account has not enough money on balance: " + accountId);
-            }
+            updateBalance(transaction, account, newBalance);
+            logOperation(transaction, accountId, type, amount, newBalance, account.getVersion() + 1);
+            invariantChecker.commit(transaction::commit, accountId, currency, amount, account.getVersion() + 1);
+        }
+    }
 
-            mapper.updateBalance(accountId, newBalance);
-            sqlSession.commit();
+    /**
+     * Transfer to the same account reads it twice and writes it twice, which every concurrency strategy
+     * handles differently, so it is rejected before any of them is involved
+     */
+    private static void checkDifferentAccounts(final String sourceAccountId, final String targetAccountId) {
+        if (sourceAccountId.equals(targetAccountId)) {
+            throw new SameAccountTransferException("Source and target is the same account: " + sourceAccountId);
         }
     }
 
-    private AccountMapper getAccountMapper(final SqlSession sqlSession) {
-        return sqlSession.getMapper(AccountMapper.class);
+    private static void checkChange(final Account account, final long amount, final String currency,
+                                    @Nullable final Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != account.getVersion()) {
+            throw new AccountVersionMismatchException("Account version differs from expected: " + account.getId());
+        }
+
+        if (!account.getCurrency().equals(currency)) {
+            throw new UnequalCurrenciesException("Account currency differs with the currency of operation");
+        }
+
+        if (account.getBalance() + amount < 0) {
+            throw new InsufficientAmountOnBalanceException("Account has not enough money on balance: " + account.getId());
+        }
+    }
+
+    /**
+     * Change balance of account read by batch transaction and keep the changed account for the next items
+     */
+    private void applyChange(final AccountTransaction transaction, final Map<String, Account> accounts,
+                             final String accountId, final long amount, final OperationType type,
+                             final List<BalanceInvariantChecker.Delta> deltas) {
+        final Account account = accounts.get(accountId);
+        final long newBalance = account.getBalance() + amount;
+        updateBalance(transaction, account, newBalance);
+        logOperation(transaction, accountId, type, amount, newBalance, account.getVersion() + 1);
+        accounts.put(accountId, Account.builder()
+                .id(account.getId())
+                .name(account.getName())
+                .balance(newBalance)
+                .version(account.getVersion() + 1)
+                .build());
+        deltas.add(new BalanceInvariantChecker.Delta(accountId, account.getCurrency(), amount,
+                account.getVersion() + 1));
+    }
+
+    /**
+     * Start transaction of balance operation, profiled and replicated
+     */
+    private AccountTransaction begin() {
+        return replicationBarrier.track(FlightEvents.begin(accountRepository));
+    }
+
+    private boolean isPessimistic() {
+        return concurrencyConfiguration.getStrategy() == AccountConcurrencyConfiguration.Strategy.PESSIMISTIC;
+    }
+
+    /**
+     * Accounts are locked on read in pessimistic mode and with backends which may lose unlocked updates
+     */
+    private boolean locksOnRead() {
+        return isPessimistic() || accountRepository.requiresLockOnRead();
+    }
+
+    private boolean isActor() {
+        return concurrencyConfiguration.getStrategy() == AccountConcurrencyConfiguration.Strategy.ACTOR;
+    }
+
+    private Account findAccount(final AccountTransaction transaction, final String accountId) {
+        return transaction.find(accountId, locksOnRead());
+    }
+
+    private void updateBalance(final AccountTransaction transaction, final Account account, final long balance) {
+        if (!transaction.updateBalance(account, balance)) {
+            throw new AccountConcurrentModificationException("Account was modified concurrently: " + account.getId());
+        }
+    }
+
+    /**
+     * Append balance change to operation log in the same transaction, log is relayed to downstream consumers
+     */
+    private void logOperation(final AccountTransaction transaction, final String accountId, final OperationType type,
+                              final long amount, final long balance, final long version) {
+        transaction.logOperation(BalanceChange.builder()
+                .accountId(accountId)
+                .type(type)
+                .amount(amount)
+                .balance(balance)
+                .version(version)
+                .createdAt(Instant.now())
+                .build());
     }
 }
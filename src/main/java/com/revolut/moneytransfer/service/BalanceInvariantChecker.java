@@ -0,0 +1,234 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.InvariantCheckConfiguration;
+import com.revolut.moneytransfer.database.AccountIdOrder;
+import com.revolut.moneytransfer.database.AccountRepository;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.CurrencyTotals;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that sum of account balances equals sum of deposits minus withdrawals.
+ * <p>
+ * Committed balance changes are queued together with the account version they produced, running totals
+ * per currency are summed by the checker. Accounts are scanned in small chunks ordered by id, the scan cursor
+ * is kept between chunks, so a pass is spread over time. A change of already scanned account is added to the
+ * scanned sum if its version is above the version read by the scan, so the pass result is consistent without
+ * stopping writers.
+ * <p>
+ * Versions of a chunk are kept only until every commit which could overlap its read has been queued: writers
+ * register in the current epoch (a counter, they never wait), the epoch is advanced after each chunk read,
+ * and the next chunk is read once writers of the previous epoch are done. Commits started after a chunk read
+ * come after it, so their changes are added to the scanned sum without version check.
+ * The first pass after start only establishes the baseline.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class BalanceInvariantChecker {
+    private static final Logger LOG = LoggerFactory.getLogger(BalanceInvariantChecker.class);
+
+    private final AccountRepository accountRepository;
+    private final InvariantCheckConfiguration configuration;
+
+    // Writers in flight by epoch parity, at most two epochs have writers at a time
+    private volatile long epoch;
+    private final AtomicLong[] inFlight = {new AtomicLong(), new AtomicLong()};
+    private final Queue<Delta> changes = new ConcurrentLinkedQueue<>();
+
+    // Scan state, used only under checker monitor, null cursor is the start of the pass
+    private String cursor;
+    private final Map<String, Long> chunkVersions = new HashMap<>();
+    private boolean finishing;
+    private final Map<String, Long> expectedTotals = new HashMap<>();
+    private final Map<String, Long> scannedTotals = new HashMap<>();
+    private final Map<String, Long> baseline = new HashMap<>();
+    private boolean baselineEstablished;
+
+    private volatile Report lastReport;
+
+    /**
+     * Commit balance change of one account and record it in running totals
+     * @param commit database commit
+     * @param accountId changed account
+     * @param currency account currency
+     * @param delta balance change
+     * @param version account version after the change
+     */
+    public void commit(final Runnable commit, final String accountId, final String currency, final long delta,
+                       final long version) {
+        commit(commit, Collections.singletonList(new Delta(accountId, currency, delta, version)));
+    }
+
+    /**
+     * Commit batch of balance changes and record them in running totals
+     */
+    public void commit(final Runnable commit, final List<Delta> deltas) {
+        final long writerEpoch = enter();
+        try {
+            commit.run();
+            changes.addAll(deltas);
+        } finally {
+            inFlight[(int) (writerEpoch & 1)].decrementAndGet();
+        }
+    }
+
+    /**
+     * Register writer in the current epoch, re-read epoch after registration, so the scan either sees
+     * the writer or the writer sees the advanced epoch
+     */
+    private long enter() {
+        while (true) {
+            final long current = epoch;
+            final AtomicLong counter = inFlight[(int) (current & 1)];
+            counter.incrementAndGet();
+            if (epoch == current) {
+                return current;
+            }
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * Read next chunk of accounts, finish the pass when all accounts are read.
+     * Does nothing while commits overlapping the previous chunk read are in flight.
+     * @return true if the pass has been finished
+     */
+    public synchronized boolean checkNextChunk() {
+        if (inFlight[(int) ((epoch - 1) & 1)].get() != 0) {
+            return false;
+        }
+        drainChanges();
+        chunkVersions.clear();
+        if (finishing) {
+            finishPass();
+            return true;
+        }
+
+        final List<Account> accounts = accountRepository.findPage(cursor, configuration.getChunkSize());
+        for (Account account : accounts) {
+            scannedTotals.merge(account.getCurrency(), account.getBalance(), Long::sum);
+            chunkVersions.put(account.getId(), account.getVersion());
+        }
+        if (!accounts.isEmpty()) {
+            cursor = accounts.get(accounts.size() - 1).getId();
+        }
+        finishing = accounts.size() < configuration.getChunkSize();
+        epoch++;
+        return false;
+    }
+
+    /**
+     * Run the whole pass at once
+     * @return report of the pass
+     */
+    public Report runFullPass() {
+        while (!checkNextChunk()) {
+            Thread.yield();
+        }
+        return lastReport;
+    }
+
+    /**
+     * Background check, one chunk per invocation; queued changes are summed even if the check is disabled
+     */
+    @Scheduled(fixedDelay = "${invariants.chunk-interval:100ms}", initialDelay = "${invariants.chunk-interval:100ms}")
+    public void scheduledCheck() {
+        if (configuration.isEnabled()) {
+            checkNextChunk();
+        } else {
+            synchronized (this) {
+                drainChanges();
+            }
+        }
+    }
+
+    public Optional<Report> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    private void drainChanges() {
+        Delta change;
+        while ((change = changes.poll()) != null) {
+            expectedTotals.merge(change.getCurrency(), change.getAmount(), Long::sum);
+            if (isScanned(change.getAccountId())) {
+                // not in versions of the last chunk: the account was scanned before the commit started
+                final Long scannedVersion = chunkVersions.get(change.getAccountId());
+                if (scannedVersion == null || change.getVersion() > scannedVersion) {
+                    scannedTotals.merge(change.getCurrency(), change.getAmount(), Long::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * The last chunk of the pass reaches the end of id space, accounts created after it are scanned as empty
+     */
+    private boolean isScanned(final String accountId) {
+        return finishing || cursor != null && AccountIdOrder.COMPARATOR.compare(accountId, cursor) <= 0;
+    }
+
+    private void finishPass() {
+        final Set<String> currencies = new TreeSet<>(scannedTotals.keySet());
+        currencies.addAll(expectedTotals.keySet());
+
+        if (!baselineEstablished) {
+            // Money which existed before start: balance minus changes recorded since start
+            for (String currency : currencies) {
+                baseline.put(currency, scannedTotals.getOrDefault(currency, 0L) - expected(currency));
+            }
+            baselineEstablished = true;
+        }
+
+        final List<CurrencyTotals> totals = new ArrayList<>();
+        boolean consistent = true;
+        for (String currency : currencies) {
+            final CurrencyTotals currencyTotals = new CurrencyTotals(currency,
+                    baseline.getOrDefault(currency, 0L) + expected(currency),
+                    scannedTotals.getOrDefault(currency, 0L));
+            if (currencyTotals.getDifference() != 0) {
+                consistent = false;
+                LOG.error("Money is not conserved for {}: expected {}, actual {}",
+                        currency, currencyTotals.getExpected(), currencyTotals.getActual());
+            }
+            totals.add(currencyTotals);
+        }
+        lastReport = new Report(Instant.now(), consistent, totals);
+
+        cursor = null;
+        finishing = false;
+        scannedTotals.clear();
+    }
+
+    private long expected(final String currency) {
+        return expectedTotals.getOrDefault(currency, 0L);
+    }
+
+    /**
+     * Balance change of one account in a batch
+     */
+    @Value
+    public static class Delta {
+        String accountId;
+        String currency;
+        long amount;
+        // account version after the change
+        long version;
+    }
+
+    @Value
+    public static class Report {
+        Instant finishedAt;
+        boolean consistent;
+        List<CurrencyTotals> totals;
+    }
+}
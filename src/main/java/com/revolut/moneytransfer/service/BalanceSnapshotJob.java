@@ -0,0 +1,365 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.SnapshotConfiguration;
+import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.database.OperationMapper;
+import com.revolut.moneytransfer.database.SnapshotMapper;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import com.revolut.moneytransfer.model.SnapshotReport;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * End-of-day balance snapshot with daily interest and fee accrual.
+ * <p>
+ * Account id space is split into ranges (partitions) processed in parallel on fork-join pool.
+ * A partition is walked in chunks of snapshot.chunk-size accounts, each one short transaction: accounts
+ * of the chunk are locked, then streamed into snapshot rows, balance updates and INTEREST/FEE operations
+ * written with JDBC batches, and the last account of the chunk is recorded in SNAPSHOT_PROGRESS, which
+ * marks the partition completed with its last chunk. A run interrupted by crash is resumed by running
+ * the job for the same date again: completed partitions are skipped and the others continue after the
+ * last committed chunk, so accruals are posted exactly once.
+ * Failed partitions are retried by the same run up to snapshot.max-attempts passes.
+ * <p>
+ * Snapshot balance is the balance at the end of the day (UTC midnight): operations of the partition
+ * created since then are subtracted from the locked balance, and accounts opened since then are left out.
+ * So a late or resumed run gives the same snapshot as a run right after midnight, as long as the
+ * operations since midnight are not archived yet. Requires mybatis repository backend.
+ */
+@Singleton
+@Requires(property = "repository.backend", value = "mybatis", defaultValue = "mybatis")
+@RequiredArgsConstructor
+public class BalanceSnapshotJob {
+    private static final Logger LOG = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+    private static final BigInteger ID_SPACE = BigInteger.ONE.shiftLeft(64);
+    private static final long BPS_DAYS_PER_YEAR = 10_000L * 365;
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final SnapshotConfiguration configuration;
+    private final BalanceInvariantChecker invariantChecker;
+
+    private volatile SnapshotReport lastReport;
+
+    @Scheduled(cron = "${snapshot.cron:0 5 0 * * ?}")
+    public void scheduledRun() {
+        if (configuration.isEnabled()) {
+            run(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+        }
+    }
+
+    /**
+     * Take snapshot and post accruals of the day, or finish interrupted run of the day
+     * @return report of this run
+     */
+    public synchronized SnapshotReport run(final LocalDate date) {
+        final long started = System.nanoTime();
+        final Progress progress = new Progress();
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, configuration.getParallelism()));
+        try {
+            List<Integer> partitions = IntStream.range(0, configuration.getPartitions()).boxed()
+                    .collect(Collectors.toList());
+            for (int attempt = 1; !partitions.isEmpty(); attempt++) {
+                pool.invoke(new PartitionTask(date, partitions, 0, partitions.size(), progress));
+                partitions = progress.drainFailed();
+                if (partitions.isEmpty()) {
+                    break;
+                }
+                if (attempt >= configuration.getMaxAttempts()) {
+                    progress.failed.addAll(partitions);
+                    break;
+                }
+                LOG.warn("Snapshot of {}: retrying {} failed partitions in {}", date, partitions.size(),
+                        configuration.getRetryDelay());
+                if (!pause()) {
+                    progress.failed.addAll(partitions);
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        final SnapshotReport report = new SnapshotReport(date, configuration.getPartitions(),
+                progress.skipped.get(), progress.failed.size(), progress.accounts.get(),
+                Duration.ofNanos(System.nanoTime() - started));
+        LOG.info("Snapshot of {}: {} accounts in {} ms ({} accounts/s), {} partitions skipped, {} failed",
+                date, report.getAccounts(), report.getElapsed().toMillis(), report.getAccountsPerSecond(),
+                report.getSkippedPartitions(), report.getFailedPartitions());
+        if (!progress.failed.isEmpty()) {
+            LOG.error("Snapshot of {}: partitions {} failed {} times, run the job for {} again to complete it",
+                    date, progress.failed, configuration.getMaxAttempts(), date);
+        }
+        lastReport = report;
+        return report;
+    }
+
+    public Optional<SnapshotReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    /**
+     * @return false if the run was interrupted while waiting
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(configuration.getRetryDelay().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void processPartition(final LocalDate date, final int partition, final Progress progress) {
+        try {
+            String afterId;
+            try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+                final SnapshotMapper snapshotMapper = sqlSession.getMapper(SnapshotMapper.class);
+                if (snapshotMapper.isPartitionCompleted(date, partition)) {
+                    progress.skipped.incrementAndGet();
+                    return;
+                }
+                afterId = snapshotMapper.findLastAccountId(date, partition);
+            }
+            final String fromId = lowerBound(partition);
+            final String toId = lowerBound(partition + 1);
+            boolean first = afterId == null;
+            do {
+                afterId = processChunk(date, partition, fromId, afterId, toId, first, progress);
+                first = false;
+            } while (afterId != null);
+        } catch (RuntimeException e) {
+            progress.retry.add(partition);
+            LOG.error("Snapshot partition {} of {} failed", partition, date, e);
+        }
+    }
+
+    /**
+     * Snapshot the next chunk of partition in its own transaction
+     * @param afterId id of the last account of the previous chunk, null for the first chunk
+     * @param first no chunk of the partition is recorded yet
+     * @return id of the last account of the chunk, null if the partition is completed
+     */
+    private String processChunk(final LocalDate date, final int partition, final String fromId, final String afterId,
+                                final String toId, final boolean first, final Progress progress) {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            final SnapshotMapper snapshotMapper = sqlSession.getMapper(SnapshotMapper.class);
+            final Chunk chunk = new Chunk(afterId);
+            snapshotMapper.lockChunk(fromId, afterId, toId, configuration.getChunkSize(), context -> {
+                chunk.locked++;
+                chunk.lastId = context.getResultObject();
+            });
+            final boolean completed = chunk.locked < configuration.getChunkSize();
+
+            // Statements are grouped by kind, so each kind is sent as one JDBC batch
+            final List<BalanceChange> changes = new ArrayList<>();
+            final List<BalanceInvariantChecker.Delta> deltas = new ArrayList<>();
+            if (chunk.locked > 0) {
+                // Rows are locked, so no operation of the chunk is committed past this read
+                final Map<String, Long> changesSinceEndOfDay = new HashMap<>();
+                final Set<String> openedSinceEndOfDay = new HashSet<>();
+                snapshotMapper.findChangesSince(fromId, afterId, chunk.lastId, endOfDay(date), context -> {
+                    final BalanceChange change = context.getResultObject();
+                    changesSinceEndOfDay.merge(change.getAccountId(), change.getAmount(), Long::sum);
+                    if (change.getType() == OperationType.OPEN) {
+                        openedSinceEndOfDay.add(change.getAccountId());
+                    }
+                });
+
+                final Instant now = Instant.now();
+                snapshotMapper.findChunk(fromId, afterId, chunk.lastId, context -> {
+                    final Account account = context.getResultObject();
+                    if (openedSinceEndOfDay.contains(account.getId())) {
+                        return;
+                    }
+                    final long endOfDayBalance = account.getBalance()
+                            - changesSinceEndOfDay.getOrDefault(account.getId(), 0L);
+                    final long interest = interest(endOfDayBalance);
+                    // fee is limited by both balances, so it takes neither of them below zero
+                    final long fee = Math.min(configuration.getDailyFee(),
+                            Math.min(endOfDayBalance, account.getBalance()) + interest);
+                    snapshotMapper.insertSnapshot(date, account.getId(), endOfDayBalance, interest, fee);
+                    chunk.snapshots++;
+
+                    long balance = account.getBalance();
+                    long version = account.getVersion();
+                    if (interest != 0) {
+                        balance += interest;
+                        changes.add(accrual(account, OperationType.INTEREST, interest, balance, ++version, now));
+                        deltas.add(new BalanceInvariantChecker.Delta(account.getId(), account.getCurrency(),
+                                interest, version));
+                    }
+                    if (fee != 0) {
+                        balance -= fee;
+                        changes.add(accrual(account, OperationType.FEE, -fee, balance, ++version, now));
+                        deltas.add(new BalanceInvariantChecker.Delta(account.getId(), account.getCurrency(), -fee,
+                                version));
+                    }
+                });
+            }
+
+            final AccountMapper accountMapper = sqlSession.getMapper(AccountMapper.class);
+            for (BalanceChange change : changes) {
+                accountMapper.updateBalance(change.getAccountId(), change.getBalance(), change.getVersion() - 1);
+            }
+            final OperationMapper operationMapper = sqlSession.getMapper(OperationMapper.class);
+            for (BalanceChange change : changes) {
+                operationMapper.insertOperation(change);
+            }
+            if (first) {
+                snapshotMapper.insertProgress(date, partition, chunk.snapshots, chunk.lastId, completed);
+            } else {
+                snapshotMapper.updateProgress(date, partition, chunk.snapshots, chunk.lastId, completed);
+            }
+            checkUpdateCounts(sqlSession.flushStatements());
+
+            invariantChecker.commit(sqlSession::commit, deltas);
+            progress.accounts.addAndGet(chunk.snapshots);
+            return completed ? null : chunk.lastId;
+        }
+    }
+
+    private static Instant endOfDay(final LocalDate date) {
+        return date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private long interest(final long balance) {
+        return Math.floorDiv(Math.multiplyExact(balance, configuration.getAnnualInterestBps()), BPS_DAYS_PER_YEAR);
+    }
+
+    private static BalanceChange accrual(final Account account, final OperationType type, final long amount,
+                                         final long balance, final long version, final Instant createdAt) {
+        return BalanceChange.builder()
+                .accountId(account.getId())
+                .type(type)
+                .amount(amount)
+                .balance(balance)
+                .version(version)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    /**
+     * Rows are locked, so a statement which changed nothing means the chunk is inconsistent
+     */
+    private static void checkUpdateCounts(final List<BatchResult> results) {
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                if (count == 0) {
+                    throw new AccountConcurrentModificationException(
+                            "Snapshot statement changed no rows: " + result.getSql());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the smallest id of partition in database UUID order, null for the first partition and past the last
+     */
+    private String lowerBound(final int partition) {
+        final int partitions = configuration.getPartitions();
+        if (partition <= 0 || partition >= partitions) {
+            return null;
+        }
+        final long mostSignificantBits = BigInteger.valueOf(Long.MIN_VALUE)
+                .add(ID_SPACE.multiply(BigInteger.valueOf(partition)).divide(BigInteger.valueOf(partitions)))
+                .longValueExact();
+        return new UUID(mostSignificantBits, Long.MIN_VALUE).toString();
+    }
+
+    /**
+     * Accounts of a chunk counted by result handlers
+     */
+    private static class Chunk {
+        // the last locked id, or the last id of the previous chunk while nothing is locked
+        String lastId;
+        int locked;
+        int snapshots;
+
+        Chunk(final String afterId) {
+            this.lastId = afterId;
+        }
+    }
+
+    private static class Progress {
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicLong accounts = new AtomicLong();
+        // partitions failed in the current pass, and those which failed every pass
+        final Queue<Integer> retry = new ConcurrentLinkedQueue<>();
+        final List<Integer> failed = new ArrayList<>();
+
+        List<Integer> drainFailed() {
+            final List<Integer> partitions = new ArrayList<>(retry);
+            retry.clear();
+            Collections.sort(partitions);
+            return partitions;
+        }
+    }
+
+    /**
+     * Processes partitions listed from index {@code from} inclusive to {@code to} exclusive
+     */
+    private class PartitionTask extends RecursiveAction {
+        private final LocalDate date;
+        private final List<Integer> partitions;
+        private final int from;
+        private final int to;
+        private final Progress progress;
+
+        PartitionTask(final LocalDate date, final List<Integer> partitions, final int from, final int to,
+                      final Progress progress) {
+            this.date = date;
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    processPartition(date, partitions.get(from), progress);
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new PartitionTask(date, partitions, from, middle, progress),
+                    new PartitionTask(date, partitions, middle, to, progress));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.model.OperationType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Balance change or transfer waiting in {@link OperationBatcher}
+ */
+@Getter
+@RequiredArgsConstructor
+class BatchedOperation {
+    // WITHDRAWAL, DEPOSIT or TRANSFER_OUT for transfer
+    private final OperationType type;
+    private final String accountId;
+    // Target of transfer, null for other operations
+    @Nullable
+    private final String targetAccountId;
+    // Signed change of balance, amount of transfer
+    private final long amount;
+    private final String currency;
+    @Nullable
+    private final Long expectedVersion;
+
+    private final Thread caller = Thread.currentThread();
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    boolean isTransfer() {
+        return targetAccountId != null;
+    }
+
+    boolean isDone() {
+        return result.isDone();
+    }
+
+    void succeed() {
+        result.complete(null);
+    }
+
+    void fail(final RuntimeException e) {
+        result.completeExceptionally(e);
+    }
+
+    /**
+     * @throws RuntimeException failure of operation
+     */
+    void rethrowFailure() {
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.BatchingConfiguration;
+import lombok.RequiredArgsConstructor;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Combines concurrent balance operations into batches executed in one database transaction.
+ * <p>
+ * Caller enqueues its operation and, if nobody executes batches at the moment, becomes the leader:
+ * it drains the queue and executes batches until its own operation is done, then hands leadership
+ * to the caller of the oldest queued operation. A lone operation is executed at once, operations arriving
+ * while a batch runs form the next one. Leader waits for more operations only if the previous batch had
+ * several, proportionally to its size, so the wait appears only under load.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class OperationBatcher {
+    private final BatchingConfiguration configuration;
+
+    private final Queue<BatchedOperation> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean leader = new AtomicBoolean();
+    private volatile int lastBatchSize = 1;
+
+    public boolean isEnabled() {
+        return configuration.isEnabled();
+    }
+
+    /**
+     * Execute operation as a part of batch and wait for its result
+     * @param executor executes batch, completes every operation of it
+     * @throws RuntimeException failure of the operation
+     */
+    void execute(final BatchedOperation operation, final Consumer<List<BatchedOperation>> executor) {
+        pending.add(operation);
+        pendingCount.incrementAndGet();
+        while (!operation.isDone()) {
+            if (leader.compareAndSet(false, true)) {
+                lead(operation, executor);
+            } else {
+                // woken up by completion of the operation or by leadership handoff
+                LockSupport.park(this);
+            }
+        }
+        operation.rethrowFailure();
+    }
+
+    private void lead(final BatchedOperation own, final Consumer<List<BatchedOperation>> executor) {
+        try {
+            while (!own.isDone()) {
+                linger();
+                final List<BatchedOperation> batch = drain();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                lastBatchSize = batch.size();
+                try {
+                    executor.accept(batch);
+                } catch (RuntimeException e) {
+                    for (BatchedOperation operation : batch) {
+                        operation.fail(e);
+                    }
+                }
+                for (BatchedOperation operation : batch) {
+                    if (operation.getCaller() != Thread.currentThread()) {
+                        LockSupport.unpark(operation.getCaller());
+                    }
+                }
+            }
+        } finally {
+            leader.set(false);
+            final BatchedOperation next = pending.peek();
+            if (next != null) {
+                LockSupport.unpark(next.getCaller());
+            }
+        }
+    }
+
+    private void linger() {
+        final int maxBatchSize = configuration.getMaxBatchSize();
+        final int previous = lastBatchSize;
+        if (previous <= 1 || maxBatchSize <= 1) {
+            return;
+        }
+        final long linger = configuration.getMaxLinger().toNanos() * Math.min(previous - 1, maxBatchSize - 1)
+                / (maxBatchSize - 1);
+        final long deadline = System.nanoTime() + linger;
+        while (pendingCount.get() < maxBatchSize && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private List<BatchedOperation> drain() {
+        final List<BatchedOperation> batch = new ArrayList<>(Math.min(pendingCount.get(), configuration.getMaxBatchSize()));
+        while (batch.size() < configuration.getMaxBatchSize()) {
+            final BatchedOperation operation = pending.poll();
+            if (operation == null) {
+                break;
+            }
+            pendingCount.decrementAndGet();
+            batch.add(operation);
+        }
+        return batch;
+    }
+}
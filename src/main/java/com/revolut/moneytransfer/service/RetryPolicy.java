@@ -0,0 +1,68 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.AccountConcurrencyConfiguration;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import lombok.RequiredArgsConstructor;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retries with exponential jittered backoff for operations
+ * failed due to concurrent modification of account
+ */
+@Singleton
+@RequiredArgsConstructor
+public class RetryPolicy {
+    private final AccountConcurrencyConfiguration configuration;
+
+    /**
+     * Execute operation retrying it on concurrent modification
+     * @param operation operation to execute
+     * @return operation result
+     * @throws AccountConcurrentModificationException if all attempts failed
+     */
+    public <T> T execute(final Supplier<T> operation) {
+        final int maxAttempts = Math.max(1, configuration.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (AccountConcurrentModificationException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Execute operation retrying it on concurrent modification
+     * @param operation operation to execute
+     * @throws AccountConcurrentModificationException if all attempts failed
+     */
+    public void execute(final Runnable operation) {
+        execute(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    private void backoff(final int attempt, final AccountConcurrentModificationException cause) {
+        final long initial = configuration.getInitialBackoff().toNanos();
+        final long max = configuration.getMaxBackoff().toNanos();
+        final long ceiling = Math.min(max, initial << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        // Full jitter: spread competing retries uniformly over the whole window
+        final long pause = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(pause / 1_000_000, (int) (pause % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
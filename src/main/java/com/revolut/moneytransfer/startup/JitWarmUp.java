@@ -0,0 +1,201 @@
+package com.revolut.moneytransfer.startup;
+
+import com.revolut.moneytransfer.config.RepositoryConfiguration;
+import com.revolut.moneytransfer.config.StartupConfiguration;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.Withdrawal;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Warms up JIT for balance operations before application reports readiness.
+ * <p>
+ * Compiled code belongs to classes, not to bean instances, so the application is started once more
+ * in the same JVM against a scratch in-memory database and operations are executed there: directly on
+ * {@link AccountService}, then over HTTP through controllers and JSON codecs. Production data is never
+ * touched. Health endpoint reports DOWN until the warm-up is finished or timed out.
+ * <p>
+ * Scratch context runs in {@value #ENVIRONMENT} environment on top of the active ones, which switches off
+ * background jobs and everything reaching outside of the process (application-warm-up.yml).
+ */
+@Singleton
+@RequiredArgsConstructor
+public class JitWarmUp {
+    private static final Logger LOG = LoggerFactory.getLogger(JitWarmUp.class);
+    public static final String ENVIRONMENT = "warm-up";
+    private static final String CURRENCY = "USD";
+    private static final String URL_PROPERTY = "datasources.default.url";
+    // options bound to the database of application rather than to its connections
+    private static final Set<String> DATABASE_OPTIONS = new HashSet<>(Arrays.asList(
+            "DB_CLOSE_DELAY", "AUTO_SERVER", "AUTO_SERVER_PORT", "IFEXISTS", "FILE_LOCK", "ACCESS_MODE_DATA"));
+
+    private final StartupConfiguration configuration;
+    private final RepositoryConfiguration repositoryConfiguration;
+    private final StartupTimings timings;
+    private final ApplicationContext applicationContext;
+
+    private volatile boolean completed;
+
+    @EventListener
+    void onServerStartup(final ServerStartupEvent event) {
+        if (!configuration.isJitWarmUp()) {
+            return;
+        }
+        final Thread thread = new Thread(this::run, "jit-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true if warm-up is finished, failed or not enabled
+     */
+    public boolean isCompleted() {
+        return completed || !configuration.isJitWarmUp();
+    }
+
+    void run() {
+        final long deadline = System.nanoTime() + configuration.getJitWarmUpTimeout().toNanos();
+        File scratchFile = null;
+        try {
+            if (repositoryConfiguration.getFile() != null) {
+                scratchFile = File.createTempFile("warm-up", ".mv.db");
+            }
+            long startedAt = System.nanoTime();
+            final Set<String> environments = new LinkedHashSet<>(applicationContext.getEnvironment().getActiveNames());
+            environments.add(ENVIRONMENT);
+            try (EmbeddedServer server = ApplicationContext.build()
+                    .environments(environments.toArray(new String[0]))
+                    .properties(scratchProperties(scratchFile))
+                    .environmentPropertySource(false)
+                    .run(EmbeddedServer.class)) {
+                timings.nestedPhase("jit-warm-up:context", startedAt);
+
+                final AccountService accountService = server.getApplicationContext().getBean(AccountService.class);
+                final String[] accountIds = createAccounts(accountService);
+
+                startedAt = System.nanoTime();
+                warmUpService(accountService, accountIds, deadline);
+                timings.nestedPhase("jit-warm-up:service", startedAt);
+
+                startedAt = System.nanoTime();
+                try (RxHttpClient client = server.getApplicationContext()
+                        .createBean(RxHttpClient.class, server.getURL())) {
+                    warmUpHttp(client.toBlocking(), accountIds, deadline);
+                }
+                timings.nestedPhase("jit-warm-up:http", startedAt);
+            }
+        } catch (IOException | RuntimeException e) {
+            // warm-up is an optimization, never a reason to stay unready
+            LOG.warn("JIT warm-up failed: {}", e.toString());
+        } finally {
+            if (scratchFile != null && !scratchFile.delete()) {
+                scratchFile.deleteOnExit();
+            }
+            timings.phaseEnded("jit-warm-up");
+            completed = true;
+            LOG.info("Ready in {} ms, phases: {}", timings.getTotal().toMillis(), timings.getPhases());
+        }
+    }
+
+    private Map<String, Object> scratchProperties(final File scratchFile) {
+        final Map<String, Object> properties = new HashMap<>();
+        // properties of the scratch context itself, they take precedence over system properties
+        properties.put("micronaut.server.port", -1);
+        properties.put(URL_PROPERTY, scratchUrl(applicationContext.getEnvironment()
+                .getProperty(URL_PROPERTY, String.class).orElse("")));
+        if (scratchFile != null) {
+            properties.put("repository.file", scratchFile.getAbsolutePath());
+        }
+        return properties;
+    }
+
+    /**
+     * @return URL of a fresh in-memory database with connection options of the application database
+     */
+    static String scratchUrl(final String url) {
+        final StringBuilder scratchUrl = new StringBuilder("jdbc:h2:mem:warm-up-").append(UUID.randomUUID());
+        final String[] parts = url.split(";");
+        for (int i = 1; i < parts.length; i++) {
+            final int equals = parts[i].indexOf('=');
+            final String name = (equals < 0 ? parts[i] : parts[i].substring(0, equals)).trim();
+            if (!name.isEmpty() && !DATABASE_OPTIONS.contains(name.toUpperCase(Locale.ROOT))) {
+                scratchUrl.append(';').append(parts[i]);
+            }
+        }
+        return scratchUrl.toString();
+    }
+
+    private String[] createAccounts(final AccountService accountService) {
+        final Deposit initial = new Deposit();
+        initial.setAmount(1_000_000_000L);
+        initial.setCurrency(CURRENCY);
+
+        final String[] accountIds = new String[Math.max(2, configuration.getJitWarmUpAccounts())];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = accountService.createAccount(Account.builder()
+                    .name("warm-up-" + i)
+                    .build()).getId();
+            accountService.createDepositOperation(accountIds[i], initial);
+        }
+        return accountIds;
+    }
+
+    private void warmUpService(final AccountService accountService, final String[] accountIds, final long deadline) {
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency(CURRENCY);
+
+        for (int i = 0; i < configuration.getJitWarmUpIterations() && System.nanoTime() < deadline; i++) {
+            final String source = accountIds[i % accountIds.length];
+            final String target = accountIds[(i + 1) % accountIds.length];
+            accountService.changeBalance(source, 1, CURRENCY);
+            accountService.changeBalance(source, -1, CURRENCY);
+            accountService.createTransferOperation(source, target, transfer);
+        }
+    }
+
+    private void warmUpHttp(final BlockingHttpClient client, final String[] accountIds, final long deadline) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(1);
+        deposit.setCurrency(CURRENCY);
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAmount(1);
+        withdrawal.setCurrency(CURRENCY);
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency(CURRENCY);
+
+        final int iterations = configuration.getJitWarmUpIterations() / 10;
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            final String source = accountIds[i % accountIds.length];
+            final String target = accountIds[(i + 1) % accountIds.length];
+            client.retrieve(HttpRequest.GET("/account/" + source), Account.class);
+            client.exchange(HttpRequest.POST("/account/" + source + "/deposit", deposit));
+            client.exchange(HttpRequest.POST("/account/" + source + "/withdraw", withdrawal));
+            client.exchange(HttpRequest.POST("/account/" + source + "/transfer/" + target, transfer));
+        }
+    }
+}
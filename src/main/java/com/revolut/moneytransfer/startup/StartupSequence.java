@@ -0,0 +1,89 @@
+package com.revolut.moneytransfer.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.config.StartupConfiguration;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountPage;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Completes startup: warms up read paths once context is started, before server binds its port,
+ * so that the first requests do not pay for class loading and statement parsing,
+ * then reports durations of startup phases when server is started.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class StartupSequence {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupSequence.class);
+
+    private final StartupConfiguration configuration;
+    private final StartupTimings timings;
+    private final AccountService accountService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+
+    @EventListener
+    void onStartup(final StartupEvent event) {
+        timings.phaseEnded("context");
+        if (configuration.isWarmUp()) {
+            try {
+                warmUp(configuration.getWarmUpIterations());
+            } catch (IOException | RuntimeException e) {
+                // warm-up is an optimization, never a reason to fail startup
+                LOG.warn("Warm-up failed: {}", e.toString());
+            }
+            timings.phaseEnded("warm-up");
+        }
+    }
+
+    @EventListener
+    void onServerStartup(final ServerStartupEvent event) {
+        timings.phaseEnded("server");
+        LOG.info("Started in {} ms, phases: {}", timings.getTotal().toMillis(), timings.getPhases());
+        if (configuration.isExitWhenStarted()) {
+            // not on event thread, context is still publishing the event
+            new Thread(() -> {
+                applicationContext.close();
+                System.exit(0);
+            }, "startup-exit").start();
+        }
+    }
+
+    /**
+     * Execute read-only paths: lookup and every sort of search, JSON of request and response bodies.
+     * Nothing is written, so it is safe against production data.
+     */
+    void warmUp(final int iterations) throws IOException {
+        final String missingId = UUID.randomUUID().toString();
+        for (int i = 0; i < iterations; i++) {
+            accountService.getAccountById(missingId);
+            final AccountPage byId = accountService.searchAccounts(null, null, null, null, 1);
+            final AccountPage byName = accountService.searchAccounts("warm-up", null, 0L, null, 1);
+            final AccountPage byBalance = accountService.searchAccounts(null, "USD", 0L, null, 1);
+
+            objectMapper.writeValueAsBytes(byId);
+            objectMapper.writeValueAsBytes(byName);
+            objectMapper.writeValueAsBytes(byBalance);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(Account.builder()
+                    .id(missingId)
+                    .name("warm-up")
+                    .build()), Account.class);
+            final Transfer transfer = new Transfer();
+            transfer.setAmount(1);
+            transfer.setCurrency("USD");
+            objectMapper.readValue(objectMapper.writeValueAsBytes(transfer), Transfer.class);
+        }
+    }
+}
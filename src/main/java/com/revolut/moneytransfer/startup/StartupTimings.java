@@ -0,0 +1,65 @@
+package com.revolut.moneytransfer.startup;
+
+import javax.inject.Singleton;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Durations of startup phases in order of completion.
+ * <p>
+ * Sequential phases are measured from the end of the previous one: jvm (process start to main),
+ * context (bean definitions, datasource pool, migrations, eager beans), warm-up and server.
+ * Nested phases, like building of MyBatis configuration, are measured inside context and reported as is.
+ */
+@Singleton
+public class StartupTimings {
+    // set by Application.main, not set when context is started by tests or benchmarks
+    private static volatile long mainStartedAt;
+
+    private final Map<String, Duration> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private long lastPhaseEndedAt;
+
+    public StartupTimings() {
+        lastPhaseEndedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (mainStartedAt != 0) {
+            phases.put("jvm", Duration.ofMillis(mainStartedAt - lastPhaseEndedAt));
+            lastPhaseEndedAt = mainStartedAt;
+        }
+    }
+
+    public static void markMainStarted() {
+        mainStartedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Record sequential phase ended now
+     */
+    public synchronized void phaseEnded(final String phase) {
+        final long now = System.currentTimeMillis();
+        phases.put(phase, Duration.ofMillis(now - lastPhaseEndedAt));
+        lastPhaseEndedAt = now;
+    }
+
+    /**
+     * Record nested phase started at startNanos of {@link System#nanoTime()}
+     */
+    public void nestedPhase(final String phase, final long startNanos) {
+        phases.put(phase, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return time from process start to the end of the last sequential phase
+     */
+    public synchronized Duration getTotal() {
+        return Duration.ofMillis(lastPhaseEndedAt - ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    public Map<String, Duration> getPhases() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+}
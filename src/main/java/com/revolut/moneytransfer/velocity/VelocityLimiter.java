@@ -0,0 +1,223 @@
+package com.revolut.moneytransfer.velocity;
+
+import com.revolut.moneytransfer.config.VelocityConfiguration;
+import com.revolut.moneytransfer.config.VelocityRuleConfiguration;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.exception.VelocityLimitExceededException;
+import com.revolut.moneytransfer.model.BalanceChange;
+import io.micronaut.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sliding window limits of outgoing operations per account.
+ * <p>
+ * Operation reserves its amount in the window of account before its transaction starts, the check and
+ * the reservation are atomic, so concurrent operations can not pass a limit together. Reservation of
+ * operation that failed is released. Windows are kept in memory and rebuilt from the operation log on start.
+ */
+@Singleton
+public class VelocityLimiter {
+    private static final Logger LOG = LoggerFactory.getLogger(VelocityLimiter.class);
+    // returned when nothing was reserved
+    public static final long NO_RESERVATION = Long.MIN_VALUE;
+
+    private final VelocityConfiguration configuration;
+    private final OperationLog operationLog;
+    private final long bucketMillis;
+    private final int ringSize;
+
+    private final ConcurrentMap<String, VelocityWindow> windows = new ConcurrentHashMap<>();
+    // replaced as a whole on change, read without locks on every operation
+    private volatile VelocityRule[] rules;
+
+    public VelocityLimiter(final VelocityConfiguration configuration,
+                           final List<VelocityRuleConfiguration> ruleConfigurations,
+                           final OperationLog operationLog) {
+        this.configuration = configuration;
+        this.operationLog = operationLog;
+        this.bucketMillis = configuration.getBucket().toMillis();
+        this.ringSize = (int) Math.max(1, configuration.getMaxWindow().toMillis() / bucketMillis);
+
+        final List<VelocityRule> configured = new ArrayList<>();
+        for (VelocityRuleConfiguration rule : ruleConfigurations) {
+            configured.add(createRule(rule.getName(), rule.getWindow(), rule.getMaxCount(), rule.getMaxOutflow()));
+        }
+        rules = configured.toArray(new VelocityRule[0]);
+    }
+
+    /**
+     * Rebuild windows from operations within max window
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        final Instant since = Instant.ofEpochMilli((currentBucket() - ringSize + 1) * bucketMillis);
+        final long[] restored = new long[1];
+        operationLog.forEachSince(since, change -> {
+            if (restore(change)) {
+                restored[0]++;
+            }
+        });
+        LOG.info("Velocity windows rebuilt from {} operations of {} accounts", restored[0], windows.size());
+    }
+
+    /**
+     * Check all rules and reserve outgoing operation in the window of account
+     * @param amount outgoing amount, positive
+     * @return reservation to pass to {@link #release} if operation fails
+     * @throws VelocityLimitExceededException if any rule would be exceeded
+     */
+    public long reserve(final String accountId, final long amount) {
+        final VelocityRule[] current = rules;
+        if (!configuration.isEnabled() || current.length == 0) {
+            return NO_RESERVATION;
+        }
+        final long bucket = currentBucket();
+        for (;;) {
+            final VelocityWindow window = window(accountId);
+            synchronized (window) {
+                if (window.isEvicted()) {
+                    continue;
+                }
+                for (VelocityRule rule : current) {
+                    if (rule.isExceededBy(window, bucket, amount)) {
+                        rule.rejected();
+                        throw new VelocityLimitExceededException("Velocity limit " + rule.getName()
+                                + " exceeded by account: " + accountId);
+                    }
+                }
+                window.add(bucket, 1, amount);
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * Return reservation of operation that has not been committed
+     */
+    public void release(final String accountId, final long reservation, final long amount) {
+        if (reservation == NO_RESERVATION) {
+            return;
+        }
+        final VelocityWindow window = windows.get(accountId);
+        if (window != null) {
+            synchronized (window) {
+                window.add(reservation, -1, -amount);
+            }
+        }
+    }
+
+    public List<VelocityRule> getRules() {
+        return Arrays.asList(rules);
+    }
+
+    /**
+     * Add rule or replace rule with the same name
+     * @throws IllegalArgumentException if window is longer than velocity.max-window or limits are invalid
+     */
+    public synchronized VelocityRule putRule(final String name, final Duration window,
+                                             final long maxCount, final long maxOutflow) {
+        final VelocityRule rule = createRule(name, window, maxCount, maxOutflow);
+        final List<VelocityRule> updated = new ArrayList<>();
+        for (VelocityRule existing : rules) {
+            if (!existing.getName().equals(name)) {
+                updated.add(existing);
+            }
+        }
+        updated.add(rule);
+        rules = updated.toArray(new VelocityRule[0]);
+        return rule;
+    }
+
+    /**
+     * @return true if rule existed
+     */
+    public synchronized boolean removeRule(final String name) {
+        final List<VelocityRule> updated = new ArrayList<>();
+        for (VelocityRule existing : rules) {
+            if (!existing.getName().equals(name)) {
+                updated.add(existing);
+            }
+        }
+        final boolean removed = updated.size() < rules.length;
+        rules = updated.toArray(new VelocityRule[0]);
+        return removed;
+    }
+
+    public int getTrackedAccounts() {
+        return windows.size();
+    }
+
+    /**
+     * Drop windows without operations in the last max window, so memory follows the number of active accounts
+     */
+    @Scheduled(fixedDelay = "1m")
+    public void evictIdleWindows() {
+        final long bucket = currentBucket();
+        windows.values().removeIf(window -> {
+            synchronized (window) {
+                if (window.isIdle(bucket)) {
+                    window.evict();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    private boolean restore(final BalanceChange change) {
+        final long bucket = change.getCreatedAt().toEpochMilli() / bucketMillis;
+        final VelocityWindow window;
+        switch (change.getType()) {
+            case WITHDRAWAL:
+            case TRANSFER_OUT:
+                window = window(change.getAccountId());
+                synchronized (window) {
+                    window.add(bucket, 1, -change.getAmount());
+                }
+                return true;
+            case TRANSFER_REFUND:
+                window = window(change.getAccountId());
+                synchronized (window) {
+                    window.add(bucket, -1, -change.getAmount());
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private VelocityWindow window(final String accountId) {
+        final VelocityWindow window = windows.get(accountId);
+        if (window != null) {
+            return window;
+        }
+        return windows.computeIfAbsent(accountId, key -> new VelocityWindow(ringSize));
+    }
+
+    private VelocityRule createRule(final String name, final Duration window,
+                                    final long maxCount, final long maxOutflow) {
+        final long windowBuckets = (window.toMillis() + bucketMillis - 1) / bucketMillis;
+        if (windowBuckets > ringSize) {
+            throw new IllegalArgumentException("Window of rule " + name + " is longer than velocity.max-window");
+        }
+        return new VelocityRule(name, (int) windowBuckets, maxCount, maxOutflow);
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+}
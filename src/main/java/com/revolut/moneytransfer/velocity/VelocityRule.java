@@ -0,0 +1,51 @@
+package com.revolut.moneytransfer.velocity;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limit of count and sum of outgoing operations of an account within the last buckets
+ */
+@Getter
+public class VelocityRule {
+    private final String name;
+    // Window length in buckets, current (incomplete) bucket included
+    private final int windowBuckets;
+    // 0 for no limit
+    private final long maxCount;
+    private final long maxOutflow;
+
+    private final LongAdder rejections = new LongAdder();
+
+    public VelocityRule(final String name, final int windowBuckets, final long maxCount, final long maxOutflow) {
+        if (windowBuckets <= 0) {
+            throw new IllegalArgumentException("Window must be at least one bucket");
+        }
+        if (maxCount < 0 || maxOutflow < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+        this.name = name;
+        this.windowBuckets = windowBuckets;
+        this.maxCount = maxCount;
+        this.maxOutflow = maxOutflow;
+    }
+
+    /**
+     * @return true if operation of given amount would exceed the limit
+     */
+    boolean isExceededBy(final VelocityWindow window, final long currentBucket, final long amount) {
+        if (maxCount > 0 && window.count(currentBucket, windowBuckets) + 1 > maxCount) {
+            return true;
+        }
+        return maxOutflow > 0 && window.outflow(currentBucket, windowBuckets) + amount > maxOutflow;
+    }
+
+    void rejected() {
+        rejections.increment();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+}
@@ -0,0 +1,84 @@
+package com.revolut.moneytransfer.velocity;
+
+import java.util.Arrays;
+
+/**
+ * Counters of outgoing operations of one account in a ring of time buckets.
+ * <p>
+ * Slot of a bucket is its number modulo ring size, slot holding an older bucket is reset when reused,
+ * so sums skip expired buckets without any background work. Not thread-safe, callers synchronize on the window.
+ */
+class VelocityWindow {
+    private final long[] buckets;
+    private final long[] counts;
+    private final long[] outflows;
+    // last bucket an operation was added to
+    private long lastBucket = Long.MIN_VALUE;
+    private boolean evicted;
+
+    VelocityWindow(final int size) {
+        buckets = new long[size];
+        counts = new long[size];
+        outflows = new long[size];
+        Arrays.fill(buckets, Long.MIN_VALUE);
+    }
+
+    /**
+     * Add operations to the bucket, ignored if the bucket is older than the ring
+     */
+    void add(final long bucket, final long count, final long outflow) {
+        final int slot = slot(bucket);
+        if (buckets[slot] != bucket) {
+            if (buckets[slot] > bucket) {
+                return;
+            }
+            buckets[slot] = bucket;
+            counts[slot] = 0;
+            outflows[slot] = 0;
+        }
+        counts[slot] += count;
+        outflows[slot] += outflow;
+        lastBucket = Math.max(lastBucket, bucket);
+    }
+
+    long count(final long currentBucket, final int windowBuckets) {
+        long sum = 0;
+        for (int i = 0; i < windowBuckets; i++) {
+            final int slot = slot(currentBucket - i);
+            if (buckets[slot] == currentBucket - i) {
+                sum += counts[slot];
+            }
+        }
+        return sum;
+    }
+
+    long outflow(final long currentBucket, final int windowBuckets) {
+        long sum = 0;
+        for (int i = 0; i < windowBuckets; i++) {
+            final int slot = slot(currentBucket - i);
+            if (buckets[slot] == currentBucket - i) {
+                sum += outflows[slot];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return true if all buckets are expired, so the window could be dropped without changing limits
+     */
+    boolean isIdle(final long currentBucket) {
+        return currentBucket - lastBucket >= buckets.length;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void evict() {
+        evicted = true;
+    }
+
+    private int slot(final long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+}
@@ -0,0 +1,4 @@
+-- Snapshot partitions are committed chunk by chunk, the last account of the committed chunk is kept until the
+-- partition is completed
+ALTER TABLE SNAPSHOT_PROGRESS ADD COLUMN last_account_id UUID;
+ALTER TABLE SNAPSHOT_PROGRESS ALTER COLUMN completed_at SET NULL;
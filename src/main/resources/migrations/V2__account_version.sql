@@ -0,0 +1 @@
+ALTER TABLE ACCOUNT ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
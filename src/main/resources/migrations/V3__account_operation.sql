@@ -0,0 +1,16 @@
+-- Log of balance changes, written in the same transaction as the change itself
+CREATE TABLE ACCOUNT_OPERATION (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  account_id CHAR(36) NOT NULL,
+  type VARCHAR(16) NOT NULL,
+  amount BIGINT NOT NULL,
+  balance BIGINT NOT NULL,
+  version BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+
+-- Last operation delivered by each relay
+CREATE TABLE OUTBOX_CURSOR (
+  relay VARCHAR(32) PRIMARY KEY NOT NULL,
+  last_operation_id BIGINT NOT NULL
+);
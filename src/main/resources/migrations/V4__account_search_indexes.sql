@@ -0,0 +1,3 @@
+-- Keyset pagination of account search: by name prefix and by balance within currency
+CREATE INDEX IDX_ACCOUNT_NAME ON ACCOUNT (name, id);
+CREATE INDEX IDX_ACCOUNT_CURRENCY_BALANCE ON ACCOUNT (currency, balance, id);
@@ -0,0 +1,22 @@
+-- Native 16 byte UUID ids, variable length names, ISO 4217 numeric currency codes
+CREATE TABLE ACCOUNT_COMPACT (
+  id UUID PRIMARY KEY NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  balance BIGINT NOT NULL,
+  currency SMALLINT NOT NULL,
+  version BIGINT DEFAULT 0 NOT NULL
+);
+
+INSERT INTO ACCOUNT_COMPACT (id, name, balance, currency, version)
+SELECT CAST(TRIM(id) AS UUID), TRIM(name), balance,
+       CASE TRIM(currency) WHEN 'USD' THEN 840 WHEN 'EUR' THEN 978 WHEN 'GBP' THEN 826 END,
+       version
+FROM ACCOUNT;
+
+DROP TABLE ACCOUNT;
+ALTER TABLE ACCOUNT_COMPACT RENAME TO ACCOUNT;
+
+CREATE INDEX IDX_ACCOUNT_NAME ON ACCOUNT (name, id);
+CREATE INDEX IDX_ACCOUNT_CURRENCY_BALANCE ON ACCOUNT (currency, balance, id);
+
+ALTER TABLE ACCOUNT_OPERATION ALTER COLUMN account_id UUID NOT NULL;
@@ -0,0 +1,18 @@
+-- End-of-day balances and accruals posted for the day
+CREATE TABLE BALANCE_SNAPSHOT (
+  snapshot_date DATE NOT NULL,
+  account_id UUID NOT NULL,
+  balance BIGINT NOT NULL,
+  interest BIGINT NOT NULL,
+  fee BIGINT NOT NULL,
+  PRIMARY KEY (snapshot_date, account_id)
+);
+
+-- Partitions of account id space completed by snapshot job, written in the partition transaction
+CREATE TABLE SNAPSHOT_PROGRESS (
+  snapshot_date DATE NOT NULL,
+  partition_no INT NOT NULL,
+  account_count INT NOT NULL,
+  completed_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (snapshot_date, partition_no)
+);
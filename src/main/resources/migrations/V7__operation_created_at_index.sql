@@ -0,0 +1,2 @@
+-- Recent operations are read on start to rebuild velocity counters
+CREATE INDEX IDX_ACCOUNT_OPERATION_CREATED_AT ON ACCOUNT_OPERATION (created_at);
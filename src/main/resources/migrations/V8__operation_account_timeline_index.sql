@@ -0,0 +1,3 @@
+-- Point-in-time balance: every operation row holds balance after it, so the balance of account at a time
+-- is the balance of its latest operation by then, found with one seek of descending index
+CREATE INDEX IDX_ACCOUNT_OPERATION_ACCOUNT_TIME ON ACCOUNT_OPERATION (account_id, created_at DESC, id DESC);
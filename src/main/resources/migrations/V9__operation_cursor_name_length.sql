@@ -0,0 +1,2 @@
+-- Replication leader keeps a cursor per follower named replication:<follower-name>, host names are long
+ALTER TABLE OUTBOX_CURSOR ALTER COLUMN relay VARCHAR(255) NOT NULL;
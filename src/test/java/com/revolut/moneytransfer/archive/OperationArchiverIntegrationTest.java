@@ -0,0 +1,134 @@
+package com.revolut.moneytransfer.archive;
+
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountStatement;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationArchiverIntegrationTest {
+
+    private Path directory;
+    private ApplicationContext context;
+    private AccountService accountService;
+    private OperationArchiver archiver;
+    private OperationLog operationLog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // archive belongs to database, both are fresh for each test
+        directory = Files.createTempDirectory("archive");
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("datasources.default.url", "jdbc:h2:mem:archiver-" + directory.getFileName()
+                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=2000");
+        properties.put("archive.directory", directory.toString());
+        properties.put("archive.older-than", "0s");
+        properties.put("archive.segment-size", 3);
+        properties.put("outbox.enabled", false);
+        context = ApplicationContext.run(properties, Environment.TEST);
+        accountService = context.getBean(AccountService.class);
+        archiver = context.getBean(OperationArchiver.class);
+        operationLog = context.getBean(OperationLog.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void run_oldOperations_shouldMoveThemToArchiveAndKeepStatement() throws Exception {
+        final Instant start = Instant.now();
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+        deposit(alice, 100);
+        deposit(alice, 50);
+        transfer(alice, bob, 30);
+        Thread.sleep(5);
+        final Instant archivedUpTo = Instant.now();
+        Thread.sleep(5);
+
+        final long archived = archiver.run();
+
+        // account openings are logged too
+        assertEquals(6, archived);
+        assertEquals(2, context.getBean(ArchiveStore.class).getSegmentCount());
+        assertTrue(operationLog.findStatement(alice.getId(), start, Instant.now(), 100).isEmpty());
+        assertEquals(0, archiver.run());
+
+        deposit(alice, 5);
+        final AccountStatement statement = accountService.getStatement(alice.getId(), start, Instant.now(), 100);
+        final List<Long> amounts = statement.getItems().stream()
+                .map(BalanceChange::getAmount)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(0L, 100L, 50L, -30L, 5L), amounts);
+        assertFalse(statement.isTruncated());
+
+        assertEquals(120, accountService.getBalanceAt(alice.getId(), archivedUpTo).getBalance());
+        assertEquals(30, accountService.getBalanceAt(bob.getId(), archivedUpTo).getBalance());
+        assertEquals(125, accountService.getBalanceAt(alice.getId(), Instant.now()).getBalance());
+    }
+
+    @Test
+    void getStatement_limit_shouldReturnEarliestOperations() throws Exception {
+        final Instant start = Instant.now();
+        final Account alice = createAccount("Alice");
+        for (int i = 1; i <= 5; i++) {
+            deposit(alice, i);
+        }
+        archiver.run();
+        deposit(alice, 6);
+
+        final AccountStatement statement = accountService.getStatement(alice.getId(), start, Instant.now(), 3);
+        assertTrue(statement.isTruncated());
+        assertEquals(3, statement.getItems().size());
+        assertEquals(0, statement.getItems().get(0).getAmount());
+        assertEquals(2, statement.getItems().get(2).getAmount());
+    }
+
+    private Account createAccount(final String name) {
+        return accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+    }
+
+    private void deposit(final Account account, final long amount) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(amount);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+    }
+
+    private void transfer(final Account source, final Account target, final long amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(amount);
+        transfer.setCurrency("USD");
+        accountService.createTransferOperation(source.getId(), target.getId(), transfer);
+    }
+}
@@ -0,0 +1,132 @@
+package com.revolut.moneytransfer.archive;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.OperationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentFileTest {
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("segments");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void open_writtenSegment_shouldReadSameOperations() throws IOException {
+        final UUID alice = UUID.randomUUID();
+        final UUID bob = UUID.randomUUID();
+        final List<BalanceChange> rows = new ArrayList<>();
+        long balance = 0;
+        for (int i = 1; i <= 100; i++) {
+            balance += i;
+            rows.add(change(i, i % 2 == 0 ? alice : bob, i, balance, START.plusSeconds(i).plusNanos(i)));
+        }
+        SegmentFile.write(directory.resolve("test.seg"), rows);
+
+        final SegmentFile segment = SegmentFile.open(directory.resolve("test.seg"));
+        assertEquals(100, segment.getRowCount());
+        assertEquals(1, segment.getFirstId());
+        assertEquals(100, segment.getLastId());
+
+        final List<BalanceChange> aliceRows = new ArrayList<>();
+        segment.forEach(alice, Instant.MIN, Instant.MAX, aliceRows::add);
+        assertEquals(rows.stream().filter(row -> row.getAccountId().equals(alice.toString()))
+                .collect(Collectors.toList()), aliceRows);
+    }
+
+    @Test
+    void findLatest_timeBetweenOperations_shouldReturnEarlierOperation() throws IOException {
+        final UUID account = UUID.randomUUID();
+        final List<BalanceChange> rows = new ArrayList<>();
+        rows.add(change(1, account, 10, 10, START));
+        rows.add(change(2, account, 5, 15, START.plusSeconds(60)));
+        rows.add(change(3, account, -15, 0, START.plusSeconds(120)));
+        final SegmentFile segment = SegmentFile.write(directory.resolve("test.seg"), rows);
+
+        assertNull(segment.findLatest(account, START.minusNanos(1)));
+        assertEquals(1, segment.findLatest(account, START).getId());
+        assertEquals(2, segment.findLatest(account, START.plusSeconds(119)).getId());
+        assertEquals(3, segment.findLatest(account, START.plusSeconds(3600)).getId());
+        assertNull(segment.findLatest(UUID.randomUUID(), START.plusSeconds(3600)));
+    }
+
+    @Test
+    void forEach_timeRange_shouldPassOperationsWithinRange() throws IOException {
+        final UUID account = UUID.randomUUID();
+        final List<BalanceChange> rows = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            rows.add(change(i, account, 1, i, START.plusSeconds(i)));
+        }
+        final SegmentFile segment = SegmentFile.write(directory.resolve("test.seg"), rows);
+
+        final List<Long> ids = new ArrayList<>();
+        segment.forEach(account, START.plusSeconds(3), START.plusSeconds(6), row -> ids.add(row.getId()));
+        assertEquals(Arrays.asList(3L, 4L, 5L), ids);
+        assertFalse(segment.mayContain(account, START.plusSeconds(20), START.plusSeconds(30)));
+    }
+
+    @Test
+    void mayContain_accountsWithinBounds_shouldSkipAbsentByFilter() throws IOException {
+        final List<UUID> accounts = new ArrayList<>();
+        final List<BalanceChange> rows = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            accounts.add(UUID.randomUUID());
+            rows.add(change(i, accounts.get(i - 1), 1, 1, START.plusSeconds(i)));
+        }
+        SegmentFile.write(directory.resolve("test.seg"), rows);
+        final SegmentFile segment = SegmentFile.open(directory.resolve("test.seg"));
+
+        for (UUID account : accounts) {
+            assertTrue(segment.mayContain(account, Instant.MIN, Instant.MAX));
+        }
+        // random ids fall within min/max account of the segment, about 1% pass the filter
+        int passed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (segment.mayContain(UUID.randomUUID(), Instant.MIN, Instant.MAX)) {
+                passed++;
+            }
+        }
+        assertTrue(passed < 50, passed + " absent accounts passed the filter");
+    }
+
+    private static BalanceChange change(final long id, final UUID account, final long amount, final long balance,
+                                        final Instant createdAt) {
+        return BalanceChange.builder()
+                .id(id)
+                .accountId(account.toString())
+                .type(amount < 0 ? OperationType.WITHDRAWAL : OperationType.DEPOSIT)
+                .amount(amount)
+                .balance(balance)
+                .version(id)
+                .createdAt(createdAt)
+                .build();
+    }
+}
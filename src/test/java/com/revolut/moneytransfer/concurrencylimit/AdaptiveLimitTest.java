@@ -0,0 +1,88 @@
+package com.revolut.moneytransfer.concurrencylimit;
+
+import com.revolut.moneytransfer.config.ConcurrencyLimitConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimitTest {
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private long now = 0;
+
+    @Test
+    void tryAcquire_atLimit_shouldReject() {
+        final ConcurrencyLimitConfiguration configuration = new ConcurrencyLimitConfiguration();
+        configuration.setInitialLimit(2);
+        configuration.setMinLimit(1);
+        final AdaptiveLimit limit = new AdaptiveLimit(configuration, now);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(1, limit.getRejections());
+
+        limit.release(FAST, false, now);
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void release_steadyLatencyAtLimit_shouldRaiseLimit() {
+        final AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitConfiguration(), now);
+        for (int i = 0; i < 10; i++) {
+            runWindow(limit, limit.getLimit(), FAST, false);
+        }
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void release_risingLatency_shouldLowerLimit() {
+        final AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitConfiguration(), now);
+        for (int i = 0; i < 5; i++) {
+            runWindow(limit, limit.getLimit(), FAST, false);
+        }
+        final int before = limit.getLimit();
+        for (int i = 0; i < 10; i++) {
+            runWindow(limit, limit.getLimit(), SLOW, false);
+        }
+        assertTrue(limit.getLimit() < before, "limit " + limit.getLimit() + ", before " + before);
+        assertTrue(limit.getLimit() >= 4);
+    }
+
+    @Test
+    void release_overload_shouldBackOffAtOnce() {
+        final AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitConfiguration(), now);
+        assertTrue(limit.tryAcquire());
+        limit.release(FAST, true, now + WINDOW_NANOS);
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void release_limitMostlyUnused_shouldKeepLimit() {
+        final AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitConfiguration(), now);
+        for (int i = 0; i < 10; i++) {
+            runWindow(limit, 2, FAST, false);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    /**
+     * Run requests concurrently and complete them, the last completion closes the window
+     */
+    private void runWindow(final AdaptiveLimit limit, final int requests, final long latency,
+                           final boolean overloaded) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < requests - 1; i++) {
+            limit.release(latency, overloaded, now);
+        }
+        now += WINDOW_NANOS;
+        limit.release(latency, overloaded, now);
+    }
+}
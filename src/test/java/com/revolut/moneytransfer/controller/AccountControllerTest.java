@@ -1,12 +1,21 @@
 package com.revolut.moneytransfer.controller;
 
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
 import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.exception.AccountVersionMismatchException;
 import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.exception.SameAccountTransferException;
+import com.revolut.moneytransfer.exception.VelocityLimitExceededException;
 import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountPage;
 import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.MultiTransfer;
 import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.TransferLeg;
 import com.revolut.moneytransfer.model.Withdrawal;
 import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MutableHttpRequest;
@@ -22,6 +31,7 @@ import org.mockito.Mockito;
 
 import javax.inject.Inject;
 import javax.validation.ConstraintViolationException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
@@ -98,6 +108,21 @@ public class AccountControllerTest {
         assertEquals(aliceAccount.getBalance(), account.getBalance());
     }
 
+    @Test
+    void getAccount_byId_respondWithETag() {
+        final Account aliceAccount = Account.builder()
+                .id("aliceId")
+                .name("alice")
+                .version(7)
+                .build();
+
+        when(accountService.getAccountById(aliceAccount.getId()))
+                .thenReturn(Optional.of(aliceAccount));
+
+        final HttpResponse<Account> response = getAccount(aliceAccount.getId());
+        assertEquals("\"7\"", response.getHeaders().get(HttpHeaders.ETAG));
+    }
+
     @Test
     void getAccount_byId_respond404() {
         when(accountService.getAccountById(anyString()))
@@ -107,6 +132,26 @@ public class AccountControllerTest {
         assertEquals(HttpResponse.notFound().code(), response.code());
     }
 
+    @Test
+    void searchAccounts_byName_respond200WithPage() {
+        final Account aliceAccount = Account.builder()
+                .id("aliceId")
+                .name("alice")
+                .build();
+
+        when(accountService.searchAccounts("ali", null, null, null, 10))
+                .thenReturn(new AccountPage(Collections.singletonList(aliceAccount), "nextCursor"));
+
+        final HttpResponse<AccountPage> response = exchange(HttpRequest.GET("/?name=ali&limit=10"), AccountPage.class);
+        assertEquals(HttpResponseStatus.OK.code(), response.code());
+
+        final AccountPage page = response.body();
+        assertNotNull(page);
+        assertEquals(1, page.getItems().size());
+        assertEquals("aliceId", page.getItems().get(0).getId());
+        assertEquals("nextCursor", page.getNext());
+    }
+
     @Test
     void deposit_validData_200ok() {
         final Deposit deposit = new Deposit();
@@ -133,6 +178,33 @@ public class AccountControllerTest {
         assertEquals(HttpResponseStatus.NOT_FOUND.code(), response.code());
     }
 
+    @Test
+    void deposit_versionMismatch_412() {
+        final Deposit deposit = new Deposit();
+        deposit.setCurrency("USD");
+        deposit.setAmount(10);
+
+        doThrow(new AccountVersionMismatchException("")).when(accountService)
+                .createDepositOperation("anyId", deposit, 3L);
+
+        final HttpResponse<Object> response = exchange(HttpRequest.POST("/anyId/deposit", deposit)
+                .header(HttpHeaders.IF_MATCH, "\"3\""));
+        assertEquals(HttpResponseStatus.PRECONDITION_FAILED.code(), response.code());
+    }
+
+    @Test
+    void deposit_concurrentModification_409() {
+        final Deposit deposit = new Deposit();
+        deposit.setCurrency("USD");
+        deposit.setAmount(11);
+
+        doThrow(new AccountConcurrentModificationException("")).when(accountService)
+                .createDepositOperation("anyId", deposit);
+
+        final HttpResponse<Object> response = deposit("anyId", deposit);
+        assertEquals(HttpResponseStatus.CONFLICT.code(), response.code());
+    }
+
     @Test
     void withdraw_validData_200ok() {
         final Withdrawal withdrawal = new Withdrawal();
@@ -172,6 +244,19 @@ public class AccountControllerTest {
         assertEquals(HttpResponseStatus.NOT_FOUND.code(), response.code());
     }
 
+    @Test
+    void withdraw_velocityLimitExceeded_422() {
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setCurrency("USD");
+        withdrawal.setAmount(10);
+
+        doThrow(new VelocityLimitExceededException("")).when(accountService)
+                .createWithdrawalOperation("anyId", withdrawal);
+
+        final HttpResponse<Object> response = withdraw("anyId", withdrawal);
+        assertEquals(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), response.code());
+    }
+
     @Test
     void transfer_validData_200ok() {
         final Transfer transfer = new Transfer();
@@ -185,6 +270,21 @@ public class AccountControllerTest {
         assertEquals(HttpResponseStatus.OK.code(), response.code());
     }
 
+    @Test
+    void multiTransfer_insufficientAmount_403() {
+        final MultiTransfer multiTransfer = new MultiTransfer();
+        multiTransfer.setCurrency("USD");
+        multiTransfer.setLegs(Arrays.asList(
+                new TransferLeg("source", "alice", 10),
+                new TransferLeg("source", "bob", 10)));
+
+        doThrow(new InsufficientAmountOnBalanceException("")).when(accountService)
+                .createMultiTransferOperation(multiTransfer);
+
+        final HttpResponse<Object> response = exchange(HttpRequest.POST("/transfers", multiTransfer));
+        assertEquals(HttpResponseStatus.FORBIDDEN.code(), response.code());
+    }
+
     @Test
     void transfer_accountNotFound_404() {
         final Transfer transfer = new Transfer();
@@ -211,6 +311,50 @@ public class AccountControllerTest {
         assertEquals(HttpResponseStatus.FORBIDDEN.code(), response.code());
     }
 
+    @Test
+    void transfer_sameAccount_400() {
+        final Transfer transfer = new Transfer();
+        transfer.setCurrency("USD");
+        transfer.setAmount(10);
+
+        doThrow(new SameAccountTransferException("")).when(accountService)
+                .createTransferOperation("source", "source", transfer);
+
+        final HttpResponse<Object> response = transfer("source", "source", transfer);
+        assertEquals(HttpResponseStatus.BAD_REQUEST.code(), response.code());
+    }
+
+    @Test
+    void transfer_lockTimeout_503WithRetryAfter() {
+        final Transfer transfer = new Transfer();
+        transfer.setCurrency("USD");
+        transfer.setAmount(12);
+
+        doThrow(new AccountLockTimeoutException("", null)).when(accountService)
+                .createTransferOperation("source", "target", transfer);
+
+        final HttpResponse<Object> response = transfer("source", "target", transfer);
+        assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE.code(), response.code());
+        assertEquals("1", response.getHeaders().get(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void withdraw_accountQuotaExceeded_429() {
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setCurrency("USD");
+        withdrawal.setAmount(1);
+
+        HttpResponse<Object> response = null;
+        for (int i = 0; i < 40; i++) {
+            response = withdraw("busyId", withdrawal);
+            if (response.code() != HttpResponseStatus.OK.code()) {
+                break;
+            }
+        }
+        assertEquals(HttpResponseStatus.TOO_MANY_REQUESTS.code(), response.code());
+        assertNotNull(response.getHeaders().get(HttpHeaders.RETRY_AFTER));
+    }
+
     private HttpResponse<Account> getAccount(final String id) {
         return exchange(HttpRequest.GET("/" + id), Account.class);
     }
@@ -238,20 +382,20 @@ public class AccountControllerTest {
         return exchange(HttpRequest.POST(uri, transfer));
     }
 
+    @SuppressWarnings("unchecked")
     private <T, U> HttpResponse<U> exchange(final MutableHttpRequest<T> request) {
         try {
             return client.toBlocking().exchange(request);
         } catch (HttpClientResponseException e) {
-            //noinspection unchecked
             return (HttpResponse<U>) e.getResponse();
         }
     }
 
+    @SuppressWarnings("unchecked")
     private <T, U> HttpResponse<U> exchange(final MutableHttpRequest<T> request, final Class<U> responseClass) {
         try {
             return client.toBlocking().exchange(request, responseClass);
         } catch (HttpClientResponseException e) {
-            //noinspection unchecked
             return (HttpResponse<U>) e.getResponse();
         }
     }
@@ -0,0 +1,74 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.service.AccountService;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour of {@link AccountTransaction} every backend must share, subclasses select the backend
+ */
+public abstract class AccountTransactionContractTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private AccountRepository accountRepository;
+
+    @Test
+    void updateBalance_sameAccountReadOnce_shouldFailSecondUpdate() {
+        final Account alice = createAccountWithBalance("Alice", 100);
+
+        // transfer from account to itself as a transfer writes it: source first, then target read at the same time
+        try (final AccountTransaction transaction = accountRepository.begin()) {
+            final Account source = transaction.find(alice.getId(), false);
+            final Account target = transaction.find(alice.getId(), false);
+            assertTrue(transaction.updateBalance(source, source.getBalance() - 10));
+            assertFalse(transaction.updateBalance(target, target.getBalance() + 10));
+        }
+
+        final Account aliceAfter = accountRepository.findById(alice.getId()).get();
+        assertEquals(100, aliceAfter.getBalance());
+        assertEquals(1, aliceAfter.getVersion());
+    }
+
+    @Test
+    void updateBalance_repeatedUpdateOfUpdatedAccount_shouldApplyOnlyBasedOnPending() {
+        final Account bob = createAccountWithBalance("Bob", 100);
+
+        try (final AccountTransaction transaction = accountRepository.begin()) {
+            final Account account = transaction.find(bob.getId(), false);
+            assertTrue(transaction.updateBalance(account, 90));
+            final Account updated = Account.builder()
+                    .id(account.getId())
+                    .name(account.getName())
+                    .balance(90)
+                    .version(account.getVersion() + 1)
+                    .build();
+            // stale account read before the first update is rejected, as by a batch with outdated view
+            assertFalse(transaction.updateBalance(account, 80));
+            assertTrue(transaction.updateBalance(updated, 100));
+            transaction.commit();
+        }
+
+        final Account bobAfter = accountRepository.findById(bob.getId()).get();
+        assertEquals(100, bobAfter.getBalance());
+        assertEquals(3, bobAfter.getVersion());
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(balance);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+        return account;
+    }
+}
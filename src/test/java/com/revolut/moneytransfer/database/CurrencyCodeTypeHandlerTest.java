@@ -0,0 +1,30 @@
+package com.revolut.moneytransfer.database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CurrencyCodeTypeHandlerTest {
+
+    @Test
+    void toNumeric_knownCurrency_isoNumericCode() {
+        assertEquals(840, CurrencyCodeTypeHandler.toNumeric("USD"));
+        assertEquals(978, CurrencyCodeTypeHandler.toNumeric("EUR"));
+    }
+
+    @Test
+    void toNumeric_unknownCurrency_matchesNothing() {
+        assertEquals(CurrencyCodeTypeHandler.UNKNOWN, CurrencyCodeTypeHandler.toNumeric("XYZ1"));
+    }
+
+    @Test
+    void toAlphabetic_knownCode_isoAlphabeticCode() {
+        assertEquals("USD", CurrencyCodeTypeHandler.toAlphabetic((short) 840));
+    }
+
+    @Test
+    void toAlphabetic_unknownCode_shouldThrowException() {
+        assertThrows(IllegalStateException.class, () -> CurrencyCodeTypeHandler.toAlphabetic((short) 1));
+    }
+}
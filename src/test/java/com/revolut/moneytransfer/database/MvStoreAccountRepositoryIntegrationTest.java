@@ -0,0 +1,167 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountPage;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.OperationType;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+@Property(name = "repository.backend", value = "mvstore")
+@Property(name = "account.concurrency.max-attempts", value = "100")
+public class MvStoreAccountRepositoryIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private AccountRepository accountRepository;
+
+    @Inject
+    private OperationLog operationLog;
+
+    @Test
+    void backend_selectedByConfiguration() {
+        assertTrue(accountRepository instanceof MvStoreAccountRepository);
+        assertSame(accountRepository, operationLog);
+    }
+
+    @Test
+    void getAccountById_notUuid_shouldReturnEmptyResult() {
+        assertFalse(accountService.getAccountById("aliceId").isPresent());
+    }
+
+    @Test
+    void createTransferOperation_concurrentTransfers_shouldConserveMoney() throws Exception {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final boolean forward = i % 4 != 0;
+                futures.add(executor.submit(() -> {
+                    if (forward) {
+                        accountService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+                    } else {
+                        accountService.createTransferOperation(bob.getId(), alice.getId(), transfer);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Account aliceAfter = accountService.getAccountById(alice.getId()).get();
+        assertEquals(900, aliceAfter.getBalance());
+        assertEquals(201, aliceAfter.getVersion());
+        assertEquals("Alice", aliceAfter.getName());
+        assertEquals(1100, accountService.getAccountById(bob.getId()).get().getBalance());
+    }
+
+    @Test
+    void find_forUpdate_accountsWithEqualIdHashes_shouldBeLockedIndependently() throws Exception {
+        final UUID first = UUID.randomUUID();
+        // same bits flipped in both halves keep hash code of UUID
+        final UUID second = new UUID(first.getMostSignificantBits() ^ 1, first.getLeastSignificantBits() ^ 1);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final AccountTransaction transaction = accountRepository.begin()) {
+            transaction.find(first.toString(), true);
+            executor.submit(() -> {
+                try (final AccountTransaction other = accountRepository.begin()) {
+                    other.find(second.toString(), true);
+                }
+            }).get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void findAfter_afterOperations_shouldReturnChangesInCommitOrder() {
+        final Account carol = createAccountWithBalance("Carol", 100);
+
+        final List<BalanceChange> changes = operationLog.findAfter(0, Integer.MAX_VALUE).stream()
+                .filter(change -> change.getAccountId().equals(carol.getId()))
+                .collect(Collectors.toList());
+        assertEquals(2, changes.size());
+        assertEquals(OperationType.OPEN, changes.get(0).getType());
+        assertEquals(OperationType.DEPOSIT, changes.get(1).getType());
+        assertEquals(100, changes.get(1).getBalance());
+        assertEquals(1, changes.get(1).getVersion());
+        assertTrue(changes.get(0).getId() < changes.get(1).getId());
+    }
+
+    @Test
+    void searchAccounts_byNamePrefix_shouldPageInNameOrder() {
+        createAccountWithBalance("Search Zed", 1);
+        createAccountWithBalance("Search Amy", 2);
+        createAccountWithBalance("Search Kim", 3);
+
+        final AccountPage first = accountService.searchAccounts("Search ", null, null, null, 2);
+        assertEquals(2, first.getItems().size());
+        assertEquals("Search Amy", first.getItems().get(0).getName());
+        assertEquals("Search Kim", first.getItems().get(1).getName());
+        assertNotNull(first.getNext());
+
+        final AccountPage second = accountService.searchAccounts("Search ", null, null, first.getNext(), 2);
+        assertEquals(1, second.getItems().size());
+        assertEquals("Search Zed", second.getItems().get(0).getName());
+        assertNull(second.getNext());
+    }
+
+    @Test
+    void getBalanceAt_pastTimes_shouldReturnBalanceOfThatTime() throws InterruptedException {
+        final Account alice = createAccountWithBalance("Alice", 100);
+        Thread.sleep(5);
+        final Instant afterFirst = Instant.now();
+        Thread.sleep(5);
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(50);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(alice.getId(), deposit);
+
+        assertEquals(100, accountService.getBalanceAt(alice.getId(), afterFirst).getBalance());
+        assertEquals(150, accountService.getBalanceAt(alice.getId(), Instant.now()).getBalance());
+        assertNull(accountService.getBalanceAt(alice.getId(), Instant.EPOCH).getOperationId());
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(balance);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+        return account;
+    }
+}
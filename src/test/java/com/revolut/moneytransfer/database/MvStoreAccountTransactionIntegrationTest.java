@@ -0,0 +1,9 @@
+package com.revolut.moneytransfer.database;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest
+@Property(name = "repository.backend", value = "mvstore")
+public class MvStoreAccountTransactionIntegrationTest extends AccountTransactionContractTest {
+}
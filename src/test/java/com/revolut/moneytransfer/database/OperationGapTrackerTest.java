@@ -0,0 +1,61 @@
+package com.revolut.moneytransfer.database;
+
+import com.revolut.moneytransfer.model.BalanceChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OperationGapTrackerTest {
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    private final OperationGapTracker tracker = new OperationGapTracker("test", Duration.ofSeconds(1));
+
+    @Test
+    void committedPrefix_withoutGaps_shouldReturnAll() {
+        assertEquals(3, tracker.committedPrefix(operations(START, 1, 2, 3), 0, START));
+    }
+
+    @Test
+    void committedPrefix_gapAfterOldOperations_shouldWaitFromFirstSeen() {
+        // operations after the gap are older than timeout, but the gap is just seen
+        final List<BalanceChange> operations = operations(START, 1, 3, 4);
+        final Instant seen = START.plusSeconds(10);
+
+        assertEquals(1, tracker.committedPrefix(operations, 0, seen));
+        assertEquals(1, tracker.committedPrefix(operations, 0, seen.plusMillis(999)));
+        assertEquals(3, tracker.committedPrefix(operations, 0, seen.plusSeconds(1)));
+    }
+
+    @Test
+    void committedPrefix_gapFilledBeforeTimeout_shouldReturnAll() {
+        assertEquals(1, tracker.committedPrefix(operations(START, 1, 3), 0, START));
+        assertEquals(3, tracker.committedPrefix(operations(START, 1, 2, 3), 0, START.plusMillis(500)));
+    }
+
+    @Test
+    void committedPrefix_nextGap_shouldBeTrackedFromItsFirstSeen() {
+        final List<BalanceChange> operations = operations(START, 2, 4);
+
+        assertEquals(0, tracker.committedPrefix(operations, 0, START));
+        // the first gap is skipped, the second one is seen for the first time
+        assertEquals(1, tracker.committedPrefix(operations, 0, START.plusSeconds(1)));
+        assertEquals(1, tracker.committedPrefix(operations, 0, START.plusMillis(1999)));
+        assertEquals(2, tracker.committedPrefix(operations, 0, START.plusSeconds(2)));
+    }
+
+    private static List<BalanceChange> operations(final Instant createdAt, final long... ids) {
+        final List<BalanceChange> operations = new ArrayList<>();
+        for (long id : ids) {
+            operations.add(BalanceChange.builder()
+                    .id(id)
+                    .createdAt(createdAt)
+                    .build());
+        }
+        return operations;
+    }
+}
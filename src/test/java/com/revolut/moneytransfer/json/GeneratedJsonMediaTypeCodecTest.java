@@ -0,0 +1,73 @@
+package com.revolut.moneytransfer.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.moneytransfer.model.Account;
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.codec.MediaTypeCodec;
+import io.micronaut.http.codec.MediaTypeCodecRegistry;
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+public class GeneratedJsonMediaTypeCodecTest {
+    @Inject
+    MediaTypeCodecRegistry codecRegistry;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void jsonCodec_shouldBeGenerated() {
+        final MediaTypeCodec codec = jsonCodec();
+        assertTrue(codec instanceof GeneratedJsonMediaTypeCodec);
+        assertNotNull(JsonCodecs.find(Account.class));
+    }
+
+    @Test
+    void encodeAccount_shouldMatchJackson() throws Exception {
+        final Account account = Account.builder()
+                .id("a1b2")
+                .name("Quote \" backslash \\ tab \t control \u0001 unicode é€😀")
+                .balance(Long.MAX_VALUE)
+                .version(3)
+                .build();
+
+        final String json = encode(account);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(account)), objectMapper.readTree(json));
+        assertFalse(json.contains("version"));
+    }
+
+    @Test
+    void encodeAccount_withNullFields_shouldSkipThem() throws Exception {
+        final Account account = new Account();
+        account.setBalance(-5);
+
+        final String json = encode(account);
+
+        assertEquals("{\"balance\":-5,\"currency\":\"USD\"}", json);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(account)), objectMapper.readTree(json));
+    }
+
+    private <T> String encode(final T value) {
+        final ByteBuffer<?> buffer = jsonCodec().encode(value, NettyByteBufferFactory.DEFAULT);
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            ((ByteBuf) buffer.asNativeBuffer()).release();
+        }
+    }
+
+    private MediaTypeCodec jsonCodec() {
+        return codecRegistry.findCodec(MediaType.APPLICATION_JSON_TYPE)
+                .orElseThrow(() -> new AssertionError("No JSON codec"));
+    }
+}
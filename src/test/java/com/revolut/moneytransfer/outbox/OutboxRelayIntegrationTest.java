@@ -0,0 +1,77 @@
+package com.revolut.moneytransfer.outbox;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.OperationType;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@MicronautTest
+@Property(name = "outbox.enabled", value = "false")
+public class OutboxRelayIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private OutboxRelay outboxRelay;
+
+    @Inject
+    private InMemoryEventSink eventSink;
+
+    @Test
+    void relayBatch_afterOperations_shouldPublishChangesInOrder() throws IOException {
+        final Account alice = accountService.createAccount(Account.builder()
+                .name("Alice")
+                .build());
+        final Account bob = accountService.createAccount(Account.builder()
+                .name("Bob")
+                .build());
+
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(100);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(alice.getId(), deposit);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(40);
+        transfer.setCurrency("USD");
+        accountService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+
+        final List<BalanceChange> published = new ArrayList<>();
+        while (outboxRelay.relayBatch() > 0) {
+            published.addAll(eventSink.poll(Integer.MAX_VALUE));
+        }
+
+        final List<BalanceChange> aliceChanges = published.stream()
+                .filter(change -> change.getAccountId().equals(alice.getId()))
+                .collect(Collectors.toList());
+        assertEquals(3, aliceChanges.size());
+        assertEquals(OperationType.OPEN, aliceChanges.get(0).getType());
+        assertEquals(OperationType.DEPOSIT, aliceChanges.get(1).getType());
+        assertEquals(100, aliceChanges.get(1).getBalance());
+        assertEquals(OperationType.TRANSFER_OUT, aliceChanges.get(2).getType());
+        assertEquals(-40, aliceChanges.get(2).getAmount());
+        assertEquals(60, aliceChanges.get(2).getBalance());
+        assertEquals(2, aliceChanges.get(2).getVersion());
+
+        final List<BalanceChange> bobChanges = published.stream()
+                .filter(change -> change.getAccountId().equals(bob.getId()))
+                .collect(Collectors.toList());
+        assertEquals(2, bobChanges.size());
+        assertEquals(OperationType.TRANSFER_IN, bobChanges.get(1).getType());
+        assertEquals(40, bobChanges.get(1).getBalance());
+    }
+}
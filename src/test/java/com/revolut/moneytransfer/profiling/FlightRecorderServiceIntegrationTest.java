@@ -0,0 +1,106 @@
+package com.revolut.moneytransfer.profiling;
+
+import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+@Property(name = "flight-recorder.phase-threshold", value = "0ms")
+public class FlightRecorderServiceIntegrationTest {
+    private static final String OPERATION_EVENT = "com.revolut.moneytransfer.AccountOperation";
+    private static final String PHASE_EVENT = "com.revolut.moneytransfer.AccountPhase";
+
+    @Inject
+    private FlightRecorderService recorder;
+
+    @Inject
+    private AccountService accountService;
+
+    @AfterEach
+    void tearDown() {
+        recorder.discard();
+    }
+
+    @Test
+    void dump_operationsDuringRecording_shouldContainOperationAndPhaseEvents() throws IOException {
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+
+        recorder.start();
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(100);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(alice.getId(), deposit);
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1000);
+        transfer.setCurrency("USD");
+        assertThrows(InsufficientAmountOnBalanceException.class, () ->
+                accountService.createTransferOperation(alice.getId(), bob.getId(), transfer));
+        recorder.stop();
+
+        final Path file = recorder.dump().orElseThrow(AssertionError::new);
+        final List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        final List<RecordedEvent> operations = events.stream()
+                .filter(event -> event.getEventType().getName().equals(OPERATION_EVENT))
+                .filter(event -> event.getInt("accountHash") == FlightEvents.hash(alice.getId()))
+                .collect(Collectors.toList());
+        assertEquals(2, operations.size());
+        final RecordedEvent depositEvent = find(operations, "DEPOSIT");
+        assertEquals("OK", depositEvent.getString("outcome"));
+        assertEquals(100, depositEvent.getLong("amount"));
+        final RecordedEvent transferEvent = find(operations, "TRANSFER");
+        assertEquals("InsufficientAmountOnBalanceException", transferEvent.getString("outcome"));
+        assertEquals(FlightEvents.hash(bob.getId()), transferEvent.getInt("targetAccountHash"));
+
+        final Set<String> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals(PHASE_EVENT))
+                .map(event -> event.getString("phase"))
+                .collect(Collectors.toSet());
+        assertTrue(phases.containsAll(Arrays.asList("session-open", "find", "update-balance", "log-operation", "commit")),
+                "phases " + phases);
+    }
+
+    @Test
+    void dump_withoutRecording_shouldBeEmpty() {
+        assertFalse(recorder.dump().isPresent());
+        assertEquals("NONE", recorder.status().get("state"));
+    }
+
+    private static RecordedEvent find(final List<RecordedEvent> events, final String operation) {
+        return events.stream()
+                .filter(event -> operation.equals(event.getString("operation")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No event of " + operation));
+    }
+
+    private Account createAccount(final String name) {
+        return accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+    }
+}
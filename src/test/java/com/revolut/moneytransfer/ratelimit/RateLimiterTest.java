@@ -0,0 +1,43 @@
+package com.revolut.moneytransfer.ratelimit;
+
+import com.revolut.moneytransfer.config.RateLimitConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    @Test
+    void tryAcquireAccount_beyondMaxTrackedAccounts_shouldShareOverflowBucket() {
+        final RateLimitConfiguration configuration = new RateLimitConfiguration();
+        configuration.setAccountCapacity(1);
+        configuration.setAccountRefillPerSecond(1);
+        configuration.setMaxTrackedAccounts(2);
+        final RateLimiter rateLimiter = new RateLimiter(configuration);
+
+        assertTrue(rateLimiter.tryAcquireAccount("a"));
+        assertTrue(rateLimiter.tryAcquireAccount("b"));
+        assertTrue(rateLimiter.tryAcquireAccount("c"));
+        assertFalse(rateLimiter.tryAcquireAccount("d"));
+        assertFalse(rateLimiter.tryAcquireAccount("a"));
+
+        assertEquals(2, rateLimiter.getTrackedAccounts());
+        assertEquals(2, rateLimiter.getAccountRejections());
+    }
+
+    @Test
+    void tryAcquireClient_beyondMaxTrackedClients_shouldShareOverflowBucket() {
+        final RateLimitConfiguration configuration = new RateLimitConfiguration();
+        configuration.setClientCapacity(1);
+        configuration.setClientRefillPerSecond(1);
+        configuration.setMaxTrackedClients(1);
+        final RateLimiter rateLimiter = new RateLimiter(configuration);
+
+        assertTrue(rateLimiter.tryAcquireClient("first"));
+        assertTrue(rateLimiter.tryAcquireClient("second"));
+        assertFalse(rateLimiter.tryAcquireClient("third"));
+
+        assertEquals(1, rateLimiter.getTrackedClients());
+        assertEquals(1, rateLimiter.retryAfterSeconds("third", null));
+    }
+}
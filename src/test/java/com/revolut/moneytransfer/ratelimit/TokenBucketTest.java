@@ -0,0 +1,64 @@
+package com.revolut.moneytransfer.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    @Test
+    void tryAcquire_withinCapacity_success() {
+        final TokenBucket bucket = new TokenBucket(3, 1, 1000);
+        assertTrue(bucket.tryAcquire(1000));
+        assertTrue(bucket.tryAcquire(1000));
+        assertTrue(bucket.tryAcquire(1000));
+        assertFalse(bucket.tryAcquire(1000));
+    }
+
+    @Test
+    void tryAcquire_afterRefillInterval_success() {
+        final TokenBucket bucket = new TokenBucket(1, 2, 1000);
+        assertTrue(bucket.tryAcquire(1000));
+        assertFalse(bucket.tryAcquire(1499));
+        assertTrue(bucket.tryAcquire(1500));
+        assertFalse(bucket.tryAcquire(1500));
+    }
+
+    @Test
+    void tryAcquire_afterLongIdle_shouldNotExceedCapacity() {
+        final TokenBucket bucket = new TokenBucket(2, 1000, 1000);
+        assertTrue(bucket.tryAcquire(1000));
+        assertTrue(bucket.tryAcquire(1000));
+        assertTrue(bucket.tryAcquire(1_000_000));
+        assertTrue(bucket.tryAcquire(1_000_000));
+        assertFalse(bucket.tryAcquire(1_000_000));
+    }
+
+    @Test
+    void tryAcquire_fractionalRefill_shouldAccumulate() {
+        final TokenBucket bucket = new TokenBucket(5, 3, 1000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(1000));
+        }
+        assertFalse(bucket.tryAcquire(1200));
+        // one token takes 333.3ms, time left over after refill must be kept for the next token
+        assertTrue(bucket.tryAcquire(1400));
+        assertFalse(bucket.tryAcquire(1400));
+        assertTrue(bucket.tryAcquire(1667));
+    }
+
+    @Test
+    void millisUntilRefill_emptyBucket_positive() {
+        final TokenBucket bucket = new TokenBucket(1, 1, 1000);
+        assertEquals(0, bucket.millisUntilRefill(1000));
+        assertTrue(bucket.tryAcquire(1000));
+        assertEquals(600, bucket.millisUntilRefill(1400));
+    }
+
+    @Test
+    void constructor_invalidCapacity_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(TokenBucket.MAX_CAPACITY + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
@@ -0,0 +1,237 @@
+package com.revolut.moneytransfer.replication;
+
+import com.revolut.moneytransfer.archive.OperationArchiver;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.database.OperationMapper;
+import com.revolut.moneytransfer.exception.ReadOnlyReplicaException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.MultiTransfer;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.TransferLeg;
+import com.revolut.moneytransfer.service.AccountService;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Leader and follower run in one JVM as separate application contexts with their own databases,
+ * connected over loopback TCP like separate processes
+ */
+public class ReplicationIntegrationTest {
+
+    private Path archiveDirectory;
+    private ApplicationContext leader;
+    private ApplicationContext follower;
+    private AccountService leaderService;
+    private AccountService followerService;
+
+    @BeforeEach
+    void setUp() throws InterruptedException, IOException {
+        archiveDirectory = Files.createTempDirectory("archive");
+        final Map<String, Object> leaderProperties = new HashMap<>();
+        leaderProperties.put("datasources.default.url", databaseUrl("leader"));
+        // archive belongs to database, outbox does not hold it back
+        leaderProperties.put("archive.directory", archiveDirectory.toString());
+        leaderProperties.put("archive.older-than", "0s");
+        leaderProperties.put("outbox.enabled", false);
+        leaderProperties.put("replication.role", "LEADER");
+        leaderProperties.put("replication.port", 0);
+        leaderProperties.put("replication.sync-operations", Arrays.asList("DEPOSIT"));
+        leaderProperties.put("replication.ack-timeout", "5s");
+        leader = ApplicationContext.run(leaderProperties, Environment.TEST);
+        leaderService = leader.getBean(AccountService.class);
+
+        final Map<String, Object> followerProperties = new HashMap<>();
+        followerProperties.put("datasources.default.url", databaseUrl("follower"));
+        followerProperties.put("replication.role", "FOLLOWER");
+        followerProperties.put("replication.leader-port", leader.getBean(ReplicationLeader.class).getLocalPort());
+        followerProperties.put("replication.follower-name", "standby");
+        followerProperties.put("outbox.enabled", false);
+        followerProperties.put("invariants.enabled", false);
+        followerProperties.put("snapshot.enabled", false);
+        follower = ApplicationContext.run(followerProperties, Environment.TEST);
+        followerService = follower.getBean(AccountService.class);
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (leader.getBean(ReplicationLeader.class).getSessions().isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "follower is not connected");
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (follower.isRunning()) {
+            follower.close();
+        }
+        leader.close();
+        try (Stream<Path> files = Files.walk(archiveDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void follower_asyncOperations_shouldApplyThemInOrder() {
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+        deposit(alice, 100);
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(30);
+        transfer.setCurrency("USD");
+        leaderService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+        final MultiTransfer multiTransfer = new MultiTransfer();
+        multiTransfer.setCurrency("USD");
+        multiTransfer.setLegs(Arrays.asList(
+                new TransferLeg(alice.getId(), bob.getId(), 10),
+                new TransferLeg(alice.getId(), bob.getId(), 5)));
+        leaderService.createMultiTransferOperation(multiTransfer);
+
+        awaitReplicated();
+
+        for (Account account : Arrays.asList(alice, bob)) {
+            final Account onLeader = leaderService.getAccountById(account.getId()).get();
+            final Account onFollower = followerService.getAccountById(account.getId()).get();
+            assertEquals(onLeader, onFollower);
+        }
+        assertEquals(55, followerService.getAccountById(alice.getId()).get().getBalance());
+        assertThrows(ReadOnlyReplicaException.class, () -> createAccount(followerService, "Carol"));
+    }
+
+    @Test
+    void follower_syncOperation_shouldHaveItWhenOperationReturns() {
+        final Account alice = createAccount("Alice");
+        awaitReplicated();
+
+        deposit(alice, 100);
+
+        assertEquals(100, followerService.getAccountById(alice.getId()).get().getBalance());
+    }
+
+    @Test
+    void promote_follower_shouldAcceptOperationsAfterReplicatedOnes() throws InterruptedException {
+        final Account alice = createAccount("Alice");
+        deposit(alice, 100);
+        awaitReplicated();
+        final long lastReplicatedId = lastOperationId(follower);
+
+        follower.getBean(ReplicationFollower.class).promote();
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(5);
+        deposit.setCurrency("USD");
+        followerService.createDepositOperation(alice.getId(), deposit);
+
+        assertEquals(105, followerService.getAccountById(alice.getId()).get().getBalance());
+        assertTrue(lastOperationId(follower) > lastReplicatedId);
+    }
+
+    @Test
+    void follower_operationOfMissingAccount_shouldFailBatch() throws Exception {
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+        deposit(alice, 100);
+        awaitReplicated();
+        final long lastReplicatedId = lastOperationId(follower);
+        // as if opening of the account was skipped
+        try (SqlSession sqlSession = follower.getBean(SqlSessionFactory.class).openSession(true);
+             PreparedStatement statement = sqlSession.getConnection()
+                     .prepareStatement("delete from account where id = ?")) {
+            statement.setObject(1, UUID.fromString(alice.getId()));
+            assertEquals(1, statement.executeUpdate());
+        }
+
+        // both legs are committed at once, so they arrive in one batch
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(30);
+        transfer.setCurrency("USD");
+        leaderService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+        Thread.sleep(500);
+
+        assertEquals(lastReplicatedId, lastOperationId(follower));
+        assertEquals(lastReplicatedId, follower.getBean(ReplicationFollower.class).getLastAppliedId());
+        assertEquals(0, followerService.getAccountById(bob.getId()).get().getBalance());
+    }
+
+    @Test
+    void archive_onLeader_shouldKeepOperationsNotAcknowledgedByFollower() throws Exception {
+        final Account alice = createAccount("Alice");
+        deposit(alice, 100);
+        awaitReplicated();
+        final long acknowledgedId = lastOperationId(follower);
+        final OperationLog leaderLog = leader.getBean(OperationLog.class);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (leaderLog.loadCursor(ReplicationLeader.CURSOR_PREFIX + "standby") < acknowledgedId) {
+            assertTrue(System.nanoTime() < deadline, "follower position is not saved");
+            Thread.sleep(10);
+        }
+        follower.close();
+
+        final Account bob = createAccount("Bob");
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(30);
+        transfer.setCurrency("USD");
+        leaderService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+
+        assertEquals(acknowledgedId, leader.getBean(OperationArchiver.class).run());
+        assertEquals(3, leaderLog.findAfter(acknowledgedId, 100).size());
+    }
+
+    private void awaitReplicated() {
+        final long target = lastOperationId(leader);
+        final ReplicationFollower replication = follower.getBean(ReplicationFollower.class);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replication.getLastAppliedId() < target) {
+            assertTrue(System.nanoTime() < deadline, "operations are not replicated in time");
+            Thread.yield();
+        }
+    }
+
+    private static long lastOperationId(final ApplicationContext context) {
+        try (SqlSession sqlSession = context.getBean(SqlSessionFactory.class).openSession(true)) {
+            return sqlSession.getMapper(OperationMapper.class).findLastId();
+        }
+    }
+
+    private static String databaseUrl(final String name) {
+        return "jdbc:h2:mem:" + name + "-" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=2000";
+    }
+
+    private Account createAccount(final String name) {
+        return createAccount(leaderService, name);
+    }
+
+    private static Account createAccount(final AccountService service, final String name) {
+        return service.createAccount(Account.builder()
+                .name(name)
+                .build());
+    }
+
+    private void deposit(final Account account, final long amount) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(amount);
+        deposit.setCurrency("USD");
+        leaderService.createDepositOperation(account.getId(), deposit);
+    }
+}
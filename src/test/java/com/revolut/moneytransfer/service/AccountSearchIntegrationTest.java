@@ -0,0 +1,173 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.database.AccountSearchCriteria;
+import com.revolut.moneytransfer.exception.InvalidCursorException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountPage;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.util.RandomUtils;
+import io.micronaut.test.annotation.MicronautTest;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+public class AccountSearchIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Inject
+    private DataSource dataSource;
+
+    @Test
+    void searchAccounts_byNamePrefix_shouldReturnAllPagesInNameOrder() {
+        final String prefix = "search-" + RandomUtils.uniqueId() + "-";
+        final List<String> names = new ArrayList<>();
+        for (int i = 4; i >= 0; i--) {
+            names.add(0, prefix + i);
+            accountService.createAccount(Account.builder()
+                    .name(prefix + i)
+                    .build());
+        }
+
+        final List<String> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            final AccountPage page = accountService.searchAccounts(prefix, null, null, cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(account -> found.add(account.getName()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        assertEquals(names, found);
+    }
+
+    @Test
+    void searchAccounts_byNamePrefix_shouldEscapeWildcards() {
+        final String prefix = "search_" + RandomUtils.uniqueId();
+        accountService.createAccount(Account.builder()
+                .name(prefix)
+                .build());
+
+        final AccountPage page = accountService.searchAccounts(prefix.replace("search_", "search%"),
+                null, null, null, 10);
+        assertTrue(page.getItems().isEmpty());
+    }
+
+    @Test
+    void searchAccounts_byCurrencyAndMinBalance_shouldReturnPagesInBalanceOrder() {
+        final long minBalance = 1_000_000_000L + System.nanoTime() % 1_000_000;
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final Account account = accountService.createAccount(Account.builder()
+                    .name("rich")
+                    .build());
+            final Deposit deposit = new Deposit();
+            deposit.setAmount(minBalance + i);
+            deposit.setCurrency("USD");
+            accountService.createDepositOperation(account.getId(), deposit);
+            ids.add(account.getId());
+        }
+
+        final List<Account> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            final AccountPage page = accountService.searchAccounts(null, "USD", minBalance, cursor, 1);
+            found.addAll(page.getItems());
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        // accounts of other tests could have bigger balance as well
+        final List<String> foundIds = found.stream()
+                .map(Account::getId)
+                .filter(ids::contains)
+                .collect(Collectors.toList());
+        assertEquals(ids, foundIds);
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(found.get(i - 1).getBalance() <= found.get(i).getBalance());
+        }
+    }
+
+    @Test
+    void searchAccounts_withCursorOfAnotherSearch_shouldThrowException() {
+        accountService.createAccount(Account.builder().name("Alice").build());
+        accountService.createAccount(Account.builder().name("Alice").build());
+
+        final AccountPage page = accountService.searchAccounts(null, null, null, null, 1);
+        assertNotNull(page.getNext());
+        assertThrows(InvalidCursorException.class, () -> {
+            accountService.searchAccounts("Alice", null, null, page.getNext(), 1);
+        });
+        assertThrows(InvalidCursorException.class, () -> {
+            accountService.searchAccounts(null, null, null, "not a cursor", 1);
+        });
+    }
+
+    @Test
+    void searchAccounts_queryPlans_shouldUseIndexes() throws SQLException {
+        final String byName = explain(AccountSearchCriteria.builder()
+                .namePrefix("Ali")
+                .sort(AccountSearchCriteria.Sort.NAME)
+                .afterName("Alice")
+                .afterId("00000000-0000-0000-0000-000000000000")
+                .limit(51)
+                .build());
+        assertTrue(byName.contains("IDX_ACCOUNT_NAME"), byName);
+
+        final String byBalance = explain(AccountSearchCriteria.builder()
+                .currency("USD")
+                .minBalance(100L)
+                .sort(AccountSearchCriteria.Sort.BALANCE)
+                .limit(51)
+                .build());
+        assertTrue(byBalance.contains("IDX_ACCOUNT_CURRENCY_BALANCE"), byBalance);
+
+        final String byId = explain(AccountSearchCriteria.builder()
+                .sort(AccountSearchCriteria.Sort.ID)
+                .afterId("00000000-0000-0000-0000-000000000000")
+                .limit(51)
+                .build());
+        assertTrue(byId.contains("PRIMARY_KEY"), byId);
+    }
+
+    /**
+     * @return H2 query plan of account search with given criteria
+     */
+    private String explain(final AccountSearchCriteria criteria) throws SQLException {
+        final MappedStatement statement = sqlSessionFactory.getConfiguration()
+                .getMappedStatement(AccountMapper.class.getName() + ".searchAccounts");
+        final MapperMethod.ParamMap<Object> parameters = new MapperMethod.ParamMap<>();
+        parameters.put("criteria", criteria);
+        parameters.put("param1", criteria);
+        final BoundSql boundSql = statement.getBoundSql(parameters);
+
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement explain = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(statement, parameters, boundSql).setParameters(explain);
+            try (final ResultSet resultSet = explain.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getString(1);
+            }
+        }
+    }
+}
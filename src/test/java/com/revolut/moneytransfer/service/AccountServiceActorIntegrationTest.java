@@ -0,0 +1,100 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@MicronautTest
+@Property(name = "account.concurrency.strategy", value = "ACTOR")
+@Property(name = "account.concurrency.mailbox-idle-timeout", value = "1ms")
+public class AccountServiceActorIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private AccountMailboxes mailboxes;
+
+    @Test
+    void createTransferOperation_crossingTransfers_shouldConserveMoney() throws Exception {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                final boolean forward = i % 3 != 0;
+                futures.add(executor.submit(() -> {
+                    if (forward) {
+                        accountService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+                    } else {
+                        accountService.createTransferOperation(bob.getId(), alice.getId(), transfer);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Account aliceAfter = accountService.getAccountById(alice.getId()).get();
+        assertEquals(900, aliceAfter.getBalance());
+        // every operation runs once in the mailbox, so no attempt is lost on version conflict
+        assertEquals(301, aliceAfter.getVersion());
+        assertEquals(1100, accountService.getAccountById(bob.getId()).get().getBalance());
+    }
+
+    @Test
+    void createTransferOperation_targetNotFound_shouldNotDebitSource() {
+        final Account carol = createAccountWithBalance("Carol", 100);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(10);
+        transfer.setCurrency("USD");
+        assertThrows(AccountNotFoundException.class, () ->
+                accountService.createTransferOperation(carol.getId(), UUID.randomUUID().toString(), transfer));
+        assertEquals(100, accountService.getAccountById(carol.getId()).get().getBalance());
+    }
+
+    @Test
+    void evictIdleMailboxes_afterOperations_shouldDropMailboxes() throws InterruptedException {
+        createAccountWithBalance("Dave", 100);
+        Thread.sleep(5);
+
+        mailboxes.evictIdleMailboxes();
+        assertEquals(0, mailboxes.getActiveMailboxes());
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(balance);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+        return account;
+    }
+}
@@ -0,0 +1,77 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.AccountBalance;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.util.RandomUtils;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+public class AccountServiceBalanceAtIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Test
+    void getBalanceAt_pastTimes_shouldReturnBalanceOfThatTime() throws InterruptedException {
+        final Instant beforeOpen = Instant.now();
+        Thread.sleep(5);
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+        deposit(alice, 100);
+        final Instant afterDeposit = pause();
+        transfer(alice, bob, 30);
+        final Instant afterTransfer = pause();
+        deposit(alice, 5);
+
+        final AccountBalance opened = accountService.getBalanceAt(alice.getId(), beforeOpen);
+        assertEquals(0, opened.getBalance());
+        assertNull(opened.getOperationId());
+
+        assertEquals(100, accountService.getBalanceAt(alice.getId(), afterDeposit).getBalance());
+        assertEquals(70, accountService.getBalanceAt(alice.getId(), afterTransfer).getBalance());
+        assertEquals(30, accountService.getBalanceAt(bob.getId(), afterTransfer).getBalance());
+        assertEquals(75, accountService.getBalanceAt(alice.getId(), Instant.now()).getBalance());
+    }
+
+    @Test
+    void getBalanceAt_unknownAccount_shouldThrowException() {
+        assertThrows(AccountNotFoundException.class, () ->
+                accountService.getBalanceAt(RandomUtils.uniqueId(), Instant.now()));
+    }
+
+    private static Instant pause() throws InterruptedException {
+        Thread.sleep(5);
+        final Instant now = Instant.now();
+        Thread.sleep(5);
+        return now;
+    }
+
+    private Account createAccount(final String name) {
+        return accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+    }
+
+    private void deposit(final Account account, final long amount) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(amount);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+    }
+
+    private void transfer(final Account source, final Account target, final long amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(amount);
+        transfer.setCurrency("USD");
+        accountService.createTransferOperation(source.getId(), target.getId(), transfer);
+    }
+}
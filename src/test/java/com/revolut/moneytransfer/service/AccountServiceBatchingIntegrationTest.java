@@ -0,0 +1,88 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest
+@Property(name = "account.batching.enabled", value = "true")
+public class AccountServiceBatchingIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Test
+    void createTransferOperation_concurrentTransfers_failedItemsDoNotAbortBatch() throws Exception {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+        final Account poor = createAccountWithBalance("Poor", 0);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        final List<Future<?>> transfers = new ArrayList<>();
+        final List<Future<?>> poorTransfers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 400; i++) {
+                final boolean forward = i % 4 != 0;
+                transfers.add(executor.submit(() -> {
+                    if (forward) {
+                        accountService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+                    } else {
+                        accountService.createTransferOperation(bob.getId(), alice.getId(), transfer);
+                    }
+                }));
+                if (i % 10 == 0) {
+                    poorTransfers.add(executor.submit(() ->
+                            accountService.createTransferOperation(poor.getId(), alice.getId(), transfer)));
+                }
+            }
+            for (Future<?> future : transfers) {
+                future.get();
+            }
+            for (Future<?> future : poorTransfers) {
+                final ExecutionException e = assertThrows(ExecutionException.class, future::get);
+                assertTrue(e.getCause() instanceof InsufficientAmountOnBalanceException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Account aliceAfter = accountService.getAccountById(alice.getId()).get();
+        assertEquals(800, aliceAfter.getBalance());
+        assertEquals(401, aliceAfter.getVersion());
+        assertEquals(1200, accountService.getAccountById(bob.getId()).get().getBalance());
+        assertEquals(0, accountService.getAccountById(poor.getId()).get().getBalance());
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        if (balance > 0) {
+            final Deposit deposit = new Deposit();
+            deposit.setAmount(balance);
+            deposit.setCurrency("USD");
+            accountService.createDepositOperation(account.getId(), deposit);
+        }
+        return account;
+    }
+}
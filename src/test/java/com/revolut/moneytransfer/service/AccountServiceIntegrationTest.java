@@ -1,6 +1,9 @@
 package com.revolut.moneytransfer.service;
 
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountVersionMismatchException;
 import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.exception.SameAccountTransferException;
 import com.revolut.moneytransfer.model.Account;
 import com.revolut.moneytransfer.model.Deposit;
 import com.revolut.moneytransfer.model.Transfer;
@@ -10,7 +13,13 @@ import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -170,4 +179,84 @@ public class AccountServiceIntegrationTest {
         final Account bobResult = accountService.getAccountById(bob.getId()).get();
         assertEquals(0, bobResult.getBalance());
     }
+
+    @Test
+    void createTransferOperation_toSameAccount_shouldThrowException() {
+        final Account alice = accountService.createAccount(Account.builder()
+                .name("Alice")
+                .build());
+
+        final Deposit aliceDeposit = new Deposit();
+        aliceDeposit.setAmount(10);
+        aliceDeposit.setCurrency("USD");
+        accountService.createDepositOperation(alice.getId(), aliceDeposit);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(5);
+        transfer.setCurrency("USD");
+
+        assertThrows(SameAccountTransferException.class, () -> {
+            accountService.createTransferOperation(alice.getId(), alice.getId(), transfer);
+        });
+
+        final Account aliceResult = accountService.getAccountById(alice.getId()).get();
+        assertEquals(10, aliceResult.getBalance());
+        assertEquals(1, aliceResult.getVersion());
+    }
+
+    @Test
+    void createDepositOperation_concurrently_shouldNotLoseUpdates() throws Exception {
+        final Account account = accountService.createAccount(Account.builder()
+                .name("Alice")
+                .build());
+
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(1);
+        deposit.setCurrency("USD");
+
+        final AtomicInteger succeeded = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        accountService.createDepositOperation(account.getId(), deposit);
+                        succeeded.incrementAndGet();
+                    } catch (AccountConcurrentModificationException e) {
+                        // retries exhausted, balance must stay untouched by this operation
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final Account result = accountService.getAccountById(account.getId()).get();
+        assertEquals(succeeded.get(), result.getBalance());
+        assertEquals(succeeded.get(), result.getVersion());
+    }
+
+    @Test
+    void createDepositOperation_withStaleVersion_shouldThrowException() {
+        final Account account = accountService.createAccount(Account.builder()
+                .name("Alice")
+                .build());
+
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(10);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit, 0L);
+
+        assertThrows(AccountVersionMismatchException.class, () -> {
+            accountService.createDepositOperation(account.getId(), deposit, 0L);
+        });
+
+        final Account result = accountService.getAccountById(account.getId()).get();
+        assertEquals(10, result.getBalance());
+        assertEquals(1, result.getVersion());
+    }
 }
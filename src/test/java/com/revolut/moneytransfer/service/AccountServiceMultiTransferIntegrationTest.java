@@ -0,0 +1,185 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.BalanceChange;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.MultiTransfer;
+import com.revolut.moneytransfer.model.OperationType;
+import com.revolut.moneytransfer.model.TransferLeg;
+import com.revolut.moneytransfer.util.RandomUtils;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@MicronautTest
+@Property(name = "account.concurrency.strategy", value = "PESSIMISTIC")
+public class AccountServiceMultiTransferIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Test
+    void createMultiTransferOperation_oneSourceManyTargets_success() {
+        final Account payer = createAccountWithBalance("Payer", 100);
+        final Account alice = createAccountWithBalance("Alice", 0);
+        final Account bob = createAccountWithBalance("Bob", 0);
+
+        accountService.createMultiTransferOperation(multiTransfer(
+                new TransferLeg(payer.getId(), alice.getId(), 30),
+                new TransferLeg(payer.getId(), bob.getId(), 50)));
+
+        assertEquals(20, balance(payer));
+        assertEquals(30, balance(alice));
+        assertEquals(50, balance(bob));
+    }
+
+    @Test
+    void createMultiTransferOperation_manySourcesOneTarget_success() {
+        final Account alice = createAccountWithBalance("Alice", 40);
+        final Account bob = createAccountWithBalance("Bob", 60);
+        final Account payee = createAccountWithBalance("Payee", 0);
+
+        accountService.createMultiTransferOperation(multiTransfer(
+                new TransferLeg(alice.getId(), payee.getId(), 40),
+                new TransferLeg(bob.getId(), payee.getId(), 10)));
+
+        assertEquals(0, balance(alice));
+        assertEquals(50, balance(bob));
+        assertEquals(50, balance(payee));
+    }
+
+    @Test
+    void createMultiTransferOperation_shouldLogOneNetOperationPerAccount() {
+        final Account payer = createAccountWithBalance("Payer", 100);
+        final Account alice = createAccountWithBalance("Alice", 0);
+        final Account bob = createAccountWithBalance("Bob", 0);
+
+        accountService.createMultiTransferOperation(multiTransfer(
+                new TransferLeg(payer.getId(), alice.getId(), 30),
+                new TransferLeg(alice.getId(), payer.getId(), 10),
+                new TransferLeg(payer.getId(), bob.getId(), 50),
+                new TransferLeg(bob.getId(), payer.getId(), 50)));
+
+        final BalanceChange payerChange = lastOperation(payer);
+        assertEquals(OperationType.TRANSFER_OUT, payerChange.getType());
+        assertEquals(-20, payerChange.getAmount());
+        assertEquals(80, payerChange.getBalance());
+        assertEquals(accountService.getAccountById(payer.getId()).get().getVersion(), payerChange.getVersion());
+
+        final BalanceChange aliceChange = lastOperation(alice);
+        assertEquals(OperationType.TRANSFER_IN, aliceChange.getType());
+        assertEquals(20, aliceChange.getAmount());
+        assertEquals(20, aliceChange.getBalance());
+        assertEquals(accountService.getAccountById(alice.getId()).get().getVersion(), aliceChange.getVersion());
+
+        // net change of Bob is zero
+        assertEquals(OperationType.OPEN, lastOperation(bob).getType());
+        assertEquals(0, balance(bob));
+    }
+
+    @Test
+    void createMultiTransferOperation_oneLegInsufficient_shouldApplyNothing() {
+        final Account payer = createAccountWithBalance("Payer", 100);
+        final Account alice = createAccountWithBalance("Alice", 0);
+        final Account bob = createAccountWithBalance("Bob", 0);
+
+        assertThrows(InsufficientAmountOnBalanceException.class, () ->
+                accountService.createMultiTransferOperation(multiTransfer(
+                        new TransferLeg(payer.getId(), alice.getId(), 60),
+                        new TransferLeg(payer.getId(), bob.getId(), 60))));
+
+        assertEquals(100, balance(payer));
+        assertEquals(0, balance(alice));
+        assertEquals(0, balance(bob));
+    }
+
+    @Test
+    void createMultiTransferOperation_unknownTarget_shouldApplyNothing() {
+        final Account payer = createAccountWithBalance("Payer", 100);
+        final Account alice = createAccountWithBalance("Alice", 0);
+
+        assertThrows(AccountNotFoundException.class, () ->
+                accountService.createMultiTransferOperation(multiTransfer(
+                        new TransferLeg(payer.getId(), alice.getId(), 10),
+                        new TransferLeg(payer.getId(), RandomUtils.uniqueId(), 10))));
+
+        assertEquals(100, balance(payer));
+        assertEquals(0, balance(alice));
+    }
+
+    @Test
+    void createMultiTransferOperation_crossingTransfers_shouldNotDeadlock() throws Exception {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+        final Account carol = createAccountWithBalance("Carol", 1000);
+
+        final MultiTransfer forward = multiTransfer(
+                new TransferLeg(alice.getId(), bob.getId(), 1),
+                new TransferLeg(alice.getId(), carol.getId(), 1));
+        final MultiTransfer backward = multiTransfer(
+                new TransferLeg(carol.getId(), alice.getId(), 1),
+                new TransferLeg(bob.getId(), alice.getId(), 1));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final MultiTransfer multiTransfer = i % 2 == 0 ? forward : backward;
+                futures.add(executor.submit(() -> accountService.createMultiTransferOperation(multiTransfer)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1000, balance(alice));
+        assertEquals(1000, balance(bob));
+        assertEquals(1000, balance(carol));
+    }
+
+    private BalanceChange lastOperation(final Account account) {
+        final List<BalanceChange> items = accountService.getStatement(account.getId(), Instant.EPOCH,
+                Instant.now().plusSeconds(1), 100).getItems();
+        return items.get(items.size() - 1);
+    }
+
+    private long balance(final Account account) {
+        return accountService.getAccountById(account.getId()).get().getBalance();
+    }
+
+    private static MultiTransfer multiTransfer(final TransferLeg... legs) {
+        final MultiTransfer multiTransfer = new MultiTransfer();
+        multiTransfer.setLegs(Arrays.asList(legs));
+        multiTransfer.setCurrency("USD");
+        return multiTransfer;
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        if (balance > 0) {
+            final Deposit deposit = new Deposit();
+            deposit.setAmount(balance);
+            deposit.setCurrency("USD");
+            accountService.createDepositOperation(account.getId(), deposit);
+        }
+        return account;
+    }
+}
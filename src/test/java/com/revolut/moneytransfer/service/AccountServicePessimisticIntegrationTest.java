@@ -0,0 +1,69 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@MicronautTest
+@Property(name = "account.concurrency.strategy", value = "PESSIMISTIC")
+public class AccountServicePessimisticIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Test
+    void createTransferOperation_crossingTransfers_shouldNotDeadlock() throws Exception {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(1);
+        transfer.setCurrency("USD");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    if (forward) {
+                        accountService.createTransferOperation(alice.getId(), bob.getId(), transfer);
+                    } else {
+                        accountService.createTransferOperation(bob.getId(), alice.getId(), transfer);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1000, accountService.getAccountById(alice.getId()).get().getBalance());
+        assertEquals(1000, accountService.getAccountById(bob.getId()).get().getBalance());
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(balance);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(account.getId(), deposit);
+        return account;
+    }
+}
@@ -1,50 +1,76 @@
 package com.revolut.moneytransfer.service;
 
 import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.database.OperationMapper;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.exception.AccountLockTimeoutException;
 import com.revolut.moneytransfer.exception.AccountNotFoundException;
+import com.revolut.moneytransfer.exception.AccountVersionMismatchException;
 import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
 import com.revolut.moneytransfer.model.Account;
 import com.revolut.moneytransfer.model.Deposit;
 import com.revolut.moneytransfer.model.Transfer;
 import com.revolut.moneytransfer.model.Withdrawal;
 import com.revolut.moneytransfer.util.RandomUtils;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.test.annotation.MicronautTest;
 import io.micronaut.test.annotation.MockBean;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
 import javax.validation.ConstraintViolationException;
+import java.sql.SQLException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 
 @MicronautTest
+// background jobs would use the mocks concurrently with tests
+@Property(name = "invariants.enabled", value = "false")
+@Property(name = "outbox.enabled", value = "false")
 public class AccountServiceTest {
 
+    // mock bean is created on whichever test instance is current when it is first used, so the mapper is shared
+    private static final AccountMapper accountMapper = mock(AccountMapper.class);
+
     @Inject
     private AccountService accountService;
 
     @Inject
     private SqlSessionFactory sqlSessionFactory;
 
-    private AccountMapper accountMapper;
+    @BeforeEach
+    void setUp() {
+        reset(accountMapper);
+        when(accountMapper.updateBalance(anyString(), anyLong(), anyLong()))
+                .thenReturn(1);
+    }
 
     @MockBean(SqlSessionFactory.class)
     SqlSessionFactory sqlSessionFactory() {
         final SqlSessionFactory mock = mock(SqlSessionFactory.class);
         final SqlSession sqlSession = mock(SqlSession.class);
-        accountMapper = mock(AccountMapper.class);
         when(sqlSession.getMapper(AccountMapper.class))
                 .thenReturn(accountMapper);
+        when(sqlSession.getMapper(OperationMapper.class))
+                .thenReturn(mock(OperationMapper.class));
         when(mock.openSession())
                 .thenReturn(sqlSession);
         when(mock.openSession(anyBoolean()))
                 .thenReturn(sqlSession);
+        when(mock.openSession(any(ExecutorType.class), anyBoolean()))
+                .thenReturn(sqlSession);
         return mock;
     }
 
@@ -100,7 +126,7 @@ public class AccountServiceTest {
 
     @Test
     void createDepositOperation_withValidData_success() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .build());
@@ -123,7 +149,7 @@ public class AccountServiceTest {
 
     @Test
     void createWithdrawOperation_withValidData_success() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .balance(100)
@@ -147,7 +173,7 @@ public class AccountServiceTest {
 
     @Test
     void createWithdrawOperation_withInsufficientAmount_shouldThrowException() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .balance(10)
@@ -164,13 +190,13 @@ public class AccountServiceTest {
 
     @Test
     void createTransferOperation_withValidData_success() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .balance(100)
                         .build());
 
-        when(accountMapper.findById("bobId"))
+        when(accountMapper.findByIdForUpdate("bobId"))
                 .thenReturn(Account.builder()
                         .id("bobId")
                         .balance(200)
@@ -186,7 +212,7 @@ public class AccountServiceTest {
 
     @Test
     void createTransferOperation_sourceAccountNotFound_shouldThrowException() {
-        when(accountMapper.findById("bobId"))
+        when(accountMapper.findByIdForUpdate("bobId"))
                 .thenReturn(Account.builder()
                         .id("bobId")
                         .balance(200)
@@ -202,7 +228,7 @@ public class AccountServiceTest {
 
     @Test
     void createTransferOperation_targetAccountNotFound_shouldThrowException() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .balance(100)
@@ -218,13 +244,13 @@ public class AccountServiceTest {
 
     @Test
     void createTransferOperation_withInsufficientAmount_shouldThrowException() {
-        when(accountMapper.findById("aliceId"))
+        when(accountMapper.findByIdForUpdate("aliceId"))
                 .thenReturn(Account.builder()
                         .id("aliceId")
                         .balance(100)
                         .build());
 
-        when(accountMapper.findById("bobId"))
+        when(accountMapper.findByIdForUpdate("bobId"))
                 .thenReturn(Account.builder()
                         .id("bobId")
                         .balance(200)
@@ -237,4 +263,51 @@ public class AccountServiceTest {
             accountService.createTransferOperation("aliceId", "bobId", transfer);
         });
     }
+
+    @Test
+    void createDepositOperation_versionMismatch_shouldThrowException() {
+        when(accountMapper.findByIdForUpdate("daveId"))
+                .thenReturn(Account.builder()
+                        .id("daveId")
+                        .version(2)
+                        .build());
+
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(10);
+        deposit.setCurrency("USD");
+        assertThrows(AccountVersionMismatchException.class, () -> {
+            accountService.createDepositOperation("daveId", deposit, 1L);
+        });
+    }
+
+    @Test
+    void createDepositOperation_concurrentModification_shouldRetryAndFail() {
+        when(accountMapper.findByIdForUpdate("carolId"))
+                .thenReturn(Account.builder()
+                        .id("carolId")
+                        .build());
+        when(accountMapper.updateBalance(eq("carolId"), anyLong(), anyLong()))
+                .thenReturn(0);
+
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(10);
+        deposit.setCurrency("USD");
+        assertThrows(AccountConcurrentModificationException.class, () -> {
+            accountService.createDepositOperation("carolId", deposit);
+        });
+        verify(accountMapper, times(5)).updateBalance(eq("carolId"), anyLong(), anyLong());
+    }
+
+    @Test
+    void createWithdrawOperation_lockTimeout_shouldThrowRetryableException() {
+        when(accountMapper.findByIdForUpdate("erinId"))
+                .thenThrow(new PersistenceException(new SQLException("Timeout trying to lock table", "HYT00")));
+
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAmount(10);
+        withdrawal.setCurrency("USD");
+        assertThrows(AccountLockTimeoutException.class, () -> {
+            accountService.createWithdrawalOperation("erinId", withdrawal);
+        });
+    }
 }
@@ -0,0 +1,111 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.config.VelocityConfiguration;
+import com.revolut.moneytransfer.config.VelocityRuleConfiguration;
+import com.revolut.moneytransfer.database.OperationLog;
+import com.revolut.moneytransfer.exception.InsufficientAmountOnBalanceException;
+import com.revolut.moneytransfer.exception.VelocityLimitExceededException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.Withdrawal;
+import com.revolut.moneytransfer.velocity.VelocityLimiter;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@MicronautTest
+@Property(name = "velocity.enabled", value = "true")
+@Property(name = "velocity.rules.hourly-outflow.max-count", value = "3")
+@Property(name = "velocity.rules.hourly-outflow.max-outflow", value = "1000")
+public class AccountServiceVelocityIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private VelocityConfiguration configuration;
+
+    @Inject
+    private List<VelocityRuleConfiguration> ruleConfigurations;
+
+    @Inject
+    private OperationLog operationLog;
+
+    @Test
+    void createWithdrawalOperation_overCountLimit_shouldBeRejected() {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+
+        withdraw(alice, 1);
+        withdraw(alice, 1);
+        transfer(alice, createAccountWithBalance("Bob", 0), 1);
+        assertThrows(VelocityLimitExceededException.class, () -> withdraw(alice, 1));
+        assertEquals(997, accountService.getAccountById(alice.getId()).get().getBalance());
+    }
+
+    @Test
+    void createTransferOperation_overOutflowLimit_shouldBeRejected() {
+        final Account alice = createAccountWithBalance("Alice", 5000);
+        final Account bob = createAccountWithBalance("Bob", 0);
+
+        transfer(alice, bob, 600);
+        assertThrows(VelocityLimitExceededException.class, () -> transfer(alice, bob, 401));
+        transfer(alice, bob, 400);
+        assertEquals(1000, accountService.getAccountById(bob.getId()).get().getBalance());
+    }
+
+    @Test
+    void createWithdrawalOperation_failedOperation_shouldReleaseReservation() {
+        final Account alice = createAccountWithBalance("Alice", 10);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(InsufficientAmountOnBalanceException.class, () -> withdraw(alice, 100));
+        }
+        withdraw(alice, 10);
+    }
+
+    @Test
+    void rebuild_afterRestart_shouldRestoreWindowsFromOperationLog() {
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        withdraw(alice, 1);
+        withdraw(alice, 1);
+        withdraw(alice, 1);
+
+        final VelocityLimiter restarted = new VelocityLimiter(configuration, ruleConfigurations, operationLog);
+        restarted.rebuild();
+        assertThrows(VelocityLimitExceededException.class, () -> restarted.reserve(alice.getId(), 1));
+    }
+
+    private void withdraw(final Account account, final long amount) {
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAmount(amount);
+        withdrawal.setCurrency("USD");
+        accountService.createWithdrawalOperation(account.getId(), withdrawal);
+    }
+
+    private void transfer(final Account source, final Account target, final long amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(amount);
+        transfer.setCurrency("USD");
+        accountService.createTransferOperation(source.getId(), target.getId(), transfer);
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        if (balance > 0) {
+            final Deposit deposit = new Deposit();
+            deposit.setAmount(balance);
+            deposit.setCurrency("USD");
+            accountService.createDepositOperation(account.getId(), deposit);
+        }
+        return account;
+    }
+}
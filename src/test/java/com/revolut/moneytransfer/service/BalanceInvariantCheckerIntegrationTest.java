@@ -0,0 +1,153 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.database.AccountMapper;
+import com.revolut.moneytransfer.exception.AccountConcurrentModificationException;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.CurrencyTotals;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.Transfer;
+import com.revolut.moneytransfer.model.Withdrawal;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@MicronautTest
+@Property(name = "invariants.enabled", value = "false")
+@Property(name = "invariants.chunk-size", value = "2")
+public class BalanceInvariantCheckerIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private BalanceInvariantChecker invariantChecker;
+
+    @Inject
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Test
+    void runFullPass_afterOperations_shouldBeConsistent() {
+        invariantChecker.runFullPass();
+
+        final Account alice = createAccount("Alice");
+        final Account bob = createAccount("Bob");
+        deposit(alice.getId(), 100);
+
+        // operations in the middle of the pass
+        assertFalse(invariantChecker.checkNextChunk());
+        withdraw(alice.getId(), 30);
+        transfer(alice.getId(), bob.getId(), 50);
+
+        final BalanceInvariantChecker.Report report = invariantChecker.runFullPass();
+        assertTrue(report.isConsistent());
+    }
+
+    @Test
+    void runFullPass_concurrentOperations_shouldBeConsistent() throws Exception {
+        invariantChecker.runFullPass();
+
+        final List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Account account = createAccount("Account" + i);
+            deposit(account.getId(), 1000);
+            accounts.add(account);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int offset = thread;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        final Account source = accounts.get((offset + i) % accounts.size());
+                        final Account target = accounts.get((offset + i + 1) % accounts.size());
+                        try {
+                            transfer(source.getId(), target.getId(), 1);
+                            deposit(target.getId(), 2);
+                        } catch (AccountConcurrentModificationException e) {
+                            // conflicts are expected, money must be conserved anyway
+                        }
+                    }
+                }));
+            }
+
+            // passes run while writers commit
+            for (int pass = 0; pass < 3; pass++) {
+                assertTrue(invariantChecker.runFullPass().isConsistent());
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(invariantChecker.runFullPass().isConsistent());
+    }
+
+    @Test
+    void runFullPass_balanceChangedBypassingService_shouldReportDiscrepancy() {
+        invariantChecker.runFullPass();
+
+        final Account alice = createAccount("Alice");
+        deposit(alice.getId(), 100);
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final Account account = sqlSession.getMapper(AccountMapper.class).findById(alice.getId());
+            sqlSession.getMapper(AccountMapper.class).updateBalance(alice.getId(), 105, account.getVersion());
+        }
+
+        final BalanceInvariantChecker.Report report = invariantChecker.runFullPass();
+        assertFalse(report.isConsistent());
+        final CurrencyTotals usd = report.getTotals().stream()
+                .filter(totals -> totals.getCurrency().equals("USD"))
+                .findFirst()
+                .get();
+        assertEquals(5, usd.getDifference());
+
+        // restore balance for other tests sharing the database
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final Account account = sqlSession.getMapper(AccountMapper.class).findById(alice.getId());
+            sqlSession.getMapper(AccountMapper.class).updateBalance(alice.getId(), 100, account.getVersion());
+        }
+    }
+
+    private Account createAccount(final String name) {
+        return accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+    }
+
+    private void deposit(final String accountId, final long amount) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(amount);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(accountId, deposit);
+    }
+
+    private void withdraw(final String accountId, final long amount) {
+        final Withdrawal withdrawal = new Withdrawal();
+        withdrawal.setAmount(amount);
+        withdrawal.setCurrency("USD");
+        accountService.createWithdrawalOperation(accountId, withdrawal);
+    }
+
+    private void transfer(final String sourceId, final String targetId, final long amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setAmount(amount);
+        transfer.setCurrency("USD");
+        accountService.createTransferOperation(sourceId, targetId, transfer);
+    }
+}
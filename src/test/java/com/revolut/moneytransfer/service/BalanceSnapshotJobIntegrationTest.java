@@ -0,0 +1,174 @@
+package com.revolut.moneytransfer.service;
+
+import com.revolut.moneytransfer.database.SnapshotMapper;
+import com.revolut.moneytransfer.model.Account;
+import com.revolut.moneytransfer.model.Deposit;
+import com.revolut.moneytransfer.model.SnapshotReport;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest
+@Property(name = "snapshot.enabled", value = "false")
+@Property(name = "snapshot.partitions", value = "8")
+// every account is a chunk of its own
+@Property(name = "snapshot.chunk-size", value = "1")
+// 1% a day
+@Property(name = "snapshot.annual-interest-bps", value = "36500")
+@Property(name = "snapshot.daily-fee", value = "3")
+@Property(name = "snapshot.max-attempts", value = "2")
+@Property(name = "snapshot.retry-delay", value = "4s")
+public class BalanceSnapshotJobIntegrationTest {
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private BalanceSnapshotJob snapshotJob;
+
+    @Inject
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Inject
+    private BalanceInvariantChecker invariantChecker;
+
+    @Test
+    void run_twiceForSameDay_shouldPostAccrualsOnce() {
+        // accounts are opened today, which is over for the job once operations since its end are subtracted
+        final LocalDate date = LocalDate.now(ZoneOffset.UTC);
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        final Account bob = createAccountWithBalance("Bob", 2);
+
+        final SnapshotReport first = snapshotJob.run(date);
+        assertEquals(0, first.getSkippedPartitions());
+        assertEquals(0, first.getFailedPartitions());
+
+        // 1000 + 10 interest - 3 fee, fee is limited by balance
+        assertEquals(1007, accountService.getAccountById(alice.getId()).get().getBalance());
+        assertEquals(0, accountService.getAccountById(bob.getId()).get().getBalance());
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            assertEquals(1000L, sqlSession.getMapper(SnapshotMapper.class).findSnapshotBalance(date, alice.getId()));
+        }
+
+        final SnapshotReport second = snapshotJob.run(date);
+        assertEquals(8, second.getSkippedPartitions());
+        assertEquals(0, second.getAccounts());
+        assertEquals(1007, accountService.getAccountById(alice.getId()).get().getBalance());
+
+        assertTrue(invariantChecker.runFullPass().isConsistent());
+    }
+
+    @Test
+    void run_withOperationsAfterEndOfDay_shouldSnapshotEndOfDayBalance() throws SQLException {
+        final LocalDate date = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        moveOperationsBack(alice.getId(), Duration.ofDays(2));
+        deposit(alice.getId(), 500);
+        final Account bob = createAccountWithBalance("Bob", 1000);
+
+        final SnapshotReport report = snapshotJob.run(date);
+        assertEquals(0, report.getFailedPartitions());
+
+        // interest of end-of-day balance, the deposit of today is kept
+        assertEquals(1507, accountService.getAccountById(alice.getId()).get().getBalance());
+        // opened after the end of the day
+        assertEquals(1000, accountService.getAccountById(bob.getId()).get().getBalance());
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            final SnapshotMapper snapshotMapper = sqlSession.getMapper(SnapshotMapper.class);
+            assertEquals(1000L, snapshotMapper.findSnapshotBalance(date, alice.getId()));
+            assertNull(snapshotMapper.findSnapshotBalance(date, bob.getId()));
+        }
+        assertTrue(invariantChecker.runFullPass().isConsistent());
+    }
+
+    @Test
+    void run_failedPartition_shouldBeRetriedBySameRun() throws Exception {
+        final LocalDate date = LocalDate.now(ZoneOffset.UTC).minusDays(2);
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        moveOperationsBack(alice.getId(), Duration.ofDays(3));
+        // the first pass fails on the key of snapshot row, which is gone by the retry
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            sqlSession.getMapper(SnapshotMapper.class).insertSnapshot(date, alice.getId(), 0, 0, 0);
+        }
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final ScheduledFuture<Integer> cleanUp = executor.schedule(
+                    () -> execute("delete from balance_snapshot where account_id = ?", alice.getId()),
+                    2, TimeUnit.SECONDS);
+
+            final SnapshotReport report = snapshotJob.run(date);
+
+            assertEquals(1, cleanUp.get());
+            assertEquals(0, report.getFailedPartitions());
+            assertEquals(1007, accountService.getAccountById(alice.getId()).get().getBalance());
+            assertEquals(8, snapshotJob.run(date).getSkippedPartitions());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(invariantChecker.runFullPass().isConsistent());
+    }
+
+    @Test
+    void run_afterCommittedChunk_shouldResumeAfterIt() throws SQLException {
+        final LocalDate date = LocalDate.now(ZoneOffset.UTC).minusDays(3);
+        final Account alice = createAccountWithBalance("Alice", 1000);
+        moveOperationsBack(alice.getId(), Duration.ofDays(4));
+        // a crashed run committed the chunk of Alice, the cursor is past the range of other partitions
+        execute("insert into snapshot_progress (snapshot_date, partition_no, account_count, last_account_id)\n"
+                + "select date '" + date + "', x, 1, ? from system_range(0, 7)", alice.getId());
+
+        final SnapshotReport report = snapshotJob.run(date);
+        assertEquals(0, report.getSkippedPartitions());
+        assertEquals(0, report.getFailedPartitions());
+
+        assertEquals(1000, accountService.getAccountById(alice.getId()).get().getBalance());
+        assertEquals(8, snapshotJob.run(date).getSkippedPartitions());
+        assertTrue(invariantChecker.runFullPass().isConsistent());
+    }
+
+    private void moveOperationsBack(final String accountId, final Duration duration) throws SQLException {
+        execute("update account_operation set created_at = dateadd('SECOND', " + -duration.getSeconds()
+                + ", created_at) where account_id = ?", accountId);
+    }
+
+    private int execute(final String sql, final String accountId) throws SQLException {
+        try (final SqlSession sqlSession = sqlSessionFactory.openSession(true);
+             final PreparedStatement statement = sqlSession.getConnection().prepareStatement(sql)) {
+            statement.setObject(1, UUID.fromString(accountId));
+            return statement.executeUpdate();
+        }
+    }
+
+    private void deposit(final String accountId, final long amount) {
+        final Deposit deposit = new Deposit();
+        deposit.setAmount(amount);
+        deposit.setCurrency("USD");
+        accountService.createDepositOperation(accountId, deposit);
+    }
+
+    private Account createAccountWithBalance(final String name, final long balance) {
+        final Account account = accountService.createAccount(Account.builder()
+                .name(name)
+                .build());
+        deposit(account.getId(), balance);
+        return account;
+    }
+}
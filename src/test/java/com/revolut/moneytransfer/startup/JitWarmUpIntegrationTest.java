@@ -0,0 +1,66 @@
+package com.revolut.moneytransfer.startup;
+
+import com.revolut.moneytransfer.model.AccountPage;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JitWarmUpIntegrationTest {
+
+    @Test
+    void health_duringWarmUp_shouldBecomeUpWithoutTouchingApplicationData() throws InterruptedException {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("datasources.default.url",
+                "jdbc:h2:mem:jit-warm-up;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=2000");
+        properties.put("startup.jit-warm-up", true);
+        properties.put("startup.jit-warm-up-iterations", 100);
+        properties.put("startup.jit-warm-up-accounts", 4);
+
+        try (EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, properties, Environment.TEST);
+             RxHttpClient client = server.getApplicationContext().createBean(RxHttpClient.class, server.getURL())) {
+            final BlockingHttpClient blocking = client.toBlocking();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (healthStatus(blocking) != HttpStatus.OK.getCode()) {
+                assertTrue(System.nanoTime() < deadline, "warm-up is not finished in time");
+                Thread.sleep(50);
+            }
+
+            final StartupTimings timings = server.getApplicationContext().getBean(StartupTimings.class);
+            assertTrue(timings.getPhases().containsKey("jit-warm-up:service"), "phases " + timings.getPhases());
+            assertTrue(timings.getPhases().containsKey("jit-warm-up:http"), "phases " + timings.getPhases());
+
+            final AccountPage page = blocking.retrieve(HttpRequest.GET("/account?name=warm-up"), AccountPage.class);
+            assertEquals(0, page.getItems().size());
+        }
+    }
+
+    @Test
+    void scratchUrl_shouldKeepConnectionOptionsOnly() {
+        final String url = JitWarmUp.scratchUrl(
+                "jdbc:h2:file:./data/accounts;AUTO_SERVER=TRUE;LOCK_TIMEOUT=5000;db_close_delay=-1;QUERY_CACHE_SIZE=64");
+
+        assertTrue(url.startsWith("jdbc:h2:mem:warm-up-"), url);
+        assertTrue(url.endsWith(";LOCK_TIMEOUT=5000;QUERY_CACHE_SIZE=64"), url);
+    }
+
+    private static int healthStatus(final BlockingHttpClient client) {
+        try {
+            return client.exchange(HttpRequest.GET("/health")).code();
+        } catch (HttpClientResponseException e) {
+            return e.getStatus().getCode();
+        }
+    }
+}
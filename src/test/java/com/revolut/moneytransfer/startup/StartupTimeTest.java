@@ -0,0 +1,48 @@
+package com.revolut.moneytransfer.startup;
+
+import com.revolut.moneytransfer.model.AccountPage;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StartupTimeTest {
+    // generous for shared build machines, tighten with -Dstartup.budget-ms
+    private static final long BUDGET_MS = Long.getLong("startup.budget-ms", 15_000);
+
+    @Test
+    void firstRequest_afterColdStart_shouldBeServedWithinBudget() {
+        final Map<String, Object> properties = new HashMap<>();
+        // own database, so that migrations run as on a fresh pod
+        properties.put("datasources.default.url",
+                "jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=2000");
+        properties.put("startup.warm-up", true);
+        properties.put("startup.warm-up-iterations", 10);
+
+        final long startedAt = System.nanoTime();
+        try (EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, properties, Environment.TEST);
+             RxHttpClient client = server.getApplicationContext().createBean(RxHttpClient.class, server.getURL())) {
+            final HttpResponse<AccountPage> response = client.toBlocking()
+                    .exchange(HttpRequest.GET("/account?limit=1"), AccountPage.class);
+            final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            assertEquals(200, response.code());
+            assertTrue(elapsedMs < BUDGET_MS, "first request served in " + elapsedMs + " ms");
+
+            final StartupTimings timings = server.getApplicationContext().getBean(StartupTimings.class);
+            assertTrue(timings.getPhases().keySet().containsAll(Arrays.asList("mybatis", "context", "warm-up", "server")),
+                    "phases " + timings.getPhases());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.revolut.moneytransfer.velocity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VelocityWindowTest {
+
+    @Test
+    void count_withinWindow_shouldSumBuckets() {
+        final VelocityWindow window = new VelocityWindow(4);
+        window.add(10, 1, 100);
+        window.add(11, 2, 50);
+        window.add(12, 1, 25);
+
+        assertEquals(4, window.count(12, 4));
+        assertEquals(175, window.outflow(12, 4));
+        assertEquals(3, window.count(12, 2));
+        assertEquals(75, window.outflow(12, 2));
+    }
+
+    @Test
+    void count_afterRingWrapped_shouldSkipExpiredBuckets() {
+        final VelocityWindow window = new VelocityWindow(4);
+        window.add(10, 1, 100);
+        window.add(14, 1, 10);
+
+        assertEquals(1, window.count(14, 4));
+        assertEquals(10, window.outflow(14, 4));
+        assertEquals(0, window.count(20, 4));
+    }
+
+    @Test
+    void add_olderThanRing_shouldBeIgnored() {
+        final VelocityWindow window = new VelocityWindow(4);
+        window.add(14, 1, 10);
+        window.add(10, 1, 100);
+
+        assertEquals(1, window.count(14, 4));
+        assertEquals(10, window.outflow(14, 4));
+    }
+
+    @Test
+    void isExceededBy_countOrOutflowLimit_shouldRejectOperation() {
+        final VelocityWindow window = new VelocityWindow(60);
+        window.add(100, 2, 900);
+
+        assertTrue(new VelocityRule("count", 60, 2, 0).isExceededBy(window, 100, 1));
+        assertTrue(new VelocityRule("outflow", 60, 0, 1000).isExceededBy(window, 100, 101));
+        assertFalse(new VelocityRule("outflow", 60, 0, 1000).isExceededBy(window, 100, 100));
+        assertFalse(new VelocityRule("short", 1, 2, 1000).isExceededBy(window, 101, 1000));
+    }
+
+    @Test
+    void isIdle_afterAllBucketsExpired_true() {
+        final VelocityWindow window = new VelocityWindow(4);
+        window.add(10, 1, 1);
+
+        assertFalse(window.isIdle(13));
+        assertTrue(window.isIdle(14));
+    }
+}
@@ -0,0 +1,29 @@
+package com.revolut.moneytransfer.workload;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks indexes in [0, size) with Zipf distribution, index 0 is the most popular one.
+ * Shared by benchmarks and load generator, so both skew account popularity the same way
+ */
+public class ZipfianGenerator {
+    private final double[] cumulative;
+
+    public ZipfianGenerator(final int size, final double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int next() {
+        final int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}